@@ -0,0 +1,110 @@
+package com.school.lending.jmh;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.school.lending.dto.BorrowRequestDto;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+import com.school.lending.service.BorrowRequestService;
+import com.school.lending.service.CatalogCache;
+import com.school.lending.service.CatalogFacets;
+import com.school.lending.service.CatalogSearchIndex;
+import com.school.lending.service.EquipmentService;
+import com.school.lending.service.JpaInventoryLedger;
+import com.school.lending.service.ReservationIndex;
+import com.school.lending.service.UserService;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * {@link BorrowRequestService#createRequest}: field, reference and date checks
+ * plus the stock check against the reservation index, for a request that is
+ * accepted and one rejected for lack of stock.
+ *
+ * Repositories answer from memory, so the numbers cover the service code, not
+ * the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BorrowRequestBenchmarks {
+
+	private static final long STOCKED = 1L;
+	private static final long SOLD_OUT = 2L;
+
+	private BorrowRequestService service;
+	private ReservationIndex reservationIndex;
+	private BorrowRequestDto accepted;
+	private BorrowRequestDto overStock;
+
+	@Setup
+	public void setUp() {
+		User student = new User(7L, "Sam", "Student", "sam@school.test", Role.STUDENT);
+		Map<Long, Equipment> items = Map.of(
+				STOCKED, Equipment.builder().equipmentId(STOCKED).name("Camera").category("Media")
+						.condition(EquipmentCondition.GOOD).totalQuantity(1_000_000_000)
+						.availableQuantity(1_000_000_000).build(),
+				SOLD_OUT, Equipment.builder().equipmentId(SOLD_OUT).name("Tripod").category("Media")
+						.condition(EquipmentCondition.GOOD).totalQuantity(0).availableQuantity(0).build());
+
+		BorrowRequestRepository requests = Fixtures.repository(BorrowRequestRepository.class,
+				Map.of("save", args -> args[0]));
+		EquipmentRepository equipment = Fixtures.repository(EquipmentRepository.class,
+				Map.of("findById", args -> Optional.ofNullable(items.get(args[0]))));
+		UserRepository users = Fixtures.repository(UserRepository.class,
+				Map.of("findById", args -> Optional.of(student)));
+
+		reservationIndex = new ReservationIndex(requests);
+		EquipmentService equipmentService = new EquipmentService(equipment, reservationIndex,
+				new JpaInventoryLedger(equipment, null), new CatalogCache(50_000, Duration.ofMinutes(10)),
+				new CatalogSearchIndex(equipment), new CatalogFacets(equipment), event -> {
+				});
+		service = new BorrowRequestService(requests, new UserService(users), equipmentService, reservationIndex,
+				event -> {
+				}, Jackson2ObjectMapperBuilder.json().build());
+
+		LocalDate start = LocalDate.now().plusDays(3);
+		accepted = new BorrowRequestDto(student.getUserId(), STOCKED, 1, start, start.plusDays(7), null);
+		overStock = new BorrowRequestDto(student.getUserId(), SOLD_OUT, 1, start, start.plusDays(7), null);
+	}
+
+	// Accepted requests keep adding bookings; start every iteration from an empty timeline
+	@Setup(Level.Iteration)
+	public void clearBookings() {
+		reservationIndex.evict(STOCKED);
+	}
+
+	@Benchmark
+	public BorrowRequest createRequestAccepted() {
+		return service.createRequest(accepted);
+	}
+
+	@Benchmark
+	public Object createRequestRejectedOverStock() {
+		try {
+			return service.createRequest(overStock);
+		} catch (BadRequestException rejected) {
+			return rejected;
+		}
+	}
+}
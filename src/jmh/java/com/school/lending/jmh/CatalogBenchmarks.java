@@ -0,0 +1,62 @@
+package com.school.lending.jmh;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Pageable;
+
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.service.CatalogCache;
+import com.school.lending.service.CatalogFacets;
+import com.school.lending.service.CatalogSearchIndex;
+import com.school.lending.service.EquipmentService;
+import com.school.lending.service.JpaInventoryLedger;
+import com.school.lending.service.ReservationIndex;
+
+/**
+ * {@link EquipmentService#getAvailableEquipment}: one page of the student
+ * catalog served from the catalog cache, with the live stock overlay and the
+ * in-stock filter. The repository is only reached on the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CatalogBenchmarks {
+
+	@Param({ "20", "100" })
+	public int pageSize;
+
+	private EquipmentService equipmentService;
+
+	@Setup
+	public void setUp() {
+		List<AvailableEquipmentDto> rows = Fixtures.availableRows(1_000);
+		EquipmentRepository equipment = Fixtures.repository(EquipmentRepository.class,
+				Map.of("findAvailablePage", args -> rows.stream()
+						.filter(row -> row.equipmentId() > (Long) args[0])
+						.limit(((Pageable) args[2]).getPageSize()).toList()));
+		equipmentService = new EquipmentService(equipment,
+				new ReservationIndex(Fixtures.repository(BorrowRequestRepository.class, Map.of())),
+				new JpaInventoryLedger(equipment, null), new CatalogCache(50_000, Duration.ofMinutes(10)),
+				new CatalogSearchIndex(equipment), new CatalogFacets(equipment), event -> {
+				});
+	}
+
+	@Benchmark
+	public CursorPage<AvailableEquipmentDto> firstPageAllCategories() {
+		return equipmentService.getAvailableEquipment(null, null, pageSize);
+	}
+}
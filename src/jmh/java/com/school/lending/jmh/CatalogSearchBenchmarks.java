@@ -0,0 +1,71 @@
+package com.school.lending.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.school.lending.dto.EquipmentSuggestionDto;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.service.CatalogSearchIndex;
+
+/**
+ * Autocomplete and keyword search on CatalogSearchIndex over a 200k-item
+ * catalog (brand, kind and model number names): a short prefix, a two-word
+ * prefix, a misspelled prefix that falls back to trigram search, and a
+ * substring search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogSearchBenchmarks {
+
+	private static final int ITEMS = 200_000;
+	private static final String[] BRANDS = { "Epson", "Canon", "Sony", "Bosch", "Zeiss", "Yamaha", "Wilson", "Spalding",
+			"Lenovo", "Dell", "Apple", "Casio", "Texas", "Olympus", "Nikon", "Makita", "Fluke", "Logitech", "Shure",
+			"Raspberry" };
+	private static final String[] KINDS = { "Projector", "Camera", "Tripod", "Microscope", "Keyboard", "Football",
+			"Basketball", "Laptop", "Tablet", "Calculator", "Multimeter", "Drill", "Microphone", "Speaker", "Telescope",
+			"Oscilloscope", "Headphones", "Whiteboard", "Soldering Iron", "Volleyball" };
+	private static final String[] CATEGORIES = { "AV", "Sports", "Science", "IT", "Music", "Workshop", "Maths",
+			"Electronics" };
+	private static final EquipmentCondition[] CONDITIONS = EquipmentCondition.values();
+
+	private CatalogSearchIndex index;
+
+	@Setup
+	public void setUp() {
+		index = new CatalogSearchIndex(null);
+		for (int i = 1; i <= ITEMS; i++) {
+			index.put(new EquipmentSuggestionDto((long) i,
+					BRANDS[i % BRANDS.length] + " " + KINDS[i / BRANDS.length % KINDS.length] + " " + (1000 + i % 9000),
+					CATEGORIES[i % CATEGORIES.length], CONDITIONS[i % CONDITIONS.length]));
+		}
+	}
+
+	@Benchmark
+	public List<EquipmentSuggestionDto> completeShortPrefix() {
+		return index.complete("pro", 10);
+	}
+
+	@Benchmark
+	public List<EquipmentSuggestionDto> completeTwoWords() {
+		return index.complete("zeiss micro", 10);
+	}
+
+	@Benchmark
+	public List<EquipmentSuggestionDto> completeMisspelled() {
+		return index.complete("osciloscope", 10);
+	}
+
+	@Benchmark
+	public List<EquipmentSuggestionDto> searchSubstring() {
+		return index.search("scope 4711", 20);
+	}
+}
@@ -0,0 +1,46 @@
+package com.school.lending.jmh;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the JMH benchmarks in this package and writes the results as JSON (one
+ * entry per benchmark and parameter set, with score, error and percentiles),
+ * so runs from different releases can be compared.
+ *
+ * Run with: mvn test -Pjmh
+ *
+ * Optional system properties: jmh.include (benchmark regex, default all),
+ * jmh.forks (2), jmh.warmupIterations (3), jmh.iterations (5),
+ * jmh.iterationTime in seconds (1), jmh.result (target/jmh-result.json).
+ */
+@Tag("jmh")
+class JmhBenchmarkRunner {
+
+	@Test
+	void runBenchmarks() throws RunnerException {
+		String result = System.getProperty("jmh.result", "target/jmh-result.json");
+		new File(result).getAbsoluteFile().getParentFile().mkdirs();
+		TimeValue iterationTime = TimeValue.seconds(Integer.getInteger("jmh.iterationTime", 1));
+		Options options = new OptionsBuilder()
+				.include(System.getProperty("jmh.include", JmhBenchmarkRunner.class.getPackageName() + "\\..*"))
+				.forks(Integer.getInteger("jmh.forks", 2))
+				.warmupIterations(Integer.getInteger("jmh.warmupIterations", 3)).warmupTime(iterationTime)
+				.measurementIterations(Integer.getInteger("jmh.iterations", 5)).measurementTime(iterationTime)
+				.shouldFailOnError(true).resultFormat(ResultFormatType.JSON).result(result).build();
+		Collection<RunResult> results = new Runner(options).run();
+		if (results.isEmpty()) {
+			throw new IllegalStateException("No benchmark matched " + options.getIncludes());
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.school.lending.jmh;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.school.lending.security.JwksKeyStore;
+import com.school.lending.security.OfflineJwtDecoderConfig;
+
+/**
+ * Access token decoding (parse, RS256 signature check, claim validation):
+ * with keys selected from a JWK source, as Spring's JWKS-based decoder does
+ * (the JWK is turned into a public key and a verifier created per token), and
+ * with the preloaded keys and cached verifiers of JwksKeyStore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtDecoderBenchmarks {
+
+	private static final String ISSUER = "http://localhost:8081/realms/school";
+
+	private JwtDecoder jwkSource;
+	private JwtDecoder keyStore;
+	private String token;
+
+	@Setup
+	public void setUp() throws Exception {
+		RSAKey key = new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).generate();
+		JWKSet keys = new JWKSet(key.toPublicJWK());
+
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(keys)));
+		processor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		NimbusJwtDecoder fromJwkSource = new NimbusJwtDecoder(processor);
+		fromJwkSource.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+		jwkSource = fromJwkSource;
+
+		JwksKeyStore store = new JwksKeyStore((Path) null, keys::toString, Duration.ofSeconds(30), Clock.systemUTC());
+		store.refresh();
+		keyStore = OfflineJwtDecoderConfig.decoder(store, ISSUER);
+
+		Instant now = Instant.now();
+		SignedJWT signed = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+				new JWTClaimsSet.Builder().jwtID(UUID.randomUUID().toString()).issuer(ISSUER).subject("3f1c2a9e")
+						.issueTime(Date.from(now)).expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+						.claim("email", "sam@school.test").claim("realm_access", Map.of("roles", List.of("STUDENT",
+								"offline_access", "uma_authorization", "default-roles-school")))
+						.build());
+		signed.sign(new RSASSASigner(key));
+		token = signed.serialize();
+	}
+
+	@Benchmark
+	public Jwt decodeWithJwkSource() {
+		return jwkSource.decode(token);
+	}
+
+	@Benchmark
+	public Jwt decodeWithKeyStore() {
+		return keyStore.decode(token);
+	}
+}
@@ -0,0 +1,115 @@
+package com.school.lending.jmh;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.school.lending.security.KeycloakRoleConverter;
+
+/**
+ * {@link KeycloakRoleConverter#convert}, which runs on every authenticated
+ * request, for tokens shaped like the ones Keycloak issues for this realm:
+ * a token seen before (the usual case, ~20 calls per page load share one),
+ * a token seen for the first time, and the whole bearer authentication step
+ * of the filter chain (signature check, claim validation and conversion), to
+ * put the conversion in proportion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoleConverterBenchmarks {
+
+	// More distinct tokens than the cache holds, so every "new token" call misses
+	private static final int NEW_TOKENS = 4_096;
+
+	private KeycloakRoleConverter converter;
+	private Jwt token;
+	private Jwt[] newTokens;
+	private int next;
+
+	private JwtAuthenticationProvider provider;
+	private BearerTokenAuthenticationToken bearer;
+
+	@Setup
+	public void setUp() throws Exception {
+		converter = new KeycloakRoleConverter(1_024, Duration.ofMinutes(30));
+		token = token(UUID.randomUUID().toString());
+		newTokens = new Jwt[NEW_TOKENS];
+		for (int i = 0; i < NEW_TOKENS; i++) {
+			newTokens[i] = token(UUID.randomUUID().toString());
+		}
+
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		KeyPair keys = generator.generateKeyPair();
+		JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+		authenticationConverter.setJwtGrantedAuthoritiesConverter(converter);
+		provider = new JwtAuthenticationProvider(
+				NimbusJwtDecoder.withPublicKey((RSAPublicKey) keys.getPublic()).build());
+		provider.setJwtAuthenticationConverter(authenticationConverter);
+		Instant now = Instant.now();
+		SignedJWT signed = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), new JWTClaimsSet.Builder()
+				.jwtID(UUID.randomUUID().toString()).subject("3f1c2a9e").issuer("http://localhost:8081/realms/school")
+				.issueTime(Date.from(now)).expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+				.claim("email", "sam@school.test").claim("realm_access", Map.of("roles", List.of("STUDENT",
+						"offline_access", "uma_authorization", "default-roles-school")))
+				.build());
+		signed.sign(new RSASSASigner(keys.getPrivate()));
+		bearer = new BearerTokenAuthenticationToken(signed.serialize());
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> convertRepeatToken() {
+		return converter.convert(token);
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> convertNewToken() {
+		Jwt jwt = newTokens[next];
+		next = (next + 1) % NEW_TOKENS;
+		return converter.convert(jwt);
+	}
+
+	@Benchmark
+	public Authentication authenticate() {
+		return provider.authenticate(bearer);
+	}
+
+	private static Jwt token(String id) {
+		Instant issued = Instant.now();
+		return Jwt.withTokenValue("token-" + id).header("alg", "RS256").jti(id).subject("3f1c2a9e")
+				.issuer("http://localhost:8081/realms/school").issuedAt(issued).expiresAt(issued.plusSeconds(3600))
+				.claim("email", "sam@school.test")
+				.claim("realm_access",
+						Map.of("roles", List.of("STUDENT", "offline_access", "uma_authorization", "default-roles-school")))
+				.build();
+	}
+}
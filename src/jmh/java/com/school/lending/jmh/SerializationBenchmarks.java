@@ -0,0 +1,103 @@
+package com.school.lending.jmh;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.model.Equipment;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.service.BorrowRequestService;
+
+/**
+ * Response encoding: Jackson serialization of the equipment and borrow request
+ * lists the REST API returns, and the row encoding of the request export.
+ *
+ * The mapper is built like Spring Boot's (Java time module, ISO dates), so the
+ * output matches what the controllers send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmarks {
+
+	private static final int LIST_SIZE = 100;
+	private static final int EXPORT_ROWS = 1_000;
+
+	private ObjectMapper objectMapper;
+	private List<Equipment> equipment;
+	private List<BorrowRequestResponseDto> requests;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		equipment = Fixtures.equipment(LIST_SIZE);
+		requests = Fixtures.requestRows(LIST_SIZE);
+	}
+
+	@Benchmark
+	public byte[] equipmentList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(equipment);
+	}
+
+	@Benchmark
+	public byte[] borrowRequestList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(requests);
+	}
+
+	/** Streams EXPORT_ROWS rows through {@link BorrowRequestService#exportRequests}. */
+	@Benchmark
+	public void exportRows(ExportState export, Blackhole blackhole) {
+		export.service.exportRequests(new BlackholeOutputStream(blackhole), "csv".equals(export.format));
+	}
+
+	@State(Scope.Benchmark)
+	public static class ExportState {
+
+		@Param({ "json", "csv" })
+		public String format;
+
+		BorrowRequestService service;
+
+		@Setup
+		public void setUp() {
+			List<BorrowRequestResponseDto> rows = Fixtures.requestRows(EXPORT_ROWS);
+			BorrowRequestRepository repository = Fixtures.repository(BorrowRequestRepository.class,
+					Map.of("streamAllResponses", args -> rows.stream()));
+			service = new BorrowRequestService(repository, null, null, null, event -> {
+			}, Jackson2ObjectMapperBuilder.json().build());
+		}
+	}
+
+	private static final class BlackholeOutputStream extends OutputStream {
+		private final Blackhole blackhole;
+
+		BlackholeOutputStream(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(int b) {
+			blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			blackhole.consume(bytes);
+		}
+	}
+}
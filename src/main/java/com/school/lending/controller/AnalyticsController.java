@@ -1,11 +1,19 @@
 package com.school.lending.controller;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import com.school.lending.dto.AnalyticsSummaryDto;
+import com.school.lending.dto.UtilizationPointDto;
 import com.school.lending.service.AnalyticsService;
+import com.school.lending.service.UtilizationRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -13,10 +21,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final UtilizationRollupService utilizationRollupService;
 
     // Constructor Injection
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, UtilizationRollupService utilizationRollupService) {
         this.analyticsService = analyticsService;
+        this.utilizationRollupService = utilizationRollupService;
     }
 
     /**
@@ -29,4 +39,39 @@ public class AnalyticsController {
         AnalyticsSummaryDto summary = analyticsService.getSummaryAnalytics();
         return ResponseEntity.ok(summary);
     }
-}
\ No newline at end of file
+
+    /**
+     * GET /api/analytics/timeseries?from=&to=
+     * Daily utilization across all equipment (defaults to the last year).
+     * Admin only, like every /api/analytics URL in SecurityConfig.
+     */
+    @GetMapping("/timeseries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<UtilizationPointDto>> getTimeSeries(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(utilizationRollupService.getSeries(from, to, null, null));
+    }
+
+    /**
+     * GET /api/analytics/timeseries/equipment/{equipmentId}?from=&to=
+     */
+    @GetMapping("/timeseries/equipment/{equipmentId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<UtilizationPointDto>> getEquipmentTimeSeries(@PathVariable Long equipmentId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(utilizationRollupService.getSeries(from, to, equipmentId, null));
+    }
+
+    /**
+     * GET /api/analytics/timeseries/category/{category}?from=&to=
+     */
+    @GetMapping("/timeseries/category/{category}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<UtilizationPointDto>> getCategoryTimeSeries(@PathVariable String category,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(utilizationRollupService.getSeries(from, to, null, category));
+    }
+}
@@ -1,7 +1,11 @@
 package com.school.lending.controller;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,13 +17,21 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.school.lending.dto.ActiveLoan;
 import com.school.lending.dto.BorrowRequestDto;
+import com.school.lending.dto.BorrowRequestFilter;
 import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.dto.RequestTransitionDto;
+import com.school.lending.dto.RequestTransitionResultDto;
+import com.school.lending.exception.InvalidInputException;
 import com.school.lending.exception.ResourceNotFoundException;
 import com.school.lending.model.BorrowRequest;
 import com.school.lending.model.RequestStatus;
 import com.school.lending.service.BorrowRequestService;
+import com.school.lending.service.OverdueTracker;
 
 import jakarta.validation.Valid;
 
@@ -28,19 +40,61 @@ import jakarta.validation.Valid;
 public class BorrowRequestController {
 
 	private final BorrowRequestService borrowRequestService;
+	private final OverdueTracker overdueTracker;
 
-	public BorrowRequestController(BorrowRequestService borrowRequestService) {
+	public BorrowRequestController(BorrowRequestService borrowRequestService, OverdueTracker overdueTracker) {
 		this.borrowRequestService = borrowRequestService;
+		this.overdueTracker = overdueTracker;
 	}
 
+	/**
+	 * GET /api/requests?size=&cursor=&status=&from=&to=&category=
+	 * Returns one page of requests; follow {@code next} for the rest.
+	 */
 	@GetMapping("/requests")
 	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
-	public ResponseEntity<List<BorrowRequest>> getAllRequests() {
-		List<BorrowRequest> requestsList = borrowRequestService.getAll();
-		if (requestsList.isEmpty()) {
-			return ResponseEntity.notFound().build();
-		}
-		return ResponseEntity.ok(requestsList);
+	public ResponseEntity<CursorPage<BorrowRequestResponseDto>> getAllRequests(
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "" + CursorPage.DEFAULT_SIZE) int size,
+			@RequestParam(name = "status", required = false) String status,
+			@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(name = "category", required = false) String category) {
+		BorrowRequestFilter filter = new BorrowRequestFilter(null, parseStatus(status), from, to, category);
+		return ResponseEntity.ok(borrowRequestService.getRequestPage(filter, cursor, size));
+	}
+
+	/**
+	 * GET /api/requests/export?format=ndjson|csv
+	 * Streams the full borrow history for auditors. Bytes are sent as rows are read,
+	 * nothing is buffered in memory.
+	 */
+	@GetMapping("/requests/export")
+	@PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+	public ResponseEntity<StreamingResponseBody> exportRequests(
+			@RequestParam(name = "format", defaultValue = "ndjson") String format) {
+		boolean csv = switch (format.toLowerCase()) {
+		case "ndjson" -> false;
+		case "csv" -> true;
+		default -> throw new InvalidInputException("Unsupported export format: " + format);
+		};
+		StreamingResponseBody body = out -> borrowRequestService.exportRequests(out, csv);
+		return ResponseEntity.ok()
+				.contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"borrow-requests." + (csv ? "csv" : "ndjson") + "\"")
+				.body(body);
+	}
+
+	/**
+	 * GET /api/requests/overdue
+	 * Loans past their end date and not yet returned, earliest end date first.
+	 * Served from memory by OverdueTracker.
+	 */
+	@GetMapping("/requests/overdue")
+	@PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+	public ResponseEntity<List<ActiveLoan>> getOverdueLoans() {
+		return ResponseEntity.ok(overdueTracker.overdueLoans());
 	}
 
 	@GetMapping("/requests/{id}")
@@ -53,9 +107,15 @@ public class BorrowRequestController {
 
 	@GetMapping("/requests/user/{userId}")
 	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
-	public ResponseEntity<List<BorrowRequestResponseDto>> getRequestByUserId(@PathVariable Long userId) {
-		List<BorrowRequestResponseDto> requestList = borrowRequestService.getAllRequestOfUser(userId);
-		return ResponseEntity.ok(requestList);
+	public ResponseEntity<CursorPage<BorrowRequestResponseDto>> getRequestByUserId(@PathVariable Long userId,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "" + CursorPage.DEFAULT_SIZE) int size,
+			@RequestParam(name = "status", required = false) String status,
+			@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(name = "category", required = false) String category) {
+		BorrowRequestFilter filter = new BorrowRequestFilter(userId, parseStatus(status), from, to, category);
+		return ResponseEntity.ok(borrowRequestService.getRequestPage(filter, cursor, size));
 	}
 
 	@GetMapping("/requests/user")
@@ -80,6 +140,17 @@ public class BorrowRequestController {
 		return ResponseEntity.created(null).body(mapToDto(newRequestCreated));
 	}
 
+	private RequestStatus parseStatus(String status) {
+		if (status == null || status.isBlank()) {
+			return null;
+		}
+		try {
+			return RequestStatus.valueOf(status.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new InvalidInputException("Unknown request status: " + status);
+		}
+	}
+
 	private BorrowRequestDto mapToDto(BorrowRequest req) {
 		return new BorrowRequestDto(req.getUser().getUserId(), req.getEquipment().getEquipmentId(),
 				req.getRequestedQuantity(), req.getStartDate(), req.getEndDate(), req.getStatus());
@@ -92,6 +163,14 @@ public class BorrowRequestController {
 		return ResponseEntity.ok(mapToDto(updatedRequest));
 	}
 
+	// Applies many status changes in one transaction; every item gets its own result
+	@PutMapping("/requests/status")
+	@PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+	public ResponseEntity<List<RequestTransitionResultDto>> updateRequestStatuses(
+			@RequestBody List<RequestTransitionDto> changes) {
+		return ResponseEntity.ok(borrowRequestService.transitionRequests(changes));
+	}
+
 	@DeleteMapping("/requests/{id}")
 	@PreAuthorize("hasAnyRole('ADMIN')")
 	public ResponseEntity<Void> deleteRequest(@PathVariable Long id) {
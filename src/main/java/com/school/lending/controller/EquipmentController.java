@@ -2,6 +2,7 @@ package com.school.lending.controller;
 
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,9 +15,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.dto.CacheStatsDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.dto.EquipmentBrowseDto;
 import com.school.lending.dto.EquipmentDto;
+import com.school.lending.dto.EquipmentFacetsDto;
+import com.school.lending.dto.EquipmentSuggestionDto;
+import com.school.lending.exception.InvalidInputException;
 import com.school.lending.exception.ResourceNotFoundException;
 import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.service.CatalogCache;
 import com.school.lending.service.EquipmentService;
 
 import jakarta.validation.Valid;
@@ -25,19 +35,53 @@ import jakarta.validation.Valid;
 @RequestMapping("/api")
 public class EquipmentController {
 	private final EquipmentService equipmentService;
+	private final CatalogCache catalogCache;
 
-	public EquipmentController(EquipmentService equipmentService) {
+	public EquipmentController(EquipmentService equipmentService, CatalogCache catalogCache) {
 		this.equipmentService = equipmentService;
+		this.catalogCache = catalogCache;
 	}
 
+	/**
+	 * GET /api/equipment?size=&cursor=&category=
+	 * Returns one page of the catalog; follow {@code next} for the rest.
+	 */
 	@GetMapping("/equipment")
 	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
-	public ResponseEntity<List<Equipment>> getAllEquipment() {
-		List<Equipment> equipmentList = equipmentService.getAll();
-		if (equipmentList.isEmpty()) {
-			return ResponseEntity.notFound().build();
-		}
-		return ResponseEntity.ok(equipmentList);
+	public ResponseEntity<CursorPage<Equipment>> getAllEquipment(
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "" + CursorPage.DEFAULT_SIZE) int size,
+			@RequestParam(name = "category", required = false) String category) {
+		return ResponseEntity.ok(equipmentService.getPage(category, cursor, size));
+	}
+
+	/**
+	 * GET /api/equipment/browse?category=&condition=&inStock=&cursor=&size=
+	 * One page of the filtered catalog plus the facet counts for the filter
+	 * sidebar, in one response.
+	 */
+	@GetMapping("/equipment/browse")
+	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
+	public ResponseEntity<EquipmentBrowseDto> browseEquipment(
+			@RequestParam(name = "category", required = false) String category,
+			@RequestParam(name = "condition", required = false) EquipmentCondition condition,
+			@RequestParam(name = "inStock", defaultValue = "false") boolean inStockOnly,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+		return ResponseEntity.ok(equipmentService.browse(category, condition, inStockOnly, cursor, size));
+	}
+
+	/**
+	 * GET /api/equipment/facets?category=&condition=&inStock=
+	 * Item counts per category and per condition, and available vs total.
+	 */
+	@GetMapping("/equipment/facets")
+	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
+	public ResponseEntity<EquipmentFacetsDto> getFacets(
+			@RequestParam(name = "category", required = false) String category,
+			@RequestParam(name = "condition", required = false) EquipmentCondition condition,
+			@RequestParam(name = "inStock", defaultValue = "false") boolean inStockOnly) {
+		return ResponseEntity.ok(equipmentService.facets(category, condition, inStockOnly));
 	}
 
 	@GetMapping("/equipment/{id}")
@@ -55,6 +99,13 @@ public class EquipmentController {
 		return ResponseEntity.created(null).body(createdEquipment);
 	}
 
+	// Creates many items at once, all or nothing
+	@PostMapping("/equipment/import")
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public ResponseEntity<List<Equipment>> importEquipment(@RequestBody List<@Valid EquipmentDto> items) {
+		return ResponseEntity.status(HttpStatus.CREATED).body(equipmentService.importEquipment(items));
+	}
+
 	@PutMapping("/equipment/{id}")
 	@PreAuthorize("hasAnyRole('ADMIN')")
 	public ResponseEntity<Equipment> updateEquipment(@PathVariable Long id,
@@ -63,17 +114,42 @@ public class EquipmentController {
 		return ResponseEntity.ok(updatedEquipment);
 	}
 
+	/**
+	 * GET /api/equipment/search?category= : every item in exactly that category.
+	 * GET /api/equipment/search?q=&limit= : keyword search over name, category and
+	 * condition (substrings and typos included), best matches first.
+	 */
 	@GetMapping("/equipment/search")
 	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
 	public ResponseEntity<List<Equipment>> searchEquipmentByCategory(
-			@RequestParam(value = "category") String categoryName) {
-
-		List<Equipment> results = equipmentService.searchByCategory(categoryName);
+			@RequestParam(value = "category", required = false) String categoryName,
+			@RequestParam(value = "q", required = false) String query,
+			@RequestParam(value = "limit", defaultValue = "20") int limit) {
+
+		List<Equipment> results;
+		if (query != null) {
+			results = equipmentService.search(query, limit);
+		} else if (categoryName != null) {
+			results = equipmentService.searchByCategory(categoryName);
+		} else {
+			throw new InvalidInputException("Pass a category or a search text (q).");
+		}
 
 		// Returns 200 OK, even if the list is empty
 		return ResponseEntity.ok(results);
 	}
 
+	/**
+	 * GET /api/equipment/autocomplete?prefix=&limit=
+	 * Suggestions for what has been typed so far, served from memory.
+	 */
+	@GetMapping("/equipment/autocomplete")
+	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
+	public ResponseEntity<List<EquipmentSuggestionDto>> autocomplete(@RequestParam(name = "prefix") String prefix,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		return ResponseEntity.ok(equipmentService.suggest(prefix, limit));
+	}
+
 	@DeleteMapping("/equipment/{id}")
 	@PreAuthorize("hasAnyRole('ADMIN')")
 	public ResponseEntity<Void> deleteEquipment(@PathVariable Long id) {
@@ -89,13 +165,27 @@ public class EquipmentController {
 
 	@GetMapping("/equipment/available")
 	@PreAuthorize("hasAnyRole('STUDENT', 'STAFF', 'ADMIN')")
-	public ResponseEntity<List<Equipment>> getAvailableEquipment() {
+	public ResponseEntity<CursorPage<AvailableEquipmentDto>> getAvailableEquipment(
+			@RequestParam(name = "category", required = false) String category,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
 
-		// The service layer handles filtering and calculating available quantity.
-		List<Equipment> availableList = equipmentService.getAvailableEquipment();
+		// The database returns only in-stock rows, one page at a time.
+		CursorPage<AvailableEquipmentDto> availablePage = equipmentService.getAvailableEquipment(category, cursor,
+				size);
+
+		// Returns HTTP 200 OK with the page (which may be empty).
+		return ResponseEntity.ok(availablePage);
+	}
 
-		// Returns HTTP 200 OK with the list (which may be empty).
-		return ResponseEntity.ok(availableList);
+	/**
+	 * GET /api/equipment/cache/stats
+	 * Hit/miss counters of the catalog read cache.
+	 */
+	@GetMapping("/equipment/cache/stats")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<CacheStatsDto> getCacheStats() {
+		return ResponseEntity.ok(catalogCache.stats());
 	}
 
 }
@@ -1,28 +1,37 @@
 package com.school.lending.controller;
 
+import java.net.URI;
 import java.security.Principal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.school.lending.dto.HttpPoolStatsDto;
 import com.school.lending.dto.LoginRequest;
+import com.school.lending.dto.OnboardingJobDto;
 import com.school.lending.dto.RegisterRequest;
 import com.school.lending.dto.TokenRefreshRequest;
 import com.school.lending.dto.TokenRefreshResponse;
 import com.school.lending.dto.UserResponseDto;
 import com.school.lending.exception.ResourceNotFoundException;
 import com.school.lending.model.User;
+import com.school.lending.service.BulkOnboardingService;
 import com.school.lending.service.KeycloakUserService;
 import com.school.lending.service.UserService;
 
@@ -36,10 +45,15 @@ public class UserController {
 
 	private final KeycloakUserService keycloakAuthService;
 	private final UserService userService;
+	private final PoolingHttpClientConnectionManager keycloakConnectionManager;
+	private final BulkOnboardingService bulkOnboardingService;
 
-	public UserController(KeycloakUserService keycloakAuthService, UserService userService) {
+	public UserController(KeycloakUserService keycloakAuthService, UserService userService,
+			PoolingHttpClientConnectionManager keycloakConnectionManager, BulkOnboardingService bulkOnboardingService) {
 		this.keycloakAuthService = keycloakAuthService;
 		this.userService = userService;
+		this.keycloakConnectionManager = keycloakConnectionManager;
+		this.bulkOnboardingService = bulkOnboardingService;
 	}
 
 	// Accessible by ADMIN only
@@ -56,6 +70,36 @@ public class UserController {
 				jwt.getClaimAsString("preferred_username"), "claims", jwt.getClaims());
 	}
 
+	// Accessible by ADMIN only: usage of the pooled Keycloak HTTP connections
+	@GetMapping("/admin/keycloak/pool")
+	public HttpPoolStatsDto keycloakPool() {
+		PoolStats stats = keycloakConnectionManager.getTotalStats();
+		return new HttpPoolStatsDto(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+	}
+
+	// Accessible by ADMIN only: registers a batch of users in the background.
+	// Returns 202 with the job; poll the Location for progress and failed rows.
+	@PostMapping(value = "/admin/users/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<OnboardingJobDto> bulkRegister(@RequestBody List<RegisterRequest> requests) {
+		return accepted(bulkOnboardingService.start(requests));
+	}
+
+	// Same as above from CSV: firstName,lastName,email,role,password (header row optional)
+	@PostMapping(value = "/admin/users/bulk", consumes = "text/csv")
+	public ResponseEntity<OnboardingJobDto> bulkRegisterCsv(@RequestBody String csv) {
+		return accepted(bulkOnboardingService.start(BulkOnboardingService.parseCsv(csv)));
+	}
+
+	@GetMapping("/admin/users/bulk/{jobId}")
+	public OnboardingJobDto bulkRegisterProgress(@PathVariable UUID jobId) {
+		return bulkOnboardingService.getJob(jobId)
+				.orElseThrow(() -> new ResourceNotFoundException("Onboarding job not found with ID: " + jobId));
+	}
+
+	private static ResponseEntity<OnboardingJobDto> accepted(OnboardingJobDto job) {
+		return ResponseEntity.accepted().location(URI.create("/api/admin/users/bulk/" + job.jobId())).body(job);
+	}
+
 	@PostMapping("/auth/login")
 	public ResponseEntity<Map<String, Object>> autheticateUser(@RequestBody LoginRequest request) {
 		String email = request.email();
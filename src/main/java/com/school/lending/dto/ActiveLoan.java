@@ -0,0 +1,12 @@
+package com.school.lending.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight projection of an APPROVED borrow request (units out on loan),
+ * used by the overdue tracker and returned by the overdue list. The units are
+ * due back on {@code endDate}; the loan is overdue from the day after.
+ */
+public record ActiveLoan(Long requestId, Long userId, Long equipmentId, int quantity, LocalDate startDate,
+		LocalDate endDate) {
+}
@@ -0,0 +1,14 @@
+package com.school.lending.dto;
+
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Lightweight catalog row for the student "available equipment" view.
+ */
+public record AvailableEquipmentDto(Long equipmentId, String name, String category, EquipmentCondition condition,
+		int availableQuantity) {
+
+	public AvailableEquipmentDto withAvailableQuantity(int quantity) {
+		return new AvailableEquipmentDto(equipmentId, name, category, condition, quantity);
+	}
+}
@@ -0,0 +1,10 @@
+package com.school.lending.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight projection of an active borrow request, used to (re)build the
+ * in-memory booking index without loading full entities.
+ */
+public record BookingSlot(Long equipmentId, LocalDate startDate, LocalDate endDate, int requestedQuantity) {
+}
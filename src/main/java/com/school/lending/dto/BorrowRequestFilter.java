@@ -0,0 +1,12 @@
+package com.school.lending.dto;
+
+import java.time.LocalDate;
+
+import com.school.lending.model.RequestStatus;
+
+/**
+ * Optional filters for borrow request listings; {@code null} means "any".
+ * {@code from}/{@code to} select loans whose period overlaps [from, to).
+ */
+public record BorrowRequestFilter(Long userId, RequestStatus status, LocalDate from, LocalDate to, String category) {
+}
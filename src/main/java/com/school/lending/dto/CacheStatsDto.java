@@ -0,0 +1,7 @@
+package com.school.lending.dto;
+
+/**
+ * Hit/miss/eviction counters of a cache since startup.
+ */
+public record CacheStatsDto(long hits, long misses, double hitRate, long evictions, long estimatedSize) {
+}
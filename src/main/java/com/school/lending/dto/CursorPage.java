@@ -0,0 +1,62 @@
+package com.school.lending.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import com.school.lending.exception.InvalidInputException;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * {@code next} is an opaque cursor to pass back as {@code ?cursor=} (together
+ * with the same filters) to get the following page; it is {@code null} on the
+ * last page.
+ */
+public record CursorPage<T>(List<T> items, String next) {
+
+	public static final int DEFAULT_SIZE = 50;
+	public static final int MAX_SIZE = 500;
+
+	/**
+	 * Builds a page from a query that fetched up to {@code size + 1} rows; the
+	 * extra row only tells us whether another page exists.
+	 */
+	public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> keyOf) {
+		if (rows.size() <= size) {
+			return new CursorPage<>(rows, null);
+		}
+		List<T> items = rows.subList(0, size);
+		return new CursorPage<>(List.copyOf(items), encode(keyOf.apply(items.get(size - 1))));
+	}
+
+	public static String encode(Long lastKey) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(("k:" + lastKey).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the key after which the next page starts (0 for the first page).
+	 */
+	public static long decode(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return 0L;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!raw.startsWith("k:")) {
+				throw new IllegalArgumentException(raw);
+			}
+			return Long.parseLong(raw.substring(2));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidInputException("Invalid page cursor: " + cursor);
+		}
+	}
+
+	public static int checkSize(int size) {
+		if (size < 1 || size > MAX_SIZE) {
+			throw new InvalidInputException("Page size must be between 1 and " + MAX_SIZE + ".");
+		}
+		return size;
+	}
+}
@@ -0,0 +1,9 @@
+package com.school.lending.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Inclusive range of days; both ends are null when there is no data.
+ */
+public record DateSpan(LocalDate first, LocalDate last) {
+}
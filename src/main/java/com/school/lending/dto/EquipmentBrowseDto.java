@@ -0,0 +1,13 @@
+package com.school.lending.dto;
+
+import java.util.List;
+
+import com.school.lending.model.Equipment;
+
+/**
+ * One page of a filtered catalog listing together with the facet counts for
+ * the same filters, so the list and its sidebar come back in one response.
+ * {@code next} works as in CursorPage.
+ */
+public record EquipmentBrowseDto(List<Equipment> items, String next, EquipmentFacetsDto facets) {
+}
@@ -0,0 +1,23 @@
+package com.school.lending.dto;
+
+import java.util.Map;
+
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Counts for the catalog filter sidebar. Each group is counted under the
+ * filters of the other groups but not its own, so it shows what picking a
+ * different value would give: {@code categories} under the condition and
+ * in-stock filters, {@code conditions} under the category and in-stock
+ * filters, and the stock figures under the category and condition filters.
+ *
+ * @param categories    items per category
+ * @param conditions    items per condition
+ * @param items         items in total
+ * @param inStockItems  items with at least one unit available
+ * @param totalUnits    units owned
+ * @param availableUnits units not lent out
+ */
+public record EquipmentFacetsDto(Map<String, Integer> categories, Map<EquipmentCondition, Integer> conditions,
+		int items, int inStockItems, long totalUnits, long availableUnits) {
+}
@@ -0,0 +1,10 @@
+package com.school.lending.dto;
+
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Catalog search hit: what the search box shows for an item, served from the
+ * in-memory search index without touching the database.
+ */
+public record EquipmentSuggestionDto(Long equipmentId, String name, String category, EquipmentCondition condition) {
+}
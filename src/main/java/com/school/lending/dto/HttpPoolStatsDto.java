@@ -0,0 +1,8 @@
+package com.school.lending.dto;
+
+/**
+ * Snapshot of an HTTP connection pool: connections in use, idle and allowed,
+ * and callers waiting for one.
+ */
+public record HttpPoolStatsDto(int leased, int available, int pending, int max) {
+}
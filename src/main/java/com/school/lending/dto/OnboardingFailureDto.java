@@ -0,0 +1,8 @@
+package com.school.lending.dto;
+
+/**
+ * A row of a bulk onboarding batch that was not registered. {@code row} is
+ * the 1-based position in the submitted batch (not counting a CSV header).
+ */
+public record OnboardingFailureDto(int row, String email, String reason) {
+}
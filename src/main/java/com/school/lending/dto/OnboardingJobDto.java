@@ -0,0 +1,18 @@
+package com.school.lending.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a bulk onboarding job: {@code processed} rows out of
+ * {@code total} are done, each either registered (Keycloak and local
+ * database) or listed in {@code failures}.
+ */
+public record OnboardingJobDto(UUID jobId, Status status, int total, int processed, int succeeded, int failed,
+		List<OnboardingFailureDto> failures, Instant startedAt, Instant finishedAt) {
+
+	public enum Status {
+		RUNNING, COMPLETED, ABORTED
+	}
+}
@@ -0,0 +1,11 @@
+package com.school.lending.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Dates touched by a borrow request that changed since the last utilization
+ * rollup, plus the change time used to advance the high-water mark.
+ */
+public record RequestChange(LocalDate requestDate, LocalDate startDate, LocalDate endDate, Instant updatedAt) {
+}
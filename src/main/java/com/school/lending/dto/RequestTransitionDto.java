@@ -0,0 +1,12 @@
+package com.school.lending.dto;
+
+import com.school.lending.model.RequestStatus;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One item of a batch status change: move request {@code requestId} to
+ * {@code status}.
+ */
+public record RequestTransitionDto(@NotNull Long requestId, @NotNull RequestStatus status) {
+}
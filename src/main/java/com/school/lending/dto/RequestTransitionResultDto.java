@@ -0,0 +1,18 @@
+package com.school.lending.dto;
+
+import com.school.lending.model.RequestStatus;
+
+/**
+ * Outcome of one item of a batch status change. When {@code applied} is
+ * false the request was left unchanged and {@code error} says why.
+ */
+public record RequestTransitionResultDto(Long requestId, RequestStatus status, boolean applied, String error) {
+
+	public static RequestTransitionResultDto applied(Long requestId, RequestStatus status) {
+		return new RequestTransitionResultDto(requestId, status, true, null);
+	}
+
+	public static RequestTransitionResultDto failed(Long requestId, RequestStatus status, String error) {
+		return new RequestTransitionResultDto(requestId, status, false, error);
+	}
+}
@@ -0,0 +1,23 @@
+package com.school.lending.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One day of a utilization time series.
+ *
+ * unitsOut: units on approved (or since returned) loans that day.
+ * requestsCreated/Approved/Rejected: requests made that day and what became of
+ * them; approvalRate is approved / (approved + rejected), null until one of
+ * them is decided.
+ */
+public record UtilizationPointDto(LocalDate day, long unitsOut, long requestsCreated, long requestsApproved,
+		long requestsRejected, Double approvalRate) {
+
+	// Used by the aggregate query in DailyUtilizationRepository
+	public UtilizationPointDto(LocalDate day, Long unitsOut, Long requestsCreated, Long requestsApproved,
+			Long requestsRejected) {
+		this(day, unitsOut, requestsCreated, requestsApproved, requestsRejected,
+				requestsApproved + requestsRejected == 0 ? null
+						: (double) requestsApproved / (requestsApproved + requestsRejected));
+	}
+}
@@ -0,0 +1,13 @@
+package com.school.lending.dto;
+
+import java.time.LocalDate;
+
+import com.school.lending.model.RequestStatus;
+
+/**
+ * Projection of one borrow request with the fields the daily utilization
+ * rollup aggregates.
+ */
+public record UtilizationSource(Long equipmentId, String category, LocalDate requestDate, LocalDate startDate,
+		LocalDate endDate, int requestedQuantity, RequestStatus status) {
+}
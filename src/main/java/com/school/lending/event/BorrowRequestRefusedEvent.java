@@ -0,0 +1,27 @@
+package com.school.lending.event;
+
+import com.school.lending.model.RequestStatus;
+
+/**
+ * Published by BorrowRequestService when a new request or a status change is
+ * turned down. Unlike the other events it is published straight away, since
+ * the refusal usually rolls the transaction back.
+ *
+ * {@code requestId} and {@code from} are null for a new request.
+ */
+public record BorrowRequestRefusedEvent(Long requestId, Long equipmentId, RequestStatus from, RequestStatus to,
+		Reason reason) {
+
+	public enum Reason {
+		/** The status can't move from {@code from} to {@code to}. */
+		INVALID_TRANSITION,
+		/** Not enough units for the dates, or to return. */
+		INSUFFICIENT_STOCK,
+		/** Another change to the same request or stock won. */
+		CONCURRENT_UPDATE,
+		/** The request or its equipment doesn't exist. */
+		NOT_FOUND,
+		/** Missing or repeated fields in the change. */
+		INVALID_INPUT
+	}
+}
@@ -0,0 +1,13 @@
+package com.school.lending.event;
+
+import java.time.LocalDate;
+
+import com.school.lending.model.RequestStatus;
+
+/**
+ * Published by BorrowRequestService when a request is created ({@code from} is
+ * {@code null}), changes status, or is deleted ({@code to} is {@code null}).
+ */
+public record BorrowRequestStatusChangedEvent(Long requestId, Long equipmentId, Long userId, RequestStatus from,
+		RequestStatus to, int quantity, LocalDate requestDate, LocalDate startDate, LocalDate endDate) {
+}
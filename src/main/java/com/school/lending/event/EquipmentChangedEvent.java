@@ -0,0 +1,13 @@
+package com.school.lending.event;
+
+/**
+ * Published by EquipmentService when an item is created, edited or deleted.
+ * {@code before} is {@code null} for CREATED, {@code after} is {@code null} for
+ * DELETED.
+ */
+public record EquipmentChangedEvent(Type type, Long equipmentId, EquipmentSnapshot before, EquipmentSnapshot after) {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+}
@@ -0,0 +1,17 @@
+package com.school.lending.event;
+
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Immutable copy of the fields of an equipment item that event listeners care
+ * about (entities are mutable and may be detached by the time a listener runs).
+ */
+public record EquipmentSnapshot(Long equipmentId, String name, String category, EquipmentCondition condition,
+		int totalQuantity, int availableQuantity) {
+
+	public static EquipmentSnapshot of(Equipment equipment) {
+		return new EquipmentSnapshot(equipment.getEquipmentId(), equipment.getName(), equipment.getCategory(),
+				equipment.getCondition(), equipment.getTotalQuantity(), equipment.getAvailableQuantity());
+	}
+}
@@ -0,0 +1,16 @@
+package com.school.lending.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published by OverdueTracker when the date changes: REMINDER on the day set
+ * by lending.overdue.reminder-days ahead of a loan's end date, OVERDUE on the
+ * day after the end date if the loan is still out.
+ */
+public record LoanDueEvent(Type type, Long requestId, Long equipmentId, Long userId, int quantity,
+		LocalDate endDate) {
+
+	public enum Type {
+		REMINDER, OVERDUE
+	}
+}
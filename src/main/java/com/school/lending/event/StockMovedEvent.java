@@ -0,0 +1,8 @@
+package com.school.lending.event;
+
+/**
+ * Published by EquipmentService when an approval (negative delta) or a return
+ * (positive delta) moves units between available and borrowed.
+ */
+public record StockMovedEvent(Long equipmentId, String category, int availableDelta) {
+}
@@ -0,0 +1,74 @@
+package com.school.lending.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every call made through the shared Keycloak RestTemplate, as
+ * {@code lending.keycloak.requests{operation, outcome}}.
+ *
+ * The operation is derived from the URL (token, jwks, users, role_mapping, role),
+ * so ids in the path don't turn into tags. The outcome is the status class
+ * (2xx, 4xx, 5xx), or io_error when no response came back.
+ */
+public class KeycloakRequestMetrics implements ClientHttpRequestInterceptor {
+
+	static final String METRIC = "lending.keycloak.requests";
+
+	private record Key(String operation, String outcome) {
+	}
+
+	private final MeterRegistry registry;
+
+	private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+	public KeycloakRequestMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		long start = System.nanoTime();
+		String outcome = "io_error";
+		try {
+			ClientHttpResponse response = execution.execute(request, body);
+			outcome = (response.getStatusCode().value() / 100) + "xx";
+			return response;
+		} finally {
+			timers.computeIfAbsent(new Key(operation(request.getURI().getPath()), outcome),
+					key -> Timer.builder(METRIC).description("Calls to Keycloak, by operation and status class")
+							.tag("operation", key.operation()).tag("outcome", key.outcome()).register(registry))
+					.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	static String operation(String path) {
+		if (path.endsWith("/protocol/openid-connect/token")) {
+			return "token";
+		}
+		if (path.endsWith("/protocol/openid-connect/certs")) {
+			return "jwks";
+		}
+		if (path.contains("/role-mappings")) {
+			return "role_mapping";
+		}
+		if (path.contains("/roles/")) {
+			return "role";
+		}
+		if (path.contains("/users")) {
+			return "users";
+		}
+		return "other";
+	}
+}
@@ -0,0 +1,119 @@
+package com.school.lending.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.school.lending.event.BorrowRequestRefusedEvent;
+import com.school.lending.event.BorrowRequestRefusedEvent.Reason;
+import com.school.lending.event.BorrowRequestStatusChangedEvent;
+import com.school.lending.event.LoanDueEvent;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.service.AnalyticsService;
+import com.school.lending.service.OverdueTracker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Domain meters for the lending workflow.
+ *
+ * {@code lending.requests.transitions{to, outcome}} counts status changes by
+ * target status: outcome "applied" for committed changes, otherwise the
+ * refusal reason (invalid_transition, insufficient_stock, ...).
+ * {@code lending.loans.due{type}} counts the reminders and overdue notices of
+ * OverdueTracker. The gauges read the event-maintained counters of
+ * AnalyticsService and OverdueTracker, so a scrape never queries the database.
+ */
+@Component
+public class LendingMetrics implements MeterBinder {
+
+	static final String TRANSITIONS = "lending.requests.transitions";
+	static final String LOANS_DUE = "lending.loans.due";
+
+	private final AnalyticsService analyticsService;
+	private final OverdueTracker overdueTracker;
+
+	// Every (status, outcome) pair is registered up front, so recording is a map read.
+	// Empty until the registry is bound; events before that aren't counted.
+	private volatile Map<RequestStatus, Counter> applied = Map.of();
+	private volatile Map<RequestStatus, Map<Reason, Counter>> refused = Map.of();
+	private volatile Map<LoanDueEvent.Type, Counter> due = Map.of();
+
+	public LendingMetrics(AnalyticsService analyticsService, OverdueTracker overdueTracker) {
+		this.analyticsService = analyticsService;
+		this.overdueTracker = overdueTracker;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("lending.requests.pending", analyticsService, AnalyticsService::pendingRequests)
+				.description("Requests waiting for a staff decision").register(registry);
+		Gauge.builder("lending.equipment.units.out", analyticsService, AnalyticsService::unitsOut)
+				.description("Units currently lent out").register(registry);
+		Gauge.builder("lending.equipment.units.available", analyticsService, AnalyticsService::availableUnits)
+				.description("Units on the shelf").register(registry);
+		Gauge.builder("lending.equipment.items", analyticsService, AnalyticsService::totalEquipment)
+				.description("Equipment items in the catalog").register(registry);
+		Gauge.builder("lending.loans.overdue", overdueTracker, OverdueTracker::overdueCount)
+				.description("Loans past their end date and not returned").register(registry);
+
+		Map<RequestStatus, Counter> appliedCounters = new EnumMap<>(RequestStatus.class);
+		Map<RequestStatus, Map<Reason, Counter>> refusedCounters = new EnumMap<>(RequestStatus.class);
+		for (RequestStatus status : RequestStatus.values()) {
+			appliedCounters.put(status, transitions(registry, status, "applied"));
+			Map<Reason, Counter> byReason = new EnumMap<>(Reason.class);
+			for (Reason reason : Reason.values()) {
+				byReason.put(reason, transitions(registry, status, reason.name().toLowerCase()));
+			}
+			refusedCounters.put(status, byReason);
+		}
+		applied = appliedCounters;
+		refused = refusedCounters;
+
+		Map<LoanDueEvent.Type, Counter> dueCounters = new EnumMap<>(LoanDueEvent.Type.class);
+		for (LoanDueEvent.Type type : LoanDueEvent.Type.values()) {
+			dueCounters.put(type, Counter.builder(LOANS_DUE).description("Loan reminders and overdue notices")
+					.tag("type", type.name().toLowerCase()).register(registry));
+		}
+		due = dueCounters;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStatusChanged(BorrowRequestStatusChangedEvent event) {
+		Counter counter = applied.get(event.to());
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	// Refusals usually roll the transaction back, so they are counted as they happen
+	@EventListener
+	public void onRefused(BorrowRequestRefusedEvent event) {
+		if (event.to() == null) {
+			return; // malformed batch item
+		}
+		Map<Reason, Counter> byReason = refused.get(event.to());
+		if (byReason != null) {
+			byReason.get(event.reason()).increment();
+		}
+	}
+
+	@EventListener
+	public void onLoanDue(LoanDueEvent event) {
+		Counter counter = due.get(event.type());
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	private static Counter transitions(MeterRegistry registry, RequestStatus to, String outcome) {
+		return Counter.builder(TRANSITIONS).description("Borrow request status changes, applied or refused")
+				.tag("to", to.name().toLowerCase()).tag("outcome", outcome).register(registry);
+	}
+}
@@ -0,0 +1,55 @@
+package com.school.lending.metrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import com.school.lending.service.AnalyticsService;
+import com.school.lending.service.BorrowRequestService;
+import com.school.lending.service.EquipmentService;
+import com.school.lending.service.KeycloakUserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wires the service call timers (see ServiceCallMetrics) around the public
+ * methods of the lending services. The rest of the meters are registered by
+ * LendingMetrics, CatalogCache and KeycloakClientConfig, and by Spring Boot for
+ * HTTP requests, Hibernate and the connection pool.
+ */
+@Configuration
+public class MetricsConfig {
+
+	private static final Set<Class<?>> INSTRUMENTED = Set.of(BorrowRequestService.class, EquipmentService.class,
+			AnalyticsService.class, KeycloakUserService.class);
+
+	// Static and infrastructure-role, so it is picked up by whichever auto-proxy creator is active
+	// (the transactional one included) without pulling other beans in early
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public static Advisor serviceCallMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+		StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				return INSTRUMENTED.contains(ClassUtils.getUserClass(targetClass))
+						&& Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+						&& method.getDeclaringClass() != Object.class;
+			}
+		};
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ServiceCallMetrics(meterRegistry));
+		// Outside the transaction advice, so the time includes the commit and its failures count
+		advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return advisor;
+	}
+}
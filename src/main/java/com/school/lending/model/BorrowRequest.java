@@ -1,5 +1,6 @@
 package com.school.lending.model;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 import jakarta.persistence.Column;
@@ -10,8 +11,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,7 +23,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "borrow_requests")
+@Table(name = "borrow_requests", indexes = @Index(name = "idx_borrow_request_updated", columnList = "updatedAt"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,7 +31,8 @@ import lombok.NoArgsConstructor;
 public class BorrowRequest {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrow_requests_seq")
+	@SequenceGenerator(name = "borrow_requests_seq", sequenceName = "borrow_requests_seq", allocationSize = 50)
 	private Long requestId;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -54,6 +59,14 @@ public class BorrowRequest {
 	@Column(nullable = false)
 	private RequestStatus status; // PENDING, APPROVED, REJECTED, RETURNED
 
+	// Last insert or status change; the high-water mark of the utilization rollup
+	private Instant updatedAt;
+
+	@PrePersist
+	void touch() {
+		updatedAt = Instant.now();
+	}
+
 	public Long getRequestId() {
 		return requestId;
 	}
@@ -117,4 +130,12 @@ public class BorrowRequest {
 	public void setStatus(RequestStatus status) {
 		this.status = status;
 	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Instant updatedAt) {
+		this.updatedAt = updatedAt;
+	}
 }
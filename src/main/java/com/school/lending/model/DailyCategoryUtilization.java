@@ -0,0 +1,49 @@
+package com.school.lending.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DailyUtilization summed per category, so category and catalog-wide series
+ * read a few rows per day instead of one per equipment item.
+ */
+@Entity
+@Table(name = "daily_category_utilization", indexes = @Index(name = "idx_category_utilization_date", columnList = "usageDate"))
+@IdClass(DailyCategoryUtilization.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyCategoryUtilization {
+
+	@Id
+	private String category;
+
+	@Id
+	private LocalDate usageDate;
+
+	private long unitsOut;
+	private long requestsCreated;
+	private long requestsApproved;
+	private long requestsRejected;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Key implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private String category;
+		private LocalDate usageDate;
+	}
+}
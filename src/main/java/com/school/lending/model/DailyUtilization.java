@@ -0,0 +1,51 @@
+package com.school.lending.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated activity of one equipment item on one day, maintained by
+ * UtilizationRollupService. equipmentId is deliberately not a foreign key so
+ * history survives equipment deletion; category is the one at rollup time.
+ */
+@Entity
+@Table(name = "daily_utilization", indexes = @Index(name = "idx_utilization_equipment", columnList = "equipmentId, usageDate"))
+@IdClass(DailyUtilization.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyUtilization {
+
+	@Id
+	private LocalDate usageDate;
+
+	@Id
+	private Long equipmentId;
+
+	private String category;
+	private long unitsOut;
+	private long requestsCreated;
+	private long requestsApproved;
+	private long requestsRejected;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Key implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private LocalDate usageDate;
+		private Long equipmentId;
+	}
+}
@@ -4,19 +4,26 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+// In-stock pages use the partial idx_equipment_in_stock from V3, which JPA cannot declare
+@Table(indexes = @Index(name = "idx_equipment_category", columnList = "category, equipmentId"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Equipment {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	// Pooled sequence rather than IDENTITY, so inserts can be JDBC-batched
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "equipment_seq")
+	@SequenceGenerator(name = "equipment_seq", sequenceName = "equipment_seq", allocationSize = 50)
 	private Long equipmentId;
 	private String name;
 	private String category;
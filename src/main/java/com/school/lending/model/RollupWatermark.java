@@ -0,0 +1,27 @@
+package com.school.lending.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How far an incremental rollup has read its source table: every change up to
+ * {@code highWater} is already reflected in the rollup.
+ */
+@Entity
+@Table(name = "rollup_watermark")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupWatermark {
+
+	@Id
+	private String name;
+
+	private Instant highWater;
+}
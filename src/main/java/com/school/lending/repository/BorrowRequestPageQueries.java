@@ -0,0 +1,19 @@
+package com.school.lending.repository;
+
+import java.util.List;
+
+import com.school.lending.dto.BorrowRequestFilter;
+import com.school.lending.dto.BorrowRequestResponseDto;
+
+/**
+ * Filtered request listings, built per call from the filters actually set
+ * (see BorrowRequestPageQueriesImpl). Part of BorrowRequestRepository.
+ */
+public interface BorrowRequestPageQueries {
+
+	/**
+	 * Keyset page: up to {@code limit} requests after {@code afterId}, in id
+	 * order, matching every non-null filter.
+	 */
+	List<BorrowRequestResponseDto> findPage(long afterId, BorrowRequestFilter filter, int limit);
+}
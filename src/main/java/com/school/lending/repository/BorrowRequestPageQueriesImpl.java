@@ -0,0 +1,61 @@
+package com.school.lending.repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.school.lending.dto.BorrowRequestFilter;
+import com.school.lending.dto.BorrowRequestResponseDto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Writes only the conditions for the filters that are set, instead of one
+ * query with {@code (:x IS NULL OR ...)} for each. Every combination of
+ * filters is then its own statement, which PostgreSQL plans on its own: a
+ * status filter walks (status, request_id), a user filter (user_id,
+ * request_id), and no filter the primary key. A catch-all statement gets one
+ * generic plan that can't pick the index per call.
+ */
+class BorrowRequestPageQueriesImpl implements BorrowRequestPageQueries {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<BorrowRequestResponseDto> findPage(long afterId, BorrowRequestFilter filter, int limit) {
+		StringBuilder jpql = new StringBuilder(BorrowRequestRepository.RESPONSE_PROJECTION)
+				.append("WHERE r.requestId > :afterId ");
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		parameters.put("afterId", afterId);
+		if (filter.userId() != null) {
+			jpql.append("AND u.userId = :userId ");
+			parameters.put("userId", filter.userId());
+		}
+		if (filter.status() != null) {
+			jpql.append("AND r.status = :status ");
+			parameters.put("status", filter.status());
+		}
+		// Loans whose [startDate, endDate) overlaps [from, to)
+		if (filter.from() != null) {
+			jpql.append("AND r.endDate > :from ");
+			parameters.put("from", filter.from());
+		}
+		if (filter.to() != null) {
+			jpql.append("AND r.startDate < :to ");
+			parameters.put("to", filter.to());
+		}
+		if (filter.category() != null) {
+			jpql.append("AND e.category = :category ");
+			parameters.put("category", filter.category());
+		}
+		jpql.append("ORDER BY r.requestId");
+
+		TypedQuery<BorrowRequestResponseDto> query = entityManager.createQuery(jpql.toString(),
+				BorrowRequestResponseDto.class);
+		parameters.forEach(query::setParameter);
+		return query.setMaxResults(limit).getResultList();
+	}
+}
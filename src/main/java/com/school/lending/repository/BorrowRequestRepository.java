@@ -1,21 +1,103 @@
 package com.school.lending.repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.school.lending.dto.ActiveLoan;
+import com.school.lending.dto.BookingSlot;
+import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.dto.DateSpan;
+import com.school.lending.dto.RequestChange;
+import com.school.lending.dto.UtilizationSource;
 import com.school.lending.model.BorrowRequest;
 import com.school.lending.model.RequestStatus;
-import com.school.lending.model.User;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface BorrowRequestRepository extends JpaRepository<BorrowRequest, Long> {
+public interface BorrowRequestRepository extends JpaRepository<BorrowRequest, Long>, BorrowRequestPageQueries {
 
-	List<BorrowRequest> findAllByUser(User user);
+    // Response projections: one statement with joins, no entity hydration and no lazy
+    // loading per row (avoids N+1 when the DTO reads equipment/user fields)
+    String RESPONSE_PROJECTION = "SELECT new com.school.lending.dto.BorrowRequestResponseDto(r.requestId, "
+            + "e.equipmentId, u.userId, e.name, r.requestedQuantity, r.startDate, r.endDate, r.status) "
+            + "FROM BorrowRequest r JOIN r.equipment e JOIN r.user u ";
 
-    List<BorrowRequest> findAllByStatus(RequestStatus filterStatus);
+    @Query(RESPONSE_PROJECTION + "WHERE r.status = :status ORDER BY r.requestId")
+    List<BorrowRequestResponseDto> findResponsesByStatus(@Param("status") RequestStatus status);
 
     long countByStatus(RequestStatus pending);
 
+    // Projection used to seed the booking index (no entity hydration, no joins)
+    @Query("SELECT new com.school.lending.dto.BookingSlot(r.equipment.equipmentId, r.startDate, r.endDate, r.requestedQuantity) "
+            + "FROM BorrowRequest r WHERE r.status IN :statuses")
+    List<BookingSlot> findBookingSlotsByStatusIn(@Param("statuses") Collection<RequestStatus> statuses);
+
+    // Loans out, for the overdue tracker (served by the partial index idx_borrow_requests_approved_due)
+    @Query("SELECT new com.school.lending.dto.ActiveLoan(r.requestId, r.user.userId, r.equipment.equipmentId, "
+            + "r.requestedQuantity, r.startDate, r.endDate) FROM BorrowRequest r "
+            + "WHERE r.status = com.school.lending.model.RequestStatus.APPROVED")
+    List<ActiveLoan> findActiveLoans();
+
+    // Full export as a cursor: rows are fetched from the driver in chunks and never
+    // collected in memory. Must be consumed inside a (read-only) transaction.
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(RESPONSE_PROJECTION + "ORDER BY r.requestId")
+    Stream<BorrowRequestResponseDto> streamAllResponses();
+
+    // Compare-and-set on the status column: only one concurrent caller can move a
+    // request out of a given status. Returns 0 if the request was already changed.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BorrowRequest r SET r.status = :newStatus, r.updatedAt = :now "
+            + "WHERE r.requestId = :id AND r.status = :expected")
+    int transitionStatus(@Param("id") Long id, @Param("expected") RequestStatus expected,
+            @Param("newStatus") RequestStatus newStatus, @Param("now") Instant now);
+
+    // --- Batch status changes ---
+
+    // Locks the requests in id order, like every batch does, so two batches can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM BorrowRequest r WHERE r.requestId IN :ids ORDER BY r.requestId")
+    List<BorrowRequest> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Unconditional: the caller holds the row locks (see lockAllById) and has checked the transition
+    @Modifying
+    @Query("UPDATE BorrowRequest r SET r.status = :newStatus, r.updatedAt = :now WHERE r.requestId IN :ids")
+    int setStatus(@Param("ids") Collection<Long> ids, @Param("newStatus") RequestStatus newStatus,
+            @Param("now") Instant now);
+
+    // --- Utilization rollup ---
+
+    // Requests inserted or moved to another status after the given instant
+    @Query("SELECT new com.school.lending.dto.RequestChange(r.requestDate, r.startDate, r.endDate, r.updatedAt) "
+            + "FROM BorrowRequest r WHERE r.updatedAt > :since")
+    List<RequestChange> findChangedSince(@Param("since") Instant since);
+
+    // First and last day any request touches (both null when there are no requests)
+    @Query("SELECT new com.school.lending.dto.DateSpan(least(MIN(r.requestDate), MIN(r.startDate)), MAX(r.endDate)) "
+            + "FROM BorrowRequest r")
+    DateSpan findActivitySpan();
+
+    // Requests made within [from, to] or whose loan overlaps it: everything a rollup of
+    // those days needs
+    @Query("SELECT new com.school.lending.dto.UtilizationSource(e.equipmentId, e.category, r.requestDate, "
+            + "r.startDate, r.endDate, r.requestedQuantity, r.status) "
+            + "FROM BorrowRequest r JOIN r.equipment e "
+            + "WHERE (r.requestDate >= :from AND r.requestDate <= :to) OR (r.endDate > :from AND r.startDate <= :to)")
+    List<UtilizationSource> findUtilizationSources(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
 }
@@ -0,0 +1,35 @@
+package com.school.lending.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.school.lending.dto.UtilizationPointDto;
+import com.school.lending.model.DailyCategoryUtilization;
+
+@Repository
+public interface DailyCategoryUtilizationRepository
+		extends JpaRepository<DailyCategoryUtilization, DailyCategoryUtilization.Key> {
+
+	@Query("SELECT new com.school.lending.dto.UtilizationPointDto(d.usageDate, SUM(d.unitsOut), "
+			+ "SUM(d.requestsCreated), SUM(d.requestsApproved), SUM(d.requestsRejected)) "
+			+ "FROM DailyCategoryUtilization d WHERE d.category = :category "
+			+ "AND d.usageDate >= :from AND d.usageDate <= :to GROUP BY d.usageDate ORDER BY d.usageDate")
+	List<UtilizationPointDto> findCategorySeries(@Param("category") String category, @Param("from") LocalDate from,
+			@Param("to") LocalDate to);
+
+	@Query("SELECT new com.school.lending.dto.UtilizationPointDto(d.usageDate, SUM(d.unitsOut), "
+			+ "SUM(d.requestsCreated), SUM(d.requestsApproved), SUM(d.requestsRejected)) "
+			+ "FROM DailyCategoryUtilization d WHERE d.usageDate >= :from AND d.usageDate <= :to "
+			+ "GROUP BY d.usageDate ORDER BY d.usageDate")
+	List<UtilizationPointDto> findTotalSeries(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	@Modifying
+	@Query("DELETE FROM DailyCategoryUtilization d WHERE d.usageDate >= :from AND d.usageDate <= :to")
+	int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
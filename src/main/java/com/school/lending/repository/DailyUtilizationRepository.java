@@ -0,0 +1,29 @@
+package com.school.lending.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.school.lending.dto.UtilizationPointDto;
+import com.school.lending.model.DailyUtilization;
+
+@Repository
+public interface DailyUtilizationRepository extends JpaRepository<DailyUtilization, DailyUtilization.Key> {
+
+	// One point per day with activity in [from, to], read through idx_utilization_equipment
+	@Query("SELECT new com.school.lending.dto.UtilizationPointDto(d.usageDate, SUM(d.unitsOut), "
+			+ "SUM(d.requestsCreated), SUM(d.requestsApproved), SUM(d.requestsRejected)) "
+			+ "FROM DailyUtilization d WHERE d.equipmentId = :equipmentId "
+			+ "AND d.usageDate >= :from AND d.usageDate <= :to GROUP BY d.usageDate ORDER BY d.usageDate")
+	List<UtilizationPointDto> findEquipmentSeries(@Param("equipmentId") Long equipmentId,
+			@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	@Modifying
+	@Query("DELETE FROM DailyUtilization d WHERE d.usageDate >= :from AND d.usageDate <= :to")
+	int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
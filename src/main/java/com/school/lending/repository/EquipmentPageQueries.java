@@ -0,0 +1,28 @@
+package com.school.lending.repository;
+
+import java.util.List;
+
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Filtered catalog listings, built per call from the filters actually set
+ * (see EquipmentPageQueriesImpl). Part of EquipmentRepository.
+ */
+public interface EquipmentPageQueries {
+
+	/**
+	 * Keyset page: up to {@code limit} items after {@code afterId}, in id
+	 * order. {@code null} filters (and {@code inStockOnly == false}) match
+	 * everything.
+	 */
+	List<Equipment> findPage(long afterId, String category, EquipmentCondition condition, boolean inStockOnly,
+			int limit);
+
+	/**
+	 * Keyset page of in-stock items only, as projections, optionally limited
+	 * to one category.
+	 */
+	List<AvailableEquipmentDto> findAvailablePage(long afterId, String category, int limit);
+}
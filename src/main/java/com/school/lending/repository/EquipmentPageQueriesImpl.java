@@ -0,0 +1,70 @@
+package com.school.lending.repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Same approach as BorrowRequestPageQueriesImpl: only the conditions for the
+ * filters that are set are written, so each combination is its own statement
+ * with its own plan. A category walks idx_equipment_category, an in-stock
+ * filter idx_equipment_in_stock, and no filter the primary key.
+ */
+class EquipmentPageQueriesImpl implements EquipmentPageQueries {
+
+	private static final String AVAILABLE_PROJECTION = "SELECT new com.school.lending.dto.AvailableEquipmentDto("
+			+ "e.equipmentId, e.name, e.category, e.condition, e.availableQuantity) FROM Equipment e ";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Equipment> findPage(long afterId, String category, EquipmentCondition condition, boolean inStockOnly,
+			int limit) {
+		StringBuilder jpql = new StringBuilder("SELECT e FROM Equipment e WHERE e.equipmentId > :afterId ");
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		parameters.put("afterId", afterId);
+		if (category != null) {
+			jpql.append("AND e.category = :category ");
+			parameters.put("category", category);
+		}
+		if (condition != null) {
+			jpql.append("AND e.condition = :condition ");
+			parameters.put("condition", condition);
+		}
+		if (inStockOnly) {
+			jpql.append("AND e.availableQuantity > 0 ");
+		}
+		jpql.append("ORDER BY e.equipmentId");
+		return list(jpql, parameters, Equipment.class, limit);
+	}
+
+	@Override
+	public List<AvailableEquipmentDto> findAvailablePage(long afterId, String category, int limit) {
+		// availableQuantity is kept equal to totalQuantity - borrowedCount by every writer, so it can be indexed
+		StringBuilder jpql = new StringBuilder(AVAILABLE_PROJECTION)
+				.append("WHERE e.availableQuantity > 0 AND e.equipmentId > :afterId ");
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		parameters.put("afterId", afterId);
+		if (category != null) {
+			jpql.append("AND e.category = :category ");
+			parameters.put("category", category);
+		}
+		jpql.append("ORDER BY e.equipmentId");
+		return list(jpql, parameters, AvailableEquipmentDto.class, limit);
+	}
+
+	private <T> List<T> list(CharSequence jpql, Map<String, Object> parameters, Class<T> type, int limit) {
+		TypedQuery<T> query = entityManager.createQuery(jpql.toString(), type);
+		parameters.forEach(query::setParameter);
+		return query.setMaxResults(limit).getResultList();
+	}
+}
@@ -1,30 +1,83 @@
 package com.school.lending.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.school.lending.event.EquipmentSnapshot;
 import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+
+import jakarta.persistence.LockModeType;
 
 @Repository
-public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
+public interface EquipmentRepository extends JpaRepository<Equipment, Long>, EquipmentPageQueries {
 
 	Optional<Equipment> findByName(String name);
 
+	@Query("SELECT e.name FROM Equipment e WHERE e.name IN :names")
+	List<String> findNamesIn(@Param("names") Collection<String> names);
+
 	// Find all equipment that matches the given category name
 	List<Equipment> findByCategory(String category);
 
     // JpaRepository provides count() for total equipment count
 
+    // Keyset catalog pages (findPage, findAvailablePage) come from EquipmentPageQueries
+
+    // Every item's counters, without the entity overhead (read once at startup by CatalogFacets)
+    @Query("SELECT new com.school.lending.event.EquipmentSnapshot(e.equipmentId, e.name, e.category, "
+            + "e.condition, e.totalQuantity, e.availableQuantity) FROM Equipment e")
+    List<EquipmentSnapshot> findAllSnapshots();
+
     @Query("SELECT SUM(e.availableQuantity) FROM Equipment e")
     Optional<Long> sumAvailableQuantity();
 
-	// Optional: For keyword search across Name or Condition (Requires @Query if
-	// complex)
-	// List<Equipment>
-	// findByNameContainingIgnoreCaseOrConditionContainingIgnoreCase(String name,
-	// String condition);
+    @Query("SELECT SUM(e.totalQuantity) FROM Equipment e")
+    Optional<Long> sumTotalQuantity();
+
+    // Fresh reads of the counters (bypass the persistence context), used for error messages
+    @Query("SELECT e.availableQuantity FROM Equipment e WHERE e.equipmentId = :id")
+    Optional<Integer> findAvailableQuantityById(@Param("id") Long id);
+
+    @Query("SELECT e.borrowedCount FROM Equipment e WHERE e.equipmentId = :id")
+    Optional<Integer> findBorrowedCountById(@Param("id") Long id);
+
+    // Atomic stock movements: the guard and the change run as one statement, so
+    // concurrent approvals can never oversell. Both return the number of rows updated
+    // (0 means the guard failed).
+    @Modifying
+    @Query("UPDATE Equipment e SET e.availableQuantity = e.availableQuantity - :quantity, "
+            + "e.borrowedCount = e.borrowedCount + :quantity "
+            + "WHERE e.equipmentId = :id AND e.availableQuantity >= :quantity")
+    int debitStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Equipment e SET e.availableQuantity = e.availableQuantity + :quantity, "
+            + "e.borrowedCount = e.borrowedCount - :quantity "
+            + "WHERE e.equipmentId = :id AND e.borrowedCount >= :quantity")
+    int creditStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Row locks taken in id order, so batches touching the same items queue up instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Equipment e WHERE e.equipmentId IN :ids ORDER BY e.equipmentId")
+    List<Equipment> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Recomputes availability from the live borrowed count instead of a value read earlier
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Equipment e SET e.name = :name, e.category = :category, e.condition = :condition, "
+            + "e.totalQuantity = :totalQuantity, e.availableQuantity = :totalQuantity - e.borrowedCount "
+            + "WHERE e.equipmentId = :id AND e.borrowedCount <= :totalQuantity")
+    int updateDetails(@Param("id") Long id, @Param("name") String name, @Param("category") String category,
+            @Param("condition") EquipmentCondition condition, @Param("totalQuantity") int totalQuantity);
+
+	// Keyword search (name, category, condition) is answered from memory by
+	// CatalogSearchIndex rather than a LIKE '%...%' scan here
 }
@@ -1,8 +1,12 @@
 package com.school.lending.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.school.lending.model.User;
@@ -11,4 +15,8 @@ import com.school.lending.model.User;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
+
+    // Case-insensitive: takes and returns lower-case addresses
+    @Query("SELECT LOWER(u.email) FROM User u WHERE LOWER(u.email) IN :emails")
+    List<String> findLowerCaseEmailsIn(@Param("emails") Collection<String> emails);
 }
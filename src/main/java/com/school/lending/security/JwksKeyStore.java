@@ -0,0 +1,266 @@
+package com.school.lending.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.Key;
+import java.security.PublicKey;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.proc.SecurityContext;
+
+/**
+ * The realm's token signing keys, for validating access tokens without
+ * calling Keycloak on the request path.
+ *
+ * Keys are read from a local JWKS file at startup and replaced whenever a
+ * refresh from Keycloak brings a different set (the file is rewritten, so the
+ * next start has them too). Refreshes run on a schedule, and on demand when a
+ * token names a key id we don't have, as after a key rotation; on-demand
+ * refreshes are rate-limited and a single one runs at a time.
+ *
+ * Each JWK is converted to a public key once, and one verifier is kept per
+ * key, so a signature check does no key parsing.
+ */
+public class JwksKeyStore implements JWSKeySelector<SecurityContext>, JWSVerifierFactory {
+
+	private static final Logger log = LoggerFactory.getLogger(JwksKeyStore.class);
+
+	private record SigningKey(JWSAlgorithm algorithm, PublicKey key) {
+	}
+
+	// One immutable generation of keys; replaced as a whole on rotation
+	private record Keys(String json, List<SigningKey> all, Map<String, SigningKey> byKid) {
+		static final Keys NONE = new Keys(null, List.of(), Map.of());
+	}
+
+	private final Path file;
+	private final Supplier<String> fetcher;
+	private final Duration minRefreshInterval;
+	private final Clock clock;
+	private final ReentrantLock refreshLock = new ReentrantLock();
+	private final JWSVerifierFactory verifierFactory = new DefaultJWSVerifierFactory();
+	private final Map<Key, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+
+	private volatile Keys keys = Keys.NONE;
+	private volatile Instant lastFetch = Instant.MIN;
+
+	/**
+	 * @param file               local JWKS copy; may be null or not exist yet
+	 * @param fetcher            reads the realm's JWKS document from Keycloak
+	 * @param minRefreshInterval least time between two on-demand refreshes
+	 */
+	public JwksKeyStore(Path file, Supplier<String> fetcher, Duration minRefreshInterval, Clock clock) {
+		this.file = file;
+		this.fetcher = fetcher;
+		this.minRefreshInterval = minRefreshInterval;
+		this.clock = clock;
+		loadFile();
+	}
+
+	/** Whether any signing key is loaded. */
+	public boolean hasKeys() {
+		return !keys.all().isEmpty();
+	}
+
+	/**
+	 * Fetches the key set from Keycloak and installs it if it changed. Failures
+	 * are logged and the current keys stay in use.
+	 */
+	public void refresh() {
+		refreshLock.lock();
+		try {
+			fetch();
+		} finally {
+			refreshLock.unlock();
+		}
+	}
+
+	@Override
+	public List<? extends Key> selectJWSKeys(JWSHeader header, SecurityContext context) {
+		String kid = header.getKeyID();
+		List<Key> selected = select(keys, header.getAlgorithm(), kid);
+		if (selected.isEmpty() && kid != null) {
+			// Possibly a rotated key: look again after a (rate-limited) refresh
+			refreshForUnknownKey();
+			selected = select(keys, header.getAlgorithm(), kid);
+		}
+		return selected;
+	}
+
+	@Override
+	public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+		JWSVerifier verifier = verifiers.get(key);
+		if (verifier == null) {
+			verifier = verifierFactory.createJWSVerifier(header, key);
+			verifiers.putIfAbsent(key, verifier);
+		}
+		return verifier;
+	}
+
+	@Override
+	public JCAContext getJCAContext() {
+		return verifierFactory.getJCAContext();
+	}
+
+	@Override
+	public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+		return verifierFactory.supportedJWSAlgorithms();
+	}
+
+	private static List<Key> select(Keys current, JWSAlgorithm algorithm, String kid) {
+		if (kid != null) {
+			SigningKey key = current.byKid().get(kid);
+			return key != null && matches(key, algorithm) ? List.of(key.key()) : List.of();
+		}
+		List<Key> candidates = new ArrayList<>();
+		for (SigningKey key : current.all()) {
+			if (matches(key, algorithm)) {
+				candidates.add(key.key());
+			}
+		}
+		return candidates;
+	}
+
+	private static boolean matches(SigningKey key, JWSAlgorithm algorithm) {
+		if (key.algorithm() != null) {
+			return key.algorithm().equals(algorithm);
+		}
+		String type = key.key().getAlgorithm();
+		return "RSA".equals(type) ? JWSAlgorithm.Family.RSA.contains(algorithm)
+				: "EC".equals(type) && JWSAlgorithm.Family.EC.contains(algorithm);
+	}
+
+	private void refreshForUnknownKey() {
+		if (clock.instant().isBefore(lastFetch.plus(minRefreshInterval))) {
+			return;
+		}
+		refreshLock.lock();
+		try {
+			// Another caller may have refreshed while we waited
+			if (!clock.instant().isBefore(lastFetch.plus(minRefreshInterval))) {
+				fetch();
+			}
+		} finally {
+			refreshLock.unlock();
+		}
+	}
+
+	// Caller holds refreshLock
+	private void fetch() {
+		lastFetch = clock.instant();
+		String json;
+		try {
+			json = fetcher.get();
+		} catch (RuntimeException e) {
+			log.warn("Could not fetch the JWKS from Keycloak, keeping {} known key(s): {}", keys.all().size(),
+					e.getMessage());
+			return;
+		}
+		if (json == null || json.equals(keys.json())) {
+			return;
+		}
+		try {
+			install(json);
+		} catch (ParseException e) {
+			log.warn("Keycloak returned an unreadable JWKS, keeping the current keys: {}", e.getMessage());
+			return;
+		}
+		log.info("Loaded {} token signing key(s) {} from Keycloak", keys.all().size(), keys.byKid().keySet());
+		saveFile(json);
+	}
+
+	private void loadFile() {
+		if (file == null || !Files.isRegularFile(file)) {
+			return;
+		}
+		try {
+			install(Files.readString(file, StandardCharsets.UTF_8));
+			log.info("Loaded {} token signing key(s) {} from {}", keys.all().size(), keys.byKid().keySet(), file);
+		} catch (IOException | ParseException e) {
+			log.warn("Ignoring unreadable JWKS file {}: {}", file, e.getMessage());
+		}
+	}
+
+	private void saveFile(String json) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Path dir = file.toAbsolutePath().getParent();
+			Files.createDirectories(dir);
+			Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+			Files.writeString(temp, json, StandardCharsets.UTF_8);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.warn("Could not save the JWKS to {}: {}", file, e.getMessage());
+		}
+	}
+
+	private void install(String json) throws ParseException {
+		List<SigningKey> all = new ArrayList<>();
+		Map<String, SigningKey> byKid = new HashMap<>();
+		for (JWK jwk : JWKSet.parse(json).getKeys()) {
+			if (jwk.getKeyUse() != null && !KeyUse.SIGNATURE.equals(jwk.getKeyUse())) {
+				continue; // Keycloak also publishes encryption keys
+			}
+			PublicKey key = publicKey(jwk);
+			if (key == null) {
+				continue;
+			}
+			JWSAlgorithm algorithm = jwk.getAlgorithm() == null ? null
+					: JWSAlgorithm.parse(jwk.getAlgorithm().getName());
+			SigningKey signingKey = new SigningKey(algorithm, key);
+			all.add(signingKey);
+			if (jwk.getKeyID() != null) {
+				byKid.put(jwk.getKeyID(), signingKey);
+			}
+		}
+		keys = new Keys(json, List.copyOf(all), Map.copyOf(byKid));
+		// Verifiers of keys that are gone are no longer needed
+		verifiers.keySet().retainAll(all.stream().map(SigningKey::key).toList());
+	}
+
+	private static PublicKey publicKey(JWK jwk) {
+		try {
+			if (jwk instanceof RSAKey rsa) {
+				return rsa.toRSAPublicKey();
+			}
+			if (jwk instanceof ECKey ec) {
+				return ec.toECPublicKey();
+			}
+		} catch (JOSEException e) {
+			log.warn("Skipping unusable JWK {}: {}", jwk.getKeyID(), e.getMessage());
+		}
+		return null;
+	}
+}
@@ -0,0 +1,68 @@
+package com.school.lending.security;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.school.lending.metrics.KeycloakRequestMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One shared, pooled HTTP client for every call to Keycloak. Connections are
+ * kept alive and reused across requests, so a login storm doesn't pay a TCP
+ * handshake per login, and every phase of a call has a timeout.
+ */
+@Configuration
+public class KeycloakClientConfig {
+
+	@Bean(destroyMethod = "close")
+	public PoolingHttpClientConnectionManager keycloakConnectionManager(
+			@Value("${lending.keycloak.http.max-connections:50}") int maxConnections,
+			@Value("${lending.keycloak.http.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${lending.keycloak.http.socket-timeout:5s}") Duration socketTimeout,
+			@Value("${lending.keycloak.http.connection-ttl:5m}") Duration connectionTtl) {
+		// Everything goes to a single Keycloak host, so the per-route limit is the pool size
+		return PoolingHttpClientConnectionManagerBuilder.create().setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnections)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.of(connectTimeout))
+						.setSocketTimeout(Timeout.of(socketTimeout))
+						.setTimeToLive(TimeValue.of(connectionTtl))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(10)).build())
+				.build();
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient keycloakHttpClient(PoolingHttpClientConnectionManager keycloakConnectionManager,
+			@Value("${lending.keycloak.http.pool-wait-timeout:2s}") Duration poolWaitTimeout,
+			@Value("${lending.keycloak.http.socket-timeout:5s}") Duration responseTimeout) {
+		return HttpClients.custom().setConnectionManager(keycloakConnectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.of(poolWaitTimeout))
+						.setResponseTimeout(Timeout.of(responseTimeout)).build())
+				.evictIdleConnections(TimeValue.ofSeconds(30)).evictExpiredConnections().build();
+	}
+
+	@Bean
+	public RestTemplate keycloakRestTemplate(CloseableHttpClient keycloakHttpClient,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(keycloakHttpClient));
+		// Timed per operation and status class (lending.keycloak.requests)
+		meterRegistry.ifAvailable(registry -> restTemplate.getInterceptors().add(new KeycloakRequestMetrics(registry)));
+		return restTemplate;
+	}
+}
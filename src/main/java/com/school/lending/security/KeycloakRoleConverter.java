@@ -1,29 +1,111 @@
 package com.school.lending.security;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 
-public class KeycloakRoleConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Maps Keycloak realm roles ({@code realm_access.roles}) to ROLE_ authorities.
+ *
+ * The front-end sends the same token with every call of a page load, so the
+ * converted authorities are cached per token (its {@code jti}, or the token
+ * itself when there is none) until the token expires, with a size bound.
+ * Authorities are interned per role, so tokens with the same roles share the
+ * same instances.
+ */
+public class KeycloakRoleConverter implements Converter<Jwt, Collection<GrantedAuthority>>, MeterBinder {
+
+	private record Converted(Set<GrantedAuthority> authorities, Instant expiresAt) {
+	}
+
+	// Realm role name -> authority; bounded by the roles defined in the realm
+	private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+	private final Cache<String, Converted> cache;
+
+	public KeycloakRoleConverter() {
+		this(10_000, Duration.ofMinutes(30));
+	}
+
+	/**
+	 * @param maxTokens tokens whose authorities are kept at once
+	 * @param maxTtl    longest an entry is kept, for tokens without or with a far-off expiry
+	 */
+	public KeycloakRoleConverter(long maxTokens, Duration maxTtl) {
+		long maxTtlNanos = maxTtl.toNanos();
+		this.cache = Caffeine.newBuilder().maximumSize(maxTokens).expireAfter(new Expiry<String, Converted>() {
+			@Override
+			public long expireAfterCreate(String key, Converted value, long currentTime) {
+				if (value.expiresAt() == null) {
+					return maxTtlNanos;
+				}
+				long untilExpiry = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+				return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+			}
+
+			@Override
+			public long expireAfterUpdate(String key, Converted value, long currentTime, long currentDuration) {
+				return currentDuration;
+			}
+
+			@Override
+			public long expireAfterRead(String key, Converted value, long currentTime, long currentDuration) {
+				return currentDuration;
+			}
+		}).recordStats().build();
+	}
 
 	@Override
 	public Collection<GrantedAuthority> convert(Jwt jwt) {
+		String jti = jwt.getClaimAsString(JwtClaimNames.JTI);
+		return cache.get(jti != null ? jti : jwt.getTokenValue(),
+				key -> new Converted(authorities(jwt), jwt.getExpiresAt())).authorities();
+	}
+
+	// Hit/miss counters and size, as cache.* meters tagged cache=jwt_authorities
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "jwt_authorities");
+	}
+
+	private static Set<GrantedAuthority> authorities(Jwt jwt) {
 		Map<String, Object> realmAccess = jwt.getClaim("realm_access");
 
 		if (realmAccess == null || realmAccess.isEmpty()) {
-			return Collections.emptyList();
+			return Collections.emptySet();
 		}
 
 		@SuppressWarnings("unchecked")
 		Collection<String> roles = (Collection<String>) realmAccess.get("roles");
+		if (roles == null) {
+			return Collections.emptySet();
+		}
 
-		return roles.stream().map(role -> "ROLE_" + role.toUpperCase()) // Prefix to match hasRole()
-				.map(SimpleGrantedAuthority::new).collect(Collectors.toSet());
+		Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+		for (String role : roles) {
+			// Prefix to match hasRole()
+			authorities.add(AUTHORITIES.computeIfAbsent(role,
+					name -> new SimpleGrantedAuthority("ROLE_" + name.toUpperCase())));
+		}
+		return Collections.unmodifiableSet(authorities);
 	}
 }
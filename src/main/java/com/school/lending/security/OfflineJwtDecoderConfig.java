@@ -0,0 +1,74 @@
+package com.school.lending.security;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.web.client.RestTemplate;
+
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+/**
+ * Access token validation without OIDC discovery ("offline" mode, the
+ * default).
+ *
+ * Tokens are checked against the keys in a JwksKeyStore: loaded from a local
+ * JWKS file at startup and refreshed from Keycloak in the background, so
+ * neither startup nor the first requests wait for Keycloak. The issuer is the
+ * configured issuer-uri, compared as a string. With
+ * lending.security.jwt.mode=discovery Spring Boot's own issuer-uri decoder is
+ * used instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lending.security.jwt.mode", havingValue = "offline", matchIfMissing = true)
+public class OfflineJwtDecoderConfig {
+
+	private final JwksKeyStore keyStore;
+
+	public OfflineJwtDecoderConfig(RestTemplate keycloakRestTemplate,
+			@Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
+			@Value("${lending.security.jwt.keys-file:./data/jwks/realm.json}") Path keysFile,
+			@Value("${lending.security.jwt.min-refresh-interval:30s}") Duration minRefreshInterval) {
+		String jwksUrl = issuer + "/protocol/openid-connect/certs";
+		this.keyStore = new JwksKeyStore(keysFile, () -> keycloakRestTemplate.getForObject(jwksUrl, String.class),
+				minRefreshInterval, Clock.systemUTC());
+	}
+
+	@Bean
+	public JwksKeyStore jwksKeyStore() {
+		return keyStore;
+	}
+
+	@Bean
+	public JwtDecoder jwtDecoder(@Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer) {
+		return decoder(keyStore, issuer);
+	}
+
+	// Starts right away (in the background) so a missing or stale key file is caught up early
+	@Scheduled(initialDelay = 0, fixedDelayString = "${lending.security.jwt.refresh-interval-ms:600000}")
+	public void refreshKeys() {
+		keyStore.refresh();
+	}
+
+	/** A decoder validating signatures with {@code keyStore} and the issuer against {@code issuer}. */
+	public static NimbusJwtDecoder decoder(JwksKeyStore keyStore, String issuer) {
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(keyStore);
+		processor.setJWSVerifierFactory(keyStore);
+		// Expiry, not-before and issuer are checked by Spring's validators below
+		processor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+		decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+		return decoder;
+	}
+}
@@ -1,5 +1,9 @@
 package com.school.lending.security;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -10,15 +14,22 @@ import org.springframework.security.web.header.writers.frameoptions.XFrameOption
 
 import org.springframework.http.HttpMethod;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class SecurityConfig {
 
 	@Bean
-	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+	public SecurityFilterChain securityFilterChain(HttpSecurity http,
+			@Value("${lending.security.authority-cache.max-tokens:10000}") long authorityCacheTokens,
+			@Value("${lending.security.authority-cache.max-ttl:30m}") Duration authorityCacheTtl,
+			ObjectProvider<MeterRegistry> meterRegistry) throws Exception {
 
-		// Custom JWT role converter
+		// Custom JWT role converter, caching the authorities of each token until it expires
+		KeycloakRoleConverter roleConverter = new KeycloakRoleConverter(authorityCacheTokens, authorityCacheTtl);
+		meterRegistry.ifAvailable(roleConverter::bindTo);
 		JwtAuthenticationConverter jwtAuthConverter = new JwtAuthenticationConverter();
-		jwtAuthConverter.setJwtGrantedAuthoritiesConverter(new KeycloakRoleConverter());
+		jwtAuthConverter.setJwtGrantedAuthoritiesConverter(roleConverter);
 
 		http
 				// 🔹 Disable CSRF for simplicity during development
@@ -35,6 +46,11 @@ public class SecurityConfig {
 								"/swagger-ui/**", "/swagger-ui.html").permitAll()
 						.requestMatchers("/api/auth/**").permitAll()
 						.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+						// Health probes are open; Prometheus scrapes with a token carrying the metrics
+						// realm role, and the other actuator endpoints are for admins
+						.requestMatchers("/actuator/health/**").permitAll()
+						.requestMatchers("/actuator/prometheus").hasAnyRole("METRICS", "ADMIN")
+						.requestMatchers("/actuator/**").hasRole("ADMIN")
 						// Role-based API restrictions
 						.requestMatchers("/api/admin/**","/api/analytics/**").hasRole("ADMIN")
 						.requestMatchers("/api/staff/**").hasAnyRole("STAFF", "ADMIN")
@@ -0,0 +1,87 @@
+package com.school.lending.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Caches the Keycloak admin (client-credentials) access token until shortly
+ * before it expires.
+ *
+ * The token is refreshed ahead of time: once inside the refresh window the
+ * first caller fetches a new one while concurrent callers keep using the
+ * still-valid old token. Only when no valid token is left do callers wait, and
+ * even then a single fetch is in flight at a time.
+ */
+final class AdminTokenHolder {
+
+	private record Token(String value, Instant refreshAt, Instant expiresAt) {
+	}
+
+	// Refresh this long before expiry, capped at a fifth of the token lifetime
+	private static final Duration REFRESH_AHEAD = Duration.ofSeconds(30);
+
+	private final Supplier<Map<String, Object>> fetcher;
+	private final Clock clock;
+	private final ReentrantLock refreshLock = new ReentrantLock();
+	private volatile Token current;
+
+	AdminTokenHolder(Supplier<Map<String, Object>> fetcher, Clock clock) {
+		this.fetcher = fetcher;
+		this.clock = clock;
+	}
+
+	String get() {
+		Token token = current;
+		Instant now = clock.instant();
+		if (token != null && now.isBefore(token.refreshAt())) {
+			return token.value();
+		}
+		boolean stillValid = token != null && now.isBefore(token.expiresAt());
+		if (stillValid) {
+			// Refresh ahead: only one caller does it, the others don't wait
+			if (!refreshLock.tryLock()) {
+				return token.value();
+			}
+		} else {
+			refreshLock.lock();
+		}
+		try {
+			Token latest = current;
+			if (latest != null && clock.instant().isBefore(latest.refreshAt())) {
+				return latest.value(); // another caller refreshed while we waited
+			}
+			current = fetch();
+			return current.value();
+		} finally {
+			refreshLock.unlock();
+		}
+	}
+
+	/**
+	 * Forgets the cached token, e.g. after Keycloak rejected it.
+	 */
+	void invalidate(String rejected) {
+		Token token = current;
+		if (token != null && token.value().equals(rejected)) {
+			current = null;
+		}
+	}
+
+	private Token fetch() {
+		Instant issuedAt = clock.instant();
+		Map<String, Object> body = fetcher.get();
+		if (body == null || !(body.get("access_token") instanceof String accessToken)) {
+			throw new RuntimeException("Keycloak response body is missing or 'access_token' not found.");
+		}
+		// Without expires_in, treat the token as single-use
+		long expiresIn = body.get("expires_in") instanceof Number seconds ? seconds.longValue() : 0;
+		Duration lifetime = Duration.ofSeconds(expiresIn);
+		Duration ahead = REFRESH_AHEAD.compareTo(lifetime.dividedBy(5)) < 0 ? REFRESH_AHEAD : lifetime.dividedBy(5);
+		Instant expiresAt = issuedAt.plus(lifetime);
+		return new Token(accessToken, expiresAt.minus(ahead), expiresAt);
+	}
+}
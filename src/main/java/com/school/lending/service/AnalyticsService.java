@@ -1,47 +1,169 @@
 package com.school.lending.service;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
 import com.school.lending.dto.AnalyticsSummaryDto;
+import com.school.lending.event.BorrowRequestStatusChangedEvent;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.StockMovedEvent;
 import com.school.lending.model.RequestStatus;
 import com.school.lending.repository.BorrowRequestRepository;
 import com.school.lending.repository.EquipmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 @Service
 public class AnalyticsService {
 
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
     private final EquipmentRepository equipmentRepository;
     private final BorrowRequestRepository borrowRequestRepository;
+    private final InventoryLedger inventoryLedger;
+
+    /**
+     * A dashboard counter fed by events. Events only ever add to a running
+     * total of deltas; a reconcile moves the base so that base plus deltas
+     * matches the database, and never overwrites an event's contribution.
+     */
+    private static final class Counter {
+        private final String name;
+        private final AtomicLong deltas = new AtomicLong();
+        // Written only by reconcile
+        private volatile long base;
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        long get() {
+            return base + deltas.get();
+        }
+
+        void add(long delta) {
+            deltas.addAndGet(delta);
+        }
+
+        // The deltas are read just before the query: events applied before that
+        // point are in both and cancel out, and events applied while the query
+        // runs or afterwards stay on top of the new base. Only an event committed
+        // before the query snapshot but applied after the deltas were read is
+        // counted twice, until the next reconcile.
+        void reconcile(LongSupplier actual) {
+            long seen = deltas.get();
+            long value = actual.getAsLong();
+            long previous = base + seen;
+            base = value - seen;
+            if (previous != value) {
+                log.debug("Analytics counter {} reconciled from {} to {}", name, previous, value);
+            }
+        }
+    }
+
+    // Dashboard counters, kept up to date from domain events instead of being
+    // recomputed with COUNT/SUM queries on every call
+    private final Counter totalEquipment = new Counter("totalEquipment");
+    private final Counter pendingRequests = new Counter("pendingRequests");
+    private final Counter availableItems = new Counter("availableItems");
+    private final Counter totalUnits = new Counter("totalUnits");
 
     // Constructor Injection
-    public AnalyticsService(EquipmentRepository equipmentRepository, BorrowRequestRepository borrowRequestRepository) {
+    public AnalyticsService(EquipmentRepository equipmentRepository, BorrowRequestRepository borrowRequestRepository,
+            InventoryLedger inventoryLedger) {
         this.equipmentRepository = equipmentRepository;
         this.borrowRequestRepository = borrowRequestRepository;
+        this.inventoryLedger = inventoryLedger;
     }
 
     /**
-     * Aggregates key statistics for the dashboard summary.
+     * Key statistics for the dashboard summary. Reads three in-memory counters;
+     * no database access.
      */
-    @Transactional(readOnly = true)
     public AnalyticsSummaryDto getSummaryAnalytics() {
-        
-        // 1. Total Equipment (Total number of unique items/rows in the Equipment table)
-        // You'll need to define count() in your repository if it doesn't exist (it should via JpaRepository)
-        long totalEquipment = equipmentRepository.count();
-
-        // 2. Pending Requests Count
-        // You need to define this method in BorrowRequestRepository: countByStatus(RequestStatus status)
-        long pendingRequestsCount = borrowRequestRepository.countByStatus(RequestStatus.PENDING);
-
-        // 3. Available Items (Sum of availableQuantity across all equipment)
-        // You'll need a custom method in EquipmentRepository: sumAvailableQuantity()
-        // We use .orElse(0L) for safety if the sum returns null
-        Long availableItems = equipmentRepository.sumAvailableQuantity().orElse(0L); 
-        
         return new AnalyticsSummaryDto(
-            totalEquipment,
-            pendingRequestsCount,
-            availableItems
+            totalEquipment.get(),
+            pendingRequests.get(),
+            availableItems.get()
         );
     }
-}
\ No newline at end of file
+
+    /** Equipment items in the catalog. */
+    public long totalEquipment() {
+        return totalEquipment.get();
+    }
+
+    /** Requests waiting for a staff decision. */
+    public long pendingRequests() {
+        return pendingRequests.get();
+    }
+
+    /** Units currently lent out, over all equipment. */
+    public long unitsOut() {
+        return totalUnits.get() - availableItems.get();
+    }
+
+    /** Units on the shelf, over all equipment. */
+    public long availableUnits() {
+        return availableItems.get();
+    }
+
+    /**
+     * Recomputes the counters from the database (and the inventory ledger) at
+     * startup and periodically afterwards, so a missed or double-applied event
+     * can't make the dashboard drift for long. Events keep counting while it
+     * runs (see Counter#reconcile).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${lending.analytics.reconcile-interval-ms:300000}",
+            fixedDelayString = "${lending.analytics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        totalEquipment.reconcile(equipmentRepository::count);
+        pendingRequests.reconcile(() -> borrowRequestRepository.countByStatus(RequestStatus.PENDING));
+        availableItems.reconcile(inventoryLedger::totalAvailable);
+        totalUnits.reconcile(() -> equipmentRepository.sumTotalQuantity().orElse(0L));
+    }
+
+    // 💡 The listeners below run only after the publishing transaction commits, so
+    // rolled-back changes never reach the counters.
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEquipmentChanged(EquipmentChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> {
+                totalEquipment.add(1);
+                availableItems.add(event.after().availableQuantity());
+                totalUnits.add(event.after().totalQuantity());
+            }
+            case UPDATED -> {
+                availableItems.add(event.after().availableQuantity() - event.before().availableQuantity());
+                totalUnits.add(event.after().totalQuantity() - event.before().totalQuantity());
+            }
+            case DELETED -> {
+                totalEquipment.add(-1);
+                availableItems.add(-event.before().availableQuantity());
+                totalUnits.add(-event.before().totalQuantity());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockMoved(StockMovedEvent event) {
+        availableItems.add(event.availableDelta());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRequestStatusChanged(BorrowRequestStatusChangedEvent event) {
+        if (event.from() == RequestStatus.PENDING) {
+            pendingRequests.add(-1);
+        }
+        if (event.to() == RequestStatus.PENDING) {
+            pendingRequests.add(1);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.school.lending.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Per-equipment booking timeline.
+ *
+ * Stores how many units are booked on every day as a sparse segment tree over
+ * epoch days (range add / range max). Adding or removing a booking and asking
+ * for the peak number of units booked over [start, end) both run in O(log D),
+ * where D is the size of the day domain, no matter how many bookings exist.
+ *
+ * Instances are not thread-safe on their own; {@link ReservationIndex} guards
+ * each timeline.
+ */
+class BookingTimeline {
+
+	// 2^17 days from 1970-01-01 reaches well past the year 2300
+	static final int DOMAIN_DAYS = 1 << 17;
+
+	private static final int ROOT = 1;
+
+	// Node 0 is the "absent" sentinel: an empty subtree with nothing booked.
+	private int[] left = new int[64];
+	private int[] right = new int[64];
+	private int[] max = new int[64];
+	private int[] pending = new int[64];
+	private int size = 2;
+
+	/**
+	 * Adds {@code units} to every day in [start, end). Use a negative value to
+	 * release a booking.
+	 */
+	void add(LocalDate start, LocalDate end, int units) {
+		int from = toDay(start);
+		int to = toDay(end) - 1;
+		if (from > to || units == 0) {
+			return;
+		}
+		add(ROOT, 0, DOMAIN_DAYS - 1, from, to, units);
+	}
+
+	/**
+	 * Highest number of units booked on any single day in [start, end).
+	 */
+	int peak(LocalDate start, LocalDate end) {
+		int from = toDay(start);
+		int to = toDay(end) - 1;
+		if (from > to) {
+			return 0;
+		}
+		return peak(ROOT, 0, DOMAIN_DAYS - 1, from, to);
+	}
+
+	private void add(int node, int lo, int hi, int from, int to, int units) {
+		if (from <= lo && hi <= to) {
+			pending[node] += units;
+			max[node] += units;
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		if (from <= mid) {
+			if (left[node] == 0) {
+				int child = newNode(); // may reallocate the arrays, so assign afterwards
+				left[node] = child;
+			}
+			add(left[node], lo, mid, from, to, units);
+		}
+		if (to > mid) {
+			if (right[node] == 0) {
+				int child = newNode();
+				right[node] = child;
+			}
+			add(right[node], mid + 1, hi, from, to, units);
+		}
+		max[node] = pending[node] + Math.max(max[left[node]], max[right[node]]);
+	}
+
+	private int peak(int node, int lo, int hi, int from, int to) {
+		if (node == 0) {
+			return 0;
+		}
+		if (from <= lo && hi <= to) {
+			return max[node];
+		}
+		int mid = (lo + hi) >>> 1;
+		// Children hold counts relative to this node's pending units, and a release can make
+		// them negative, so the best of the queried side(s) starts below any count
+		int best = Integer.MIN_VALUE;
+		if (from <= mid) {
+			best = peak(left[node], lo, mid, from, to);
+		}
+		if (to > mid) {
+			best = Math.max(best, peak(right[node], mid + 1, hi, from, to));
+		}
+		return pending[node] + best;
+	}
+
+	private int newNode() {
+		if (size == left.length) {
+			int capacity = left.length << 1;
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			max = Arrays.copyOf(max, capacity);
+			pending = Arrays.copyOf(pending, capacity);
+		}
+		return size++;
+	}
+
+	private static int toDay(LocalDate date) {
+		long day = date.toEpochDay();
+		if (day < 0) {
+			return 0;
+		}
+		return (int) Math.min(day, DOMAIN_DAYS);
+	}
+}
@@ -1,14 +1,47 @@
 package com.school.lending.service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.school.lending.dto.BorrowRequestDto;
+import com.school.lending.dto.BorrowRequestFilter;
 import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.dto.RequestTransitionDto;
+import com.school.lending.dto.RequestTransitionResultDto;
+import com.school.lending.event.BorrowRequestRefusedEvent;
+import com.school.lending.event.BorrowRequestRefusedEvent.Reason;
+import com.school.lending.event.BorrowRequestStatusChangedEvent;
+import com.school.lending.exception.ConflictException;
 import com.school.lending.exception.InvalidInputException;
 import com.school.lending.exception.ResourceNotFoundException;
 import com.school.lending.model.BorrowRequest;
@@ -17,26 +50,44 @@ import com.school.lending.model.RequestStatus;
 import com.school.lending.model.User;
 import com.school.lending.repository.BorrowRequestRepository;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.BadRequestException;
 
 @Service
 public class BorrowRequestService {
 
+	public static final int MAX_BATCH_SIZE = 500;
+
 	private final BorrowRequestRepository borrowRequestRepository;
 	private final UserService userService;
 	private final EquipmentService equipmentService;
+	private final ReservationIndex reservationIndex;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ObjectWriter exportWriter;
 
 	public BorrowRequestService(BorrowRequestRepository borrowRequestRepository, UserService userService,
-			EquipmentService equipmentService) {
+			EquipmentService equipmentService, ReservationIndex reservationIndex,
+			ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper) {
 		this.borrowRequestRepository = borrowRequestRepository;
 		this.userService = userService;
 		this.equipmentService = equipmentService;
+		this.reservationIndex = reservationIndex;
+		this.eventPublisher = eventPublisher;
+		this.exportWriter = objectMapper.writerFor(BorrowRequestResponseDto.class);
 	}
 
-	public List<BorrowRequest> getAll() {
-		return borrowRequestRepository.findAll();
+	/**
+	 * Keyset-paginated request listing. Filtering and paging happen in the
+	 * database, so the cost of a page does not grow with the table.
+	 */
+	@Transactional(readOnly = true)
+	public CursorPage<BorrowRequestResponseDto> getRequestPage(BorrowRequestFilter filter, String cursor, int size) {
+		if (filter.userId() != null && userService.getUserById(filter.userId()).isEmpty()) {
+			throw new ResourceNotFoundException("User not found with id: " + filter.userId());
+		}
+		List<BorrowRequestResponseDto> rows = borrowRequestRepository.findPage(CursorPage.decode(cursor), filter,
+				CursorPage.checkSize(size) + 1);
+		return CursorPage.of(rows, size, BorrowRequestResponseDto::requestId);
 	}
 
 	public Optional<BorrowRequest> getRequestById(Long id) {
@@ -68,17 +119,27 @@ public class BorrowRequestService {
 		}
 
 		int requestedQuantity = newRequest.requestedQuantity();
-		int availableStock = equipment.getAvailableQuantity();
 
-		if (requestedQuantity > availableStock) {
+		// 💡 Check stock for the requested dates only: loans that end before startDate
+		// (or begin after endDate) no longer block the request.
+		if (!reservationIndex.reserve(equipment.getEquipmentId(), startDate, endDate, requestedQuantity,
+				equipment.getTotalQuantity())) {
+			refused(null, equipment.getEquipmentId(), null, RequestStatus.PENDING, Reason.INSUFFICIENT_STOCK);
+			int availableStock = Math.max(0, equipment.getTotalQuantity()
+					- reservationIndex.peakBooked(equipment.getEquipmentId(), startDate, endDate));
 			throw new BadRequestException("Requested quantity (" + requestedQuantity + ") exceeds available stock ("
-					+ availableStock + ") for equipment: " + equipment.getName());
+					+ availableStock + ") between " + startDate + " and " + endDate + " for equipment: "
+					+ equipment.getName());
 		}
 
 		BorrowRequest newlyCreatedRequest = BorrowRequest.builder().user(user).equipment(equipment)
 				.requestedQuantity(requestedQuantity).startDate(startDate).endDate(endDate).requestDate(now)
 				.status(RequestStatus.PENDING).build();
-		return borrowRequestRepository.save(newlyCreatedRequest);
+		BorrowRequest savedRequest = borrowRequestRepository.save(newlyCreatedRequest);
+		eventPublisher.publishEvent(new BorrowRequestStatusChangedEvent(savedRequest.getRequestId(),
+				equipment.getEquipmentId(), user.getUserId(), null, RequestStatus.PENDING, requestedQuantity,
+				now, startDate, endDate));
+		return savedRequest;
 	}
 
 	@Transactional
@@ -91,6 +152,9 @@ public class BorrowRequestService {
 
 		BorrowRequest existingRequest = borrowRequestRepository.findById(id)
 				.orElseThrow(() -> new ResourceNotFoundException("Request not found with ID: " + id));
+		if (!existingRequest.getEquipment().getEquipmentId().equals(equipment.getEquipmentId())) {
+			throw new InvalidInputException("Request " + id + " is not for equipment ID: " + equipment.getEquipmentId());
+		}
 
 		// BorrowRequest updatedRequest = BorrowRequest.builder().user(user).equipment(equipment)
 		// 		.requestedQuantity(request.requestedQuantity()).startDate(request.startDate())
@@ -101,70 +165,267 @@ public class BorrowRequestService {
 		// 💡 FIX 2: Implement core business logic for status change
         RequestStatus oldStatus = existingRequest.getStatus();
         RequestStatus newStatus = requestDto.status();
+        // Inventory and bookings always follow the stored request, not the client payload
+        int quantity = existingRequest.getRequestedQuantity();
+        LocalDate startDate = existingRequest.getStartDate();
+        LocalDate endDate = existingRequest.getEndDate();
 
-        if (oldStatus == RequestStatus.PENDING && newStatus == RequestStatus.APPROVED) {
-            // Approval Logic: Validate stock and update inventory
-            equipmentService.approveRequest(equipment, requestDto.requestedQuantity()); 
-        
-        } else if (oldStatus == RequestStatus.APPROVED && newStatus == RequestStatus.RETURNED) {
-            // Return Logic: Restore inventory
-            equipmentService.returnRequest(equipment, requestDto.requestedQuantity());
-
-        } else if (oldStatus == RequestStatus.PENDING && newStatus == RequestStatus.REJECTED) {
-            // Rejection Logic: No inventory update needed
-            // (Only status change will happen below)
-        } else {
+        if (!isValidTransition(oldStatus, newStatus)) {
             // Optional: Throw error for invalid state transitions (e.g., APPROVED -> PENDING)
+            refused(id, equipment.getEquipmentId(), oldStatus, newStatus, Reason.INVALID_TRANSITION);
             throw new InvalidInputException("Invalid status transition from " + oldStatus + " to " + newStatus);
         }
 
-        // Update essential fields and status on the existing entity
-        // We only update status here; the other fields (dates, quantity) usually shouldn't change
+        // 💡 Claim the transition first with a conditional UPDATE: if two staff members
+        // process the same request concurrently, only one of them moves stock.
+        if (borrowRequestRepository.transitionStatus(id, oldStatus, newStatus, Instant.now()) == 0) {
+            refused(id, equipment.getEquipmentId(), oldStatus, newStatus, Reason.CONCURRENT_UPDATE);
+            throw new ConflictException("Request " + id + " is no longer " + oldStatus + "; it was updated concurrently.");
+        }
+
+        try {
+            if (newStatus == RequestStatus.APPROVED) {
+                // Approval Logic: Validate stock and update inventory
+                equipmentService.approveRequest(equipment, quantity, startDate, endDate);
+            } else if (newStatus == RequestStatus.RETURNED) {
+                // Return Logic: Restore inventory
+                equipmentService.returnRequest(equipment, quantity);
+            }
+        } catch (InvalidInputException noStock) {
+            refused(id, equipment.getEquipmentId(), oldStatus, newStatus, Reason.INSUFFICIENT_STOCK);
+            throw noStock;
+        }
+
+        if (newStatus != RequestStatus.APPROVED) {
+            // Returned or rejected: free the booked dates (a rejection moves no inventory)
+            reservationIndex.releaseAfterCommit(equipment.getEquipmentId(), startDate, endDate, quantity);
+        }
+
+        eventPublisher.publishEvent(new BorrowRequestStatusChangedEvent(id, equipment.getEquipmentId(),
+                existingRequest.getUser().getUserId(), oldStatus, newStatus, quantity,
+                existingRequest.getRequestDate(), startDate, endDate));
+
+        // The status is already persisted; reflect it on the (now detached) entity we return
         existingRequest.setStatus(newStatus);
-        
-        // This is a more robust way to update an existing entity than building a new one
-        return borrowRequestRepository.save(existingRequest);
+        return existingRequest;
+	}
+
+	/**
+	 * Applies many status changes (e.g. the morning queue of approvals) in one
+	 * transaction, reporting the outcome of each item. Items that can't be
+	 * applied (unknown request, invalid transition, not enough stock) are
+	 * reported and skipped; the others go through.
+	 *
+	 * The requests and then their equipment rows are locked in id order, the
+	 * order every batch uses, so concurrent batches queue up instead of
+	 * deadlocking. Stock moves once per equipment item (the net of its
+	 * approvals and returns) and statuses are set with one UPDATE per target
+	 * status, so a batch costs a handful of statements rather than several per
+	 * request.
+	 */
+	@Transactional
+	public List<RequestTransitionResultDto> transitionRequests(List<RequestTransitionDto> changes) {
+		if (changes == null || changes.isEmpty()) {
+			throw new InvalidInputException("The batch contains no status changes.");
+		}
+		if (changes.size() > MAX_BATCH_SIZE) {
+			throw new InvalidInputException("A batch can change at most " + MAX_BATCH_SIZE + " requests.");
+		}
+		RequestTransitionResultDto[] results = new RequestTransitionResultDto[changes.size()];
+
+		Set<Long> requestIds = changes.stream().filter(Objects::nonNull).map(RequestTransitionDto::requestId)
+				.filter(Objects::nonNull).collect(Collectors.toCollection(TreeSet::new));
+		Map<Long, BorrowRequest> requests = requestIds.isEmpty() ? Map.of()
+				: borrowRequestRepository.lockAllById(requestIds).stream()
+						.collect(Collectors.toMap(BorrowRequest::getRequestId, Function.identity()));
+		Map<Long, Equipment> equipment = equipmentService
+				.lockForUpdate(requests.values().stream().map(request -> request.getEquipment().getEquipmentId())
+						.collect(Collectors.toCollection(TreeSet::new)))
+				.stream().collect(Collectors.toMap(Equipment::getEquipmentId, Function.identity()));
+
+		// Stock left per item as the batch is checked; returns go first so their
+		// units can serve approvals in the same batch
+		Map<Long, int[]> stock = new HashMap<>();
+		equipment.values().forEach(item -> stock.put(item.getEquipmentId(),
+				new int[] { item.getAvailableQuantity(), item.getBorrowedCount() }));
+		List<Integer> order = IntStream.range(0, changes.size()).boxed()
+				.sorted(Comparator.comparing(i -> changes.get(i) != null
+						&& changes.get(i).status() == RequestStatus.APPROVED))
+				.toList();
+		Set<Long> seen = new HashSet<>();
+		List<Integer> accepted = new ArrayList<>();
+		Map<Long, Integer> netStock = new HashMap<>();
+		for (int i : order) {
+			RequestTransitionDto change = changes.get(i);
+			Refusal refusal = checkTransition(change, requests, equipment, stock, seen);
+			if (refusal != null) {
+				Long requestId = change == null ? null : change.requestId();
+				RequestStatus to = change == null ? null : change.status();
+				BorrowRequest request = requestId == null ? null : requests.get(requestId);
+				refused(requestId, request == null ? null : request.getEquipment().getEquipmentId(),
+						request == null ? null : request.getStatus(), to, refusal.reason());
+				results[i] = RequestTransitionResultDto.failed(requestId, to, refusal.message());
+				continue;
+			}
+			BorrowRequest request = requests.get(change.requestId());
+			int delta = change.status() == RequestStatus.APPROVED ? -request.getRequestedQuantity()
+					: change.status() == RequestStatus.RETURNED ? request.getRequestedQuantity() : 0;
+			netStock.merge(request.getEquipment().getEquipmentId(), delta, Integer::sum);
+			accepted.add(i);
+		}
+
+		// One movement per item. With the rows locked and the amounts checked above this
+		// only fails when another ledger user (the in-memory ledger) moved the same stock meanwhile.
+		Set<Long> refused = equipmentService.moveStock(equipment, netStock);
+
+		Instant now = Instant.now();
+		Map<RequestStatus, List<Long>> byStatus = new EnumMap<>(RequestStatus.class);
+		for (int i : accepted) {
+			RequestTransitionDto change = changes.get(i);
+			BorrowRequest request = requests.get(change.requestId());
+			Long equipmentId = request.getEquipment().getEquipmentId();
+			if (change.status() != RequestStatus.REJECTED && refused.contains(equipmentId)) {
+				refused(change.requestId(), equipmentId, request.getStatus(), change.status(), Reason.CONCURRENT_UPDATE);
+				results[i] = RequestTransitionResultDto.failed(change.requestId(), change.status(),
+						"Stock of equipment " + equipmentId + " changed concurrently; retry the request.");
+				continue;
+			}
+			byStatus.computeIfAbsent(change.status(), status -> new ArrayList<>()).add(change.requestId());
+			if (change.status() != RequestStatus.APPROVED) {
+				reservationIndex.releaseAfterCommit(equipmentId, request.getStartDate(), request.getEndDate(),
+						request.getRequestedQuantity());
+			}
+			eventPublisher.publishEvent(new BorrowRequestStatusChangedEvent(request.getRequestId(), equipmentId,
+					request.getUser().getUserId(), request.getStatus(), change.status(),
+					request.getRequestedQuantity(), request.getRequestDate(), request.getStartDate(),
+					request.getEndDate()));
+			results[i] = RequestTransitionResultDto.applied(change.requestId(), change.status());
+		}
+		byStatus.forEach((status, ids) -> borrowRequestRepository.setStatus(ids, status, now));
+		return List.of(results);
+	}
+
+	// Why one item of a batch can't be applied
+	private record Refusal(Reason reason, String message) {
 	}
 
+	// The refusal of one item of a batch, or null if it can be applied (then its stock is reserved in 'stock')
+	private Refusal checkTransition(RequestTransitionDto change, Map<Long, BorrowRequest> requests,
+			Map<Long, Equipment> equipment, Map<Long, int[]> stock, Set<Long> seen) {
+		if (change == null || change.requestId() == null || change.status() == null) {
+			return new Refusal(Reason.INVALID_INPUT, "Both requestId and status are required.");
+		}
+		if (!seen.add(change.requestId())) {
+			return new Refusal(Reason.INVALID_INPUT,
+					"Request " + change.requestId() + " appears more than once in the batch.");
+		}
+		BorrowRequest request = requests.get(change.requestId());
+		if (request == null) {
+			return new Refusal(Reason.NOT_FOUND, "Request not found with ID: " + change.requestId());
+		}
+		if (!isValidTransition(request.getStatus(), change.status())) {
+			return new Refusal(Reason.INVALID_TRANSITION,
+					"Invalid status transition from " + request.getStatus() + " to " + change.status());
+		}
+		Equipment item = equipment.get(request.getEquipment().getEquipmentId());
+		int[] left = stock.get(item.getEquipmentId());
+		int quantity = request.getRequestedQuantity();
+		if (change.status() == RequestStatus.APPROVED) {
+			int peakBooked = reservationIndex.peakBooked(item.getEquipmentId(), request.getStartDate(),
+					request.getEndDate());
+			if (peakBooked > item.getTotalQuantity()) {
+				return new Refusal(Reason.INSUFFICIENT_STOCK, "Cannot approve request. " + peakBooked
+						+ " unit(s) are booked between " + request.getStartDate() + " and " + request.getEndDate()
+						+ " but only " + item.getTotalQuantity() + " exist for equipment: " + item.getName());
+			}
+			if (left[0] < quantity) {
+				return new Refusal(Reason.INSUFFICIENT_STOCK, "Cannot approve request. Requested quantity ("
+						+ quantity + ") exceeds current available stock (" + left[0] + ") for equipment: "
+						+ item.getName());
+			}
+			left[0] -= quantity;
+			left[1] += quantity;
+		} else if (change.status() == RequestStatus.RETURNED) {
+			if (left[1] < quantity) {
+				return new Refusal(Reason.INSUFFICIENT_STOCK, "Cannot complete return. Quantity being returned ("
+						+ quantity + ") exceeds currently marked borrowed quantity (" + left[1]
+						+ ") for equipment: " + item.getName());
+			}
+			left[0] += quantity;
+			left[1] -= quantity;
+		}
+		return null;
+	}
+
+	private void refused(Long requestId, Long equipmentId, RequestStatus from, RequestStatus to, Reason reason) {
+		eventPublisher.publishEvent(new BorrowRequestRefusedEvent(requestId, equipmentId, from, to, reason));
+	}
+
+	private static boolean isValidTransition(RequestStatus from, RequestStatus to) {
+		return (from == RequestStatus.PENDING && to == RequestStatus.APPROVED)
+				|| (from == RequestStatus.APPROVED && to == RequestStatus.RETURNED)
+				|| (from == RequestStatus.PENDING && to == RequestStatus.REJECTED);
+	}
+
+	@Transactional
 	public void deleteRequest(Long id) {
 		// Check if the request exists (and get it)
 		BorrowRequest existingEquipment = borrowRequestRepository.findById(id)
 				.orElseThrow(() -> new ResourceNotFoundException("Request not found with ID: " + id));
 		borrowRequestRepository.delete(existingEquipment);
+		if (ReservationIndex.ACTIVE_STATUSES.contains(existingEquipment.getStatus())) {
+			reservationIndex.releaseAfterCommit(existingEquipment.getEquipment().getEquipmentId(),
+					existingEquipment.getStartDate(), existingEquipment.getEndDate(),
+					existingEquipment.getRequestedQuantity());
+		}
+		eventPublisher.publishEvent(new BorrowRequestStatusChangedEvent(id,
+				existingEquipment.getEquipment().getEquipmentId(), existingEquipment.getUser().getUserId(),
+				existingEquipment.getStatus(), null, existingEquipment.getRequestedQuantity(),
+				existingEquipment.getRequestDate(), existingEquipment.getStartDate(), existingEquipment.getEndDate()));
 	}
 
-	private BorrowRequestResponseDto convertToDto(BorrowRequest entity) {
-		return new BorrowRequestResponseDto(
-				entity.getRequestId(),
-				entity.getEquipment().getEquipmentId(),
-				entity.getUser().getUserId(),
-				entity.getEquipment().getName(),
-				entity.getRequestedQuantity(),
-				entity.getStartDate(),
-				entity.getEndDate(),
-				entity.getStatus());
+	@Transactional(readOnly = true)
+	public List<BorrowRequestResponseDto> getRequestsByStatus(RequestStatus filterStatus) {
+		return borrowRequestRepository.findResponsesByStatus(filterStatus);
 	}
 
-	@Transactional
-	public List<BorrowRequestResponseDto> getAllRequestOfUser(Long userId) {
-		User user = userService.getUserById(userId)
-				.orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-		List<BorrowRequest> requests = borrowRequestRepository.findAllByUser(user);
-
-		// 💡 Convert to DTOs immediately before returning
-		return requests.stream()
-				.map(this::convertToDto)
-				.collect(Collectors.toList());
+	/**
+	 * Streams every borrow request to {@code out}, one row at a time, as
+	 * newline-delimited JSON ({@code csv = false}) or CSV. Rows come from a
+	 * database cursor, so heap use stays flat regardless of table size.
+	 */
+	@Transactional(readOnly = true)
+	public void exportRequests(OutputStream out, boolean csv) {
+		try (Stream<BorrowRequestResponseDto> rows = borrowRequestRepository.streamAllResponses()) {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+			if (csv) {
+				writer.write("requestId,equipmentId,userId,equipmentName,requestedQuantity,startDate,endDate,status\n");
+			}
+			for (Iterator<BorrowRequestResponseDto> it = rows.iterator(); it.hasNext();) {
+				BorrowRequestResponseDto row = it.next();
+				if (csv) {
+					writer.write(row.requestId() + "," + row.equipmentId() + "," + row.userId() + ","
+							+ csvField(row.equipmentName()) + "," + row.requestedQuantity() + "," + row.startDate()
+							+ "," + row.endDate() + "," + row.status() + "\n");
+				} else {
+					writer.write(exportWriter.writeValueAsString(row));
+					writer.write('\n');
+				}
+			}
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Borrow request export failed", e);
+		}
 	}
 
-	public List<BorrowRequestResponseDto> getRequestsByStatus(RequestStatus filterStatus) {
-		List<BorrowRequest> requests = borrowRequestRepository.findAllByStatus(filterStatus);
-
-		// 💡 Convert to DTOs immediately before returning
-		return requests.stream()
-				.map(this::convertToDto)
-				.collect(Collectors.toList());
+	private static String csvField(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
 	}
 
 }
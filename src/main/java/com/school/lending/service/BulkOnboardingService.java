@@ -0,0 +1,343 @@
+package com.school.lending.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.school.lending.dto.OnboardingFailureDto;
+import com.school.lending.dto.OnboardingJobDto;
+import com.school.lending.dto.OnboardingJobDto.Status;
+import com.school.lending.dto.RegisterRequest;
+import com.school.lending.exception.InvalidInputException;
+import com.school.lending.model.Role;
+
+/**
+ * Registers a batch of users (e.g. the new students at term start) in the
+ * background and reports progress per job.
+ *
+ * Every row is registered in Keycloak on its own virtual thread, with a
+ * semaphore shared by all jobs bounding how many registrations are in flight
+ * at once. Registered rows are then inserted into the local users table in
+ * batches, one transaction per batch. If a batch fails it is retried row by
+ * row, and the Keycloak user of every row that still can't be stored is
+ * deleted again, so the two systems don't drift apart.
+ *
+ * Rows that can be rejected up front (missing fields, unknown role, an email
+ * that is repeated in the batch or already registered) never reach Keycloak.
+ */
+@Service
+public class BulkOnboardingService {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkOnboardingService.class);
+
+	public static final int MAX_ROWS = 20_000;
+	private static final List<String> CSV_COLUMNS = List.of("firstName", "lastName", "email", "role", "password");
+	// Finished jobs stay queryable this long
+	private static final Duration KEEP_FINISHED = Duration.ofHours(6);
+
+	private record Row(int number, RegisterRequest request) {
+	}
+
+	private record Provisioned(Row row, String keycloakUserId) {
+	}
+
+	private final KeycloakUserService keycloakUserService;
+	private final UserService userService;
+	private final Semaphore keycloakPermits;
+	private final int insertBatchSize;
+	private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+	public BulkOnboardingService(KeycloakUserService keycloakUserService, UserService userService,
+			@Value("${lending.onboarding.max-concurrency:16}") int maxConcurrency,
+			@Value("${lending.onboarding.insert-batch-size:200}") int insertBatchSize) {
+		this.keycloakUserService = keycloakUserService;
+		this.userService = userService;
+		this.keycloakPermits = new Semaphore(maxConcurrency);
+		this.insertBatchSize = insertBatchSize;
+	}
+
+	/**
+	 * Starts registering the given users and returns the new job right away;
+	 * poll {@link #getJob(UUID)} for progress.
+	 */
+	public OnboardingJobDto start(List<RegisterRequest> requests) {
+		if (requests == null || requests.isEmpty()) {
+			throw new InvalidInputException("The batch contains no users.");
+		}
+		if (requests.size() > MAX_ROWS) {
+			throw new InvalidInputException("A batch can register at most " + MAX_ROWS + " users.");
+		}
+		Instant cutoff = Instant.now().minus(KEEP_FINISHED);
+		jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+
+		Job job = new Job(UUID.randomUUID(), requests.size());
+		jobs.put(job.id, job);
+		List<RegisterRequest> rows = new ArrayList<>(requests);
+		Thread.ofVirtual().name("onboarding-" + job.id).start(() -> run(job, rows));
+		return job.snapshot();
+	}
+
+	public Optional<OnboardingJobDto> getJob(UUID jobId) {
+		return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+	}
+
+	/**
+	 * Reads users from CSV. A header row, if present, names the columns
+	 * (firstName, lastName, email, role, password, in any order); without one
+	 * the columns are expected in that order. Fields may be double-quoted.
+	 */
+	public static List<RegisterRequest> parseCsv(String csv) {
+		List<String> lines = csv == null ? List.of() : csv.lines().filter(line -> !line.isBlank()).toList();
+		if (lines.isEmpty()) {
+			return List.of();
+		}
+		Map<String, Integer> columns = new HashMap<>();
+		List<String> first = splitCsvLine(lines.get(0));
+		boolean header = first.stream().anyMatch(cell -> cell.equalsIgnoreCase("email"));
+		for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+			columns.put(CSV_COLUMNS.get(i), i);
+		}
+		if (header) {
+			columns.clear();
+			for (int i = 0; i < first.size(); i++) {
+				for (String column : CSV_COLUMNS) {
+					if (column.equalsIgnoreCase(first.get(i))) {
+						columns.put(column, i);
+					}
+				}
+			}
+			if (!columns.containsKey("email")) {
+				throw new InvalidInputException("The CSV header has no email column.");
+			}
+		}
+		List<RegisterRequest> requests = new ArrayList<>();
+		for (int i = header ? 1 : 0; i < lines.size(); i++) {
+			List<String> cells = splitCsvLine(lines.get(i));
+			requests.add(new RegisterRequest(cell(cells, columns, "firstName"), cell(cells, columns, "lastName"),
+					cell(cells, columns, "email"), cell(cells, columns, "role"), cell(cells, columns, "password")));
+		}
+		return requests;
+	}
+
+	private void run(Job job, List<RegisterRequest> requests) {
+		BlockingQueue<Provisioned> provisioned = new LinkedBlockingQueue<>();
+		try {
+			try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (Row row : screen(job, requests)) {
+					keycloakPermits.acquire();
+					workers.submit(() -> provision(job, row, provisioned));
+					while (provisioned.size() >= insertBatchSize) {
+						insert(job, take(provisioned));
+					}
+				}
+			}
+			while (!provisioned.isEmpty()) {
+				insert(job, take(provisioned));
+			}
+			job.finish(Status.COMPLETED);
+		} catch (InterruptedException | RuntimeException e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			log.error("Onboarding job {} aborted after {} of {} rows", job.id, job.processed(), job.total, e);
+			// Undo the Keycloak registrations that never reached the local database
+			for (Provisioned orphan : provisioned) {
+				rollBack(job, orphan, "Onboarding job aborted");
+			}
+			job.finish(Status.ABORTED);
+		}
+	}
+
+	// Rejects the rows that can't succeed before anything is sent to Keycloak
+	private List<Row> screen(Job job, List<RegisterRequest> requests) {
+		Map<String, Integer> firstRowByEmail = new HashMap<>();
+		List<Row> candidates = new ArrayList<>();
+		for (int i = 0; i < requests.size(); i++) {
+			Row row = new Row(i + 1, requests.get(i));
+			RegisterRequest request = row.request();
+			if (request == null || isBlank(request.email())) {
+				job.fail(row, "Email is required");
+				continue;
+			}
+			if (isBlank(request.password())) {
+				job.fail(row, "Password is required");
+				continue;
+			}
+			String role = isBlank(request.role()) ? Role.STUDENT.name() : request.role().trim().toUpperCase(Locale.ROOT);
+			try {
+				Role.valueOf(role);
+			} catch (IllegalArgumentException e) {
+				job.fail(row, "Invalid role specified: " + request.role());
+				continue;
+			}
+			String email = request.email().trim();
+			Integer firstRow = firstRowByEmail.putIfAbsent(email.toLowerCase(Locale.ROOT), row.number());
+			if (firstRow != null) {
+				job.fail(row, "Email is repeated in the batch (first on row " + firstRow + ")");
+				continue;
+			}
+			candidates.add(new Row(row.number(),
+					new RegisterRequest(request.firstName(), request.lastName(), email, role, request.password())));
+		}
+		Set<String> registered = userService
+				.findRegisteredEmails(candidates.stream().map(row -> row.request().email()).toList());
+		List<Row> accepted = new ArrayList<>(candidates.size());
+		for (Row row : candidates) {
+			// Same normalisation as the in-batch check above
+			if (registered.contains(row.request().email().toLowerCase(Locale.ROOT))) {
+				job.fail(row, "Email is already registered");
+			} else {
+				accepted.add(row);
+			}
+		}
+		return accepted;
+	}
+
+	private void provision(Job job, Row row, Queue<Provisioned> provisioned) {
+		try {
+			provisioned.add(new Provisioned(row, keycloakUserService.createUserAndAssignDefaultRole(row.request())));
+		} catch (HttpClientErrorException.Conflict e) {
+			job.fail(row, "User already exists in Keycloak");
+		} catch (RuntimeException e) {
+			job.fail(row, "Keycloak registration failed: " + e.getMessage());
+		} finally {
+			keycloakPermits.release();
+		}
+	}
+
+	private void insert(Job job, List<Provisioned> batch) {
+		try {
+			userService.registerUsersLocally(batch.stream().map(p -> p.row().request()).toList());
+			job.succeeded.addAndGet(batch.size());
+		} catch (RuntimeException batchFailure) {
+			// One bad row rolls back its whole batch: retry row by row to find it
+			for (Provisioned p : batch) {
+				try {
+					userService.registerUserLocally(p.row().request());
+					job.succeeded.incrementAndGet();
+				} catch (RuntimeException e) {
+					rollBack(job, p, "Local registration failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+				}
+			}
+		}
+	}
+
+	private void rollBack(Job job, Provisioned p, String reason) {
+		try {
+			keycloakUserService.deleteUser(p.keycloakUserId());
+			job.fail(p.row(), reason);
+		} catch (RuntimeException e) {
+			log.warn("Could not remove Keycloak user {} after a failed onboarding row", p.keycloakUserId(), e);
+			job.fail(p.row(), reason + "; removing Keycloak user " + p.keycloakUserId() + " failed too: "
+					+ e.getMessage());
+		}
+	}
+
+	private List<Provisioned> take(BlockingQueue<Provisioned> provisioned) {
+		List<Provisioned> batch = new ArrayList<>(insertBatchSize);
+		provisioned.drainTo(batch, insertBatchSize);
+		return batch;
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
+	}
+
+	private static String cell(List<String> cells, Map<String, Integer> columns, String column) {
+		Integer index = columns.get(column);
+		if (index == null || index >= cells.size()) {
+			return null;
+		}
+		String value = cells.get(index);
+		return value.isEmpty() ? null : value;
+	}
+
+	private static List<String> splitCsvLine(String line) {
+		List<String> cells = new ArrayList<>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					cell.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					cell.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				cells.add(cell.toString().trim());
+				cell.setLength(0);
+			} else {
+				cell.append(c);
+			}
+		}
+		cells.add(cell.toString().trim());
+		return cells;
+	}
+
+	private static final class Job {
+		final UUID id;
+		final int total;
+		final Instant startedAt = Instant.now();
+		final AtomicInteger succeeded = new AtomicInteger();
+		final Queue<OnboardingFailureDto> failures = new ConcurrentLinkedQueue<>();
+		volatile Status status = Status.RUNNING;
+		volatile Instant finishedAt;
+
+		Job(UUID id, int total) {
+			this.id = id;
+			this.total = total;
+		}
+
+		void fail(Row row, String reason) {
+			failures.add(new OnboardingFailureDto(row.number(), row.request() == null ? null : row.request().email(),
+					reason));
+		}
+
+		int processed() {
+			return succeeded.get() + failures.size();
+		}
+
+		void finish(Status outcome) {
+			finishedAt = Instant.now();
+			status = outcome;
+		}
+
+		OnboardingJobDto snapshot() {
+			List<OnboardingFailureDto> sorted = failures.stream()
+					.sorted(Comparator.comparingInt(OnboardingFailureDto::row)).toList();
+			int ok = succeeded.get();
+			return new OnboardingJobDto(id, status, total, ok + sorted.size(), ok, sorted.size(), sorted, startedAt,
+					finishedAt);
+		}
+	}
+}
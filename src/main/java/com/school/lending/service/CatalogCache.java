@@ -0,0 +1,121 @@
+package com.school.lending.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.dto.CacheStatsDto;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.EquipmentSnapshot;
+import com.school.lending.event.StockMovedEvent;
+import com.school.lending.model.Equipment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded read cache for the equipment catalog, sitting in front of the
+ * EquipmentService queries.
+ *
+ * Entries are evicted after a TTL, when the total weight (one per cached
+ * equipment row) exceeds the limit, and, precisely, after every committed
+ * change: an item's own entry plus the lists that can contain it (its
+ * category, and the available pages for its category and for all
+ * categories). Eviction runs after commit so a reader can't re-cache the old
+ * row while the writing transaction is still open.
+ *
+ * Cached values hold persisted rows; callers overlay live ledger counts and
+ * must treat the returned lists as read-only.
+ */
+@Component
+public class CatalogCache implements MeterBinder {
+
+	private sealed interface Key permits ById, ByCategory, AvailablePage {
+	}
+
+	private record ById(Long equipmentId) implements Key {
+	}
+
+	private record ByCategory(String category) implements Key {
+	}
+
+	private record AvailablePage(String category, long afterId, int size) implements Key {
+	}
+
+	private final Cache<Key, Object> cache;
+
+	public CatalogCache(@Value("${lending.catalog-cache.max-rows:50000}") long maxRows,
+			@Value("${lending.catalog-cache.ttl:10m}") Duration ttl) {
+		this.cache = Caffeine.newBuilder().maximumWeight(maxRows).weigher(CatalogCache::weigh)
+				.expireAfterWrite(ttl).recordStats().build();
+	}
+
+	@SuppressWarnings("unchecked")
+	public Optional<Equipment> byId(Long equipmentId, Supplier<Optional<Equipment>> loader) {
+		return (Optional<Equipment>) cache.get(new ById(equipmentId), key -> loader.get());
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<Equipment> byCategory(String category, Supplier<List<Equipment>> loader) {
+		return (List<Equipment>) cache.get(new ByCategory(category), key -> List.copyOf(loader.get()));
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<AvailableEquipmentDto> availablePage(String category, long afterId, int size,
+			Supplier<List<AvailableEquipmentDto>> loader) {
+		return (List<AvailableEquipmentDto>) cache.get(new AvailablePage(category, afterId, size),
+				key -> List.copyOf(loader.get()));
+	}
+
+	public CacheStatsDto stats() {
+		CacheStats stats = cache.stats();
+		return new CacheStatsDto(stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(),
+				cache.estimatedSize());
+	}
+
+	// Hit/miss/eviction counters and size, as cache.* meters tagged cache=catalog
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "catalog");
+	}
+
+	/**
+	 * Drops every entry that may contain the given item.
+	 */
+	public void evict(Long equipmentId, String... categories) {
+		cache.invalidate(new ById(equipmentId));
+		List<String> touched = List.of(categories);
+		for (String category : touched) {
+			cache.invalidate(new ByCategory(category));
+		}
+		cache.asMap().keySet().removeIf(key -> key instanceof AvailablePage page
+				&& (page.category() == null || touched.contains(page.category())));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEquipmentChanged(EquipmentChangedEvent event) {
+		evict(event.equipmentId(), Stream.of(event.before(), event.after()).filter(Objects::nonNull)
+				.map(EquipmentSnapshot::category).filter(Objects::nonNull).distinct().toArray(String[]::new));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStockMoved(StockMovedEvent event) {
+		evict(event.equipmentId(), event.category() == null ? new String[0] : new String[] { event.category() });
+	}
+
+	private static int weigh(Key key, Object value) {
+		return value instanceof List<?> rows ? Math.max(1, rows.size()) : 1;
+	}
+}
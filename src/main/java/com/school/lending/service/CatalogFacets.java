@@ -0,0 +1,195 @@
+package com.school.lending.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.school.lending.dto.EquipmentFacetsDto;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.EquipmentSnapshot;
+import com.school.lending.event.StockMovedEvent;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.repository.EquipmentRepository;
+
+/**
+ * Facet counts of the catalog (items per category and per condition, items in
+ * stock, units owned and available), kept in memory so the filter sidebar
+ * doesn't group the equipment table on every request.
+ *
+ * The catalog is read once at startup; after that, committed
+ * EquipmentChangedEvents and StockMovedEvents are applied as increments.
+ * Counts are held per (category, condition) cell, a few dozen at most, and a
+ * request adds up the cells that pass its filters. Edits and stock moves are
+ * applied as differences, never as absolute figures, so events of concurrent
+ * transactions give the same counts whatever order they arrive in.
+ */
+@Component
+public class CatalogFacets implements SmartInitializingSingleton {
+
+	private record Cell(String category, EquipmentCondition condition) {
+	}
+
+	private static final class Counts {
+		private int items;
+		private int inStockItems;
+		private long totalUnits;
+		private long availableUnits;
+	}
+
+	// What the counts know of one item
+	private static final class Item {
+		private Cell cell;
+		private int total;
+		private int available;
+
+		Item(EquipmentSnapshot snapshot) {
+			this.cell = new Cell(snapshot.category(), snapshot.condition());
+			this.total = snapshot.totalQuantity();
+			this.available = snapshot.availableQuantity();
+		}
+	}
+
+	private final EquipmentRepository equipmentRepository;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Guarded by lock
+	private final Map<Long, Item> items = new HashMap<>();
+	private final Map<Cell, Counts> cells = new HashMap<>();
+
+	public CatalogFacets(EquipmentRepository equipmentRepository) {
+		this.equipmentRepository = equipmentRepository;
+	}
+
+	// Runs before the web server starts, so no request can race the load
+	@Override
+	public void afterSingletonsInstantiated() {
+		load();
+	}
+
+	void load() {
+		// Read under the lock: a change committed meanwhile is applied after, not lost
+		lock.lock();
+		try {
+			items.clear();
+			cells.clear();
+			for (EquipmentSnapshot row : equipmentRepository.findAllSnapshots()) {
+				put(row);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Counts under the given filters; {@code null} filters (and
+	 * {@code inStockOnly == false}) match everything. See EquipmentFacetsDto
+	 * for which filters apply to which group.
+	 */
+	public EquipmentFacetsDto facets(String category, EquipmentCondition condition, boolean inStockOnly) {
+		Map<String, Integer> categories = new TreeMap<>();
+		Map<EquipmentCondition, Integer> conditions = new EnumMap<>(EquipmentCondition.class);
+		int itemCount = 0;
+		int inStockItems = 0;
+		long totalUnits = 0;
+		long availableUnits = 0;
+		lock.lock();
+		try {
+			for (Map.Entry<Cell, Counts> entry : cells.entrySet()) {
+				Cell cell = entry.getKey();
+				Counts counts = entry.getValue();
+				boolean categoryMatches = category == null || category.equals(cell.category());
+				boolean conditionMatches = condition == null || condition == cell.condition();
+				int shown = inStockOnly ? counts.inStockItems : counts.items;
+				if (conditionMatches && shown > 0 && cell.category() != null) {
+					categories.merge(cell.category(), shown, Integer::sum);
+				}
+				if (categoryMatches && shown > 0 && cell.condition() != null) {
+					conditions.merge(cell.condition(), shown, Integer::sum);
+				}
+				if (categoryMatches && conditionMatches) {
+					itemCount += counts.items;
+					inStockItems += counts.inStockItems;
+					totalUnits += counts.totalUnits;
+					availableUnits += counts.availableUnits;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		return new EquipmentFacetsDto(categories, conditions, itemCount, inStockItems, totalUnits, availableUnits);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEquipmentChanged(EquipmentChangedEvent event) {
+		lock.lock();
+		try {
+			switch (event.type()) {
+			case CREATED -> put(event.after());
+			case DELETED -> {
+				Item item = items.remove(event.equipmentId());
+				if (item != null) {
+					count(item, -1);
+				}
+			}
+			case UPDATED -> {
+				Item item = items.get(event.equipmentId());
+				if (item == null) {
+					put(event.after());
+					return;
+				}
+				// An edit leaves the borrowed count alone, so availability moves with the total
+				int grown = event.after().totalQuantity() - event.before().totalQuantity();
+				count(item, -1);
+				item.cell = new Cell(event.after().category(), event.after().condition());
+				item.total += grown;
+				item.available += grown;
+				count(item, 1);
+			}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStockMoved(StockMovedEvent event) {
+		lock.lock();
+		try {
+			Item item = items.get(event.equipmentId());
+			if (item != null) {
+				count(item, -1);
+				item.available += event.availableDelta();
+				count(item, 1);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Adds an item, or replaces what is known of it
+	private void put(EquipmentSnapshot snapshot) {
+		Item previous = items.put(snapshot.equipmentId(), new Item(snapshot));
+		if (previous != null) {
+			count(previous, -1);
+		}
+		count(items.get(snapshot.equipmentId()), 1);
+	}
+
+	// Adds (sign 1) or takes away (sign -1) an item's share of its cell's counts
+	private void count(Item item, int sign) {
+		Counts counts = cells.computeIfAbsent(item.cell, cell -> new Counts());
+		counts.items += sign;
+		counts.inStockItems += item.available > 0 ? sign : 0;
+		counts.totalUnits += (long) sign * item.total;
+		counts.availableUnits += (long) sign * item.available;
+		if (counts.items == 0) {
+			cells.remove(item.cell);
+		}
+	}
+}
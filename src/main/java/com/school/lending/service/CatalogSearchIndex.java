@@ -0,0 +1,438 @@
+package com.school.lending.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.school.lending.dto.EquipmentSuggestionDto;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.EquipmentSnapshot;
+import com.school.lending.model.Equipment;
+import com.school.lending.repository.EquipmentRepository;
+
+/**
+ * In-memory text index over the name, category and condition of every
+ * catalog item, for keyword search and autocomplete without
+ * {@code LIKE '%...%'} scans of the equipment table.
+ *
+ * Text is normalized (lower case, accents and punctuation dropped) and split
+ * into words. Items are found through:
+ * <ul>
+ * <li>sorted maps of whole names and of words, so completing what has been
+ * typed so far is a range read;</li>
+ * <li>a trigram index over the distinct words (each word, padded with a space
+ * on both sides, cut into overlapping three-character grams). A query word
+ * also matches the words that contain it or share most of its grams, which
+ * covers substrings and a typo or two. This runs over the vocabulary, not
+ * the items, so its cost doesn't grow with the catalog.</li>
+ * </ul>
+ * Every query word must match a word of the item.
+ *
+ * Loaded at startup and kept in step with committed EquipmentChangedEvents.
+ * Items are stored in numbered slots; a removed or edited item leaves a dead
+ * slot in the postings, skipped on read and compacted away once dead slots
+ * make up a quarter of the index. Searches share a read lock; catalog writes
+ * take the write lock.
+ */
+@Component
+public class CatalogSearchIndex implements SmartInitializingSingleton {
+
+	private static final int GRAM = 3;
+	private static final int MIN_DEAD_TO_COMPACT = 1_024;
+	// Most vocabulary words a single query word may stand for
+	private static final int MAX_EXPANSIONS = 64;
+	// Least trigram (Dice) similarity for a misspelled word to count
+	private static final double MIN_SIMILARITY = 0.5;
+
+	// One indexed item: name, and text (name, category and condition), normalized
+	private record Doc(EquipmentSuggestionDto entry, String name, String text, String[] words) {
+	}
+
+	// Growable list of slots; appended in increasing slot order, never shrunk
+	private static final class Postings {
+		private int[] slots = new int[4];
+		private int size;
+
+		void add(int slot) {
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			slots[size++] = slot;
+		}
+	}
+
+	// order: when the hit was found; among equal scores the earlier one ranks higher
+	private record Hit(Doc doc, double score, int order) {
+	}
+
+	private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+			.thenComparing(Comparator.comparingInt(Hit::order).reversed());
+
+	private final EquipmentRepository equipmentRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Guarded by lock
+	private final List<Doc> docs = new ArrayList<>();
+	private final Map<Long, Integer> slotsById = new HashMap<>();
+	private final NavigableMap<String, Postings> words = new TreeMap<>();
+	private final Map<String, List<String>> wordsByGram = new HashMap<>();
+	private final NavigableMap<String, Integer> names = new TreeMap<>();
+	private int dead;
+
+	public CatalogSearchIndex(EquipmentRepository equipmentRepository) {
+		this.equipmentRepository = equipmentRepository;
+	}
+
+	// Runs before the web server starts, so no request can race the load
+	@Override
+	public void afterSingletonsInstantiated() {
+		load();
+	}
+
+	void load() {
+		// Read under the write lock: a change committed meanwhile is applied after, not lost
+		lock.writeLock().lock();
+		try {
+			clear();
+			for (Equipment equipment : equipmentRepository.findAll()) {
+				add(new EquipmentSuggestionDto(equipment.getEquipmentId(), equipment.getName(),
+						equipment.getCategory(), equipment.getCondition()));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Number of items in the index. */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return slotsById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Best matches for {@code query}, at most {@code limit}. Each query word
+	 * matches item words equal to it, starting with it, containing it or
+	 * spelled almost like it, in that order of preference; items that also
+	 * contain the whole query as typed rank higher. Equally good matches come
+	 * in catalog order.
+	 */
+	public List<EquipmentSuggestionDto> search(String query, int limit) {
+		String normalized = normalize(query);
+		if (normalized.isEmpty()) {
+			return List.of();
+		}
+		String[] queryWords = normalized.split(" ");
+		lock.readLock().lock();
+		try {
+			List<Map<String, Double>> matches = new ArrayList<>(queryWords.length);
+			int driver = 0;
+			long fewest = Long.MAX_VALUE;
+			for (String queryWord : queryWords) {
+				Map<String, Double> matched = matchWords(queryWord);
+				if (matched.isEmpty()) {
+					return List.of();
+				}
+				long slots = matched.keySet().stream().mapToLong(word -> words.get(word).size).sum();
+				if (slots < fewest) {
+					fewest = slots;
+					driver = matches.size();
+				}
+				matches.add(matched);
+			}
+			// Candidates come from the query word with the fewest items; the others filter them
+			PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+			// Best-matching words first, so an item is scored with its best word for the driver
+			List<Map.Entry<String, Double>> driverWords = matches.get(driver).entrySet().stream()
+					.sorted(Map.Entry.<String, Double>comparingByValue().reversed()).toList();
+			BitSet seen = new BitSet(docs.size());
+			int order = 0;
+			for (Map.Entry<String, Double> word : driverWords) {
+				// The most an item reached through this word can score; once the `limit` hits
+				// found so far all reach it, nothing later can take their place
+				boolean phrasePossible = matches.size() > 1 || word.getKey().contains(normalized);
+				double bound = (word.getValue() + matches.size() - 1) / matches.size() + (phrasePossible ? 1 : 0);
+				Postings postings = words.get(word.getKey());
+				for (int i = 0; i < postings.size; i++) {
+					if (best.size() == limit && best.peek().score() >= bound) {
+						break;
+					}
+					int slot = postings.slots[i];
+					Doc doc = docs.get(slot);
+					if (doc == null || seen.get(slot)) {
+						continue;
+					}
+					seen.set(slot);
+					double score = score(doc, matches, driver, word.getValue(), normalized);
+					if (score > 0) {
+						best.add(new Hit(doc, score, order++));
+						if (best.size() > limit) {
+							best.poll();
+						}
+					}
+				}
+			}
+			List<EquipmentSuggestionDto> found = new ArrayList<>(best.size());
+			while (!best.isEmpty()) {
+				found.add(best.poll().doc().entry());
+			}
+			return found.reversed();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Completions for what has been typed so far, at most {@code limit}: names
+	 * starting with {@code prefix} in alphabetical order, then items with a word
+	 * starting with its last word (and containing the words before it). When
+	 * nothing starts that way, falls back to {@link #search} so a typo still
+	 * finds something.
+	 */
+	public List<EquipmentSuggestionDto> complete(String prefix, int limit) {
+		String normalized = normalize(prefix);
+		if (normalized.isEmpty()) {
+			return List.of();
+		}
+		List<EquipmentSuggestionDto> found = new ArrayList<>(limit);
+		lock.readLock().lock();
+		try {
+			Set<Integer> seen = new HashSet<>();
+			for (int slot : names.subMap(normalized, true, normalized + Character.MAX_VALUE, true).values()) {
+				if (found.size() == limit) {
+					return found;
+				}
+				seen.add(slot);
+				found.add(docs.get(slot).entry());
+			}
+			int lastWord = normalized.lastIndexOf(' ') + 1;
+			String before = normalized.substring(0, lastWord);
+			String word = normalized.substring(lastWord);
+			for (Postings postings : words.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+				for (int i = 0; i < postings.size; i++) {
+					int slot = postings.slots[i];
+					Doc doc = docs.get(slot);
+					if (doc == null || !doc.text().contains(before) || !seen.add(slot)) {
+						continue;
+					}
+					found.add(doc.entry());
+					if (found.size() == limit) {
+						return found;
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return found.isEmpty() && normalized.length() >= GRAM ? search(prefix, limit) : found;
+	}
+
+	/** Adds an item, or re-indexes it if it is already in. */
+	public void put(EquipmentSuggestionDto entry) {
+		lock.writeLock().lock();
+		try {
+			remove(slotsById.get(entry.equipmentId()));
+			add(entry);
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long equipmentId) {
+		lock.writeLock().lock();
+		try {
+			remove(slotsById.get(equipmentId));
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEquipmentChanged(EquipmentChangedEvent event) {
+		EquipmentSnapshot after = event.after();
+		if (after == null) {
+			remove(event.equipmentId());
+			return;
+		}
+		EquipmentSnapshot before = event.before();
+		if (before != null && Objects.equals(before.name(), after.name())
+				&& Objects.equals(before.category(), after.category()) && before.condition() == after.condition()) {
+			return; // only quantities changed; nothing searchable did
+		}
+		put(new EquipmentSuggestionDto(after.equipmentId(), after.name(), after.category(), after.condition()));
+	}
+
+	/**
+	 * Lower case, without accents, with runs of anything but letters and
+	 * digits turned into a single space.
+	 */
+	static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+		StringBuilder normalized = new StringBuilder(decomposed.length());
+		boolean space = true;
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				normalized.append(c);
+				space = false;
+			} else if (!space && Character.getType(c) != Character.NON_SPACING_MARK) {
+				normalized.append(' ');
+				space = true;
+			}
+		}
+		int end = normalized.length();
+		return space && end > 0 ? normalized.substring(0, end - 1) : normalized.toString();
+	}
+
+	// Vocabulary words standing for one query word, weighted by how well they match; caller holds a lock
+	private Map<String, Double> matchWords(String queryWord) {
+		Map<String, Double> matched = new HashMap<>();
+		for (String word : words.subMap(queryWord, true, queryWord + Character.MAX_VALUE, true).keySet()) {
+			matched.put(word, word.length() == queryWord.length() ? 1.0 : 0.9);
+			if (matched.size() == MAX_EXPANSIONS) {
+				return matched;
+			}
+		}
+		if (queryWord.length() < GRAM) {
+			return matched;
+		}
+		Set<String> queryGrams = gramsOf(queryWord);
+		Map<String, Integer> shared = new HashMap<>();
+		for (String gram : queryGrams) {
+			for (String word : wordsByGram.getOrDefault(gram, List.of())) {
+				shared.merge(word, 1, Integer::sum);
+			}
+		}
+		Map<String, Double> similar = new HashMap<>();
+		shared.forEach((word, count) -> {
+			if (matched.containsKey(word)) {
+				return;
+			}
+			if (word.contains(queryWord)) {
+				similar.put(word, 0.8);
+			} else {
+				double similarity = 2.0 * count / (queryGrams.size() + word.length());
+				if (similarity >= MIN_SIMILARITY) {
+					similar.put(word, 0.7 * similarity);
+				}
+			}
+		});
+		similar.entrySet().stream().sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+				.limit(MAX_EXPANSIONS - matched.size()).forEach(entry -> matched.put(entry.getKey(), entry.getValue()));
+		return matched;
+	}
+
+	// Mean over the query words of their best match in the item (0 if one has none), plus a phrase bonus
+	private static double score(Doc doc, List<Map<String, Double>> matches, int driver, double driverWeight,
+			String normalized) {
+		double total = driverWeight;
+		for (int i = 0; i < matches.size(); i++) {
+			if (i == driver) {
+				continue;
+			}
+			Map<String, Double> matched = matches.get(i);
+			double bestWord = 0;
+			for (String word : doc.words()) {
+				bestWord = Math.max(bestWord, matched.getOrDefault(word, 0.0));
+			}
+			if (bestWord == 0) {
+				return 0;
+			}
+			total += bestWord;
+		}
+		return total / matches.size() + (doc.text().contains(normalized) ? 1 : 0);
+	}
+
+	// Trigrams of a word, padded so its start and end have their own grams
+	private static Set<String> gramsOf(String word) {
+		Set<String> found = new LinkedHashSet<>();
+		String padded = " " + word + " ";
+		for (int i = 0; i + GRAM <= padded.length(); i++) {
+			found.add(padded.substring(i, i + GRAM));
+		}
+		return found;
+	}
+
+	// Caller holds the write lock
+	private void add(EquipmentSuggestionDto entry) {
+		String name = normalize(entry.name());
+		String text = normalize(entry.name() + " " + Objects.toString(entry.category(), "") + " "
+				+ Objects.toString(entry.condition(), ""));
+		String[] itemWords = new LinkedHashSet<>(Arrays.asList(text.split(" "))).toArray(String[]::new);
+		int slot = docs.size();
+		docs.add(new Doc(entry, name, text, itemWords));
+		slotsById.put(entry.equipmentId(), slot);
+		names.put(nameKey(name, slot), slot);
+		for (String word : itemWords) {
+			words.computeIfAbsent(word, this::newWord).add(slot);
+		}
+	}
+
+	// A word seen for the first time joins the vocabulary's trigram index
+	private Postings newWord(String word) {
+		for (String gram : gramsOf(word)) {
+			wordsByGram.computeIfAbsent(gram, key -> new ArrayList<>()).add(word);
+		}
+		return new Postings();
+	}
+
+	// Caller holds the write lock; the slot's postings stay until the next compaction
+	private void remove(Integer slot) {
+		if (slot == null) {
+			return;
+		}
+		Doc doc = docs.set(slot, null);
+		slotsById.remove(doc.entry().equipmentId());
+		names.remove(nameKey(doc.name(), slot));
+		dead++;
+	}
+
+	private void compactIfSparse() {
+		if (dead < MIN_DEAD_TO_COMPACT || dead * 4 < docs.size()) {
+			return;
+		}
+		List<EquipmentSuggestionDto> live = docs.stream().filter(Objects::nonNull).map(Doc::entry).toList();
+		clear();
+		live.forEach(this::add);
+	}
+
+	private void clear() {
+		docs.clear();
+		slotsById.clear();
+		words.clear();
+		wordsByGram.clear();
+		names.clear();
+		dead = 0;
+	}
+
+	// Names needn't be unique once normalized; the slot keeps the keys apart
+	private static String nameKey(String name, int slot) {
+		return name + '\u0000' + slot;
+	}
+}
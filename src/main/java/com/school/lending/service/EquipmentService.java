@@ -1,38 +1,107 @@
 package com.school.lending.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.dto.EquipmentBrowseDto;
 import com.school.lending.dto.EquipmentDto;
+import com.school.lending.dto.EquipmentFacetsDto;
+import com.school.lending.dto.EquipmentSuggestionDto;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.EquipmentSnapshot;
+import com.school.lending.event.StockMovedEvent;
 import com.school.lending.exception.ConflictException;
 import com.school.lending.exception.DuplicateResourceException;
 import com.school.lending.exception.InvalidInputException;
 import com.school.lending.exception.ResourceNotFoundException;
 import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
 import com.school.lending.repository.EquipmentRepository;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 
 @Service
 public class EquipmentService {
 
+	public static final int MAX_IMPORT_SIZE = 5_000;
+	public static final int MAX_SEARCH_RESULTS = 100;
+
 	private final EquipmentRepository equipmentRepository;
+	private final ReservationIndex reservationIndex;
+	private final InventoryLedger inventoryLedger;
+	private final CatalogCache catalogCache;
+	private final CatalogSearchIndex catalogSearchIndex;
+	private final CatalogFacets catalogFacets;
+	private final ApplicationEventPublisher eventPublisher;
 
-	public EquipmentService(EquipmentRepository equipmentRepository) {
+	public EquipmentService(EquipmentRepository equipmentRepository, ReservationIndex reservationIndex,
+			InventoryLedger inventoryLedger, CatalogCache catalogCache, CatalogSearchIndex catalogSearchIndex,
+			CatalogFacets catalogFacets, ApplicationEventPublisher eventPublisher) {
 		this.equipmentRepository = equipmentRepository;
+		this.reservationIndex = reservationIndex;
+		this.inventoryLedger = inventoryLedger;
+		this.catalogCache = catalogCache;
+		this.catalogSearchIndex = catalogSearchIndex;
+		this.catalogFacets = catalogFacets;
+		this.eventPublisher = eventPublisher;
+	}
+
+	// 💡 Catalog reads go through CatalogCache, which the write paths below invalidate
+	// (via the events they publish) once their transaction commits.
+
+	/**
+	 * Keyset-paginated catalog, optionally limited to one category.
+	 */
+	public CursorPage<Equipment> getPage(String category, String cursor, int size) {
+		List<Equipment> rows = equipmentRepository
+				.findPage(CursorPage.decode(cursor), category, null, false, CursorPage.checkSize(size) + 1)
+				.stream().map(inventoryLedger::withLiveCounts).collect(Collectors.toList());
+		return CursorPage.of(rows, size, Equipment::getEquipmentId);
+	}
+
+	/**
+	 * Keyset page of the catalog under the sidebar filters, together with the
+	 * facet counts for those filters. The counts come from memory
+	 * (CatalogFacets); only the page is read from the database.
+	 */
+	public EquipmentBrowseDto browse(String category, EquipmentCondition condition, boolean inStockOnly,
+			String cursor, int size) {
+		List<Equipment> rows = equipmentRepository
+				.findPage(CursorPage.decode(cursor), category, condition, inStockOnly,
+						CursorPage.checkSize(size) + 1)
+				.stream().map(inventoryLedger::withLiveCounts).collect(Collectors.toList());
+		CursorPage<Equipment> page = CursorPage.of(rows, size, Equipment::getEquipmentId);
+		return new EquipmentBrowseDto(page.items(), page.next(), facets(category, condition, inStockOnly));
 	}
 
-	public List<Equipment> getAll() {
-		// TODO Auto-generated method stub
-		return equipmentRepository.findAll();
+	public EquipmentFacetsDto facets(String category, EquipmentCondition condition, boolean inStockOnly) {
+		return catalogFacets.facets(category, condition, inStockOnly);
 	}
 
 	public Optional<Equipment> getEquipmentById(Long id) {
-		return equipmentRepository.findById(id);
+		// Hand out a copy: callers may modify it, the cached instance is shared
+		return catalogCache.byId(id, () -> equipmentRepository.findById(id)).map(EquipmentService::copyOf)
+				.map(inventoryLedger::withLiveCounts);
+	}
+
+	// Uncached read for the write paths, which must see their own transaction's changes
+	private Optional<Equipment> loadEquipment(Long id) {
+		return equipmentRepository.findById(id).map(inventoryLedger::withLiveCounts);
 	}
 
 	public Equipment createEquipment(@Valid EquipmentDto equipment) {
@@ -51,32 +120,83 @@ public class EquipmentService {
 		Equipment newEquipment = Equipment.builder().totalQuantity(totalQuantity).borrowedCount(0)
 				.availableQuantity(totalQuantity).name(name).category(equipment.category())
 				.condition(equipment.condition()).build();
-		return equipmentRepository.save(newEquipment);
+		Equipment savedEquipment = equipmentRepository.save(newEquipment);
+		inventoryLedger.track(savedEquipment);
+		eventPublisher.publishEvent(new EquipmentChangedEvent(EquipmentChangedEvent.Type.CREATED,
+				savedEquipment.getEquipmentId(), null, EquipmentSnapshot.of(savedEquipment)));
+		return savedEquipment;
 	}
 
+	/**
+	 * Creates many items in one transaction, all or nothing. The rows go out
+	 * as JDBC batches (see hibernate.jdbc.batch_size), so an import of a few
+	 * thousand items takes a handful of round trips instead of one per item.
+	 */
+	@Transactional
+	public List<Equipment> importEquipment(List<@Valid EquipmentDto> items) {
+		if (items == null || items.isEmpty()) {
+			throw new InvalidInputException("The import contains no equipment.");
+		}
+		if (items.size() > MAX_IMPORT_SIZE) {
+			throw new InvalidInputException("An import can create at most " + MAX_IMPORT_SIZE + " items.");
+		}
+		Set<String> names = new HashSet<>();
+		List<Equipment> newEquipment = new ArrayList<>(items.size());
+		for (EquipmentDto item : items) {
+			if (item.totalQuantity() < 0) {
+				throw new InvalidInputException("Initial quantity cannot be negative: " + item.name());
+			}
+			if (!names.add(item.name())) {
+				throw new DuplicateResourceException("Equipment name appears twice in the import: " + item.name());
+			}
+			newEquipment.add(Equipment.builder().totalQuantity(item.totalQuantity()).borrowedCount(0)
+					.availableQuantity(item.totalQuantity()).name(item.name()).category(item.category())
+					.condition(item.condition()).build());
+		}
+		List<String> taken = new ArrayList<>(names);
+		for (int from = 0; from < taken.size(); from += 1000) {
+			List<String> existing = equipmentRepository
+					.findNamesIn(taken.subList(from, Math.min(taken.size(), from + 1000)));
+			if (!existing.isEmpty()) {
+				throw new DuplicateResourceException("Equipment with these names already exists: " + existing);
+			}
+		}
+
+		List<Equipment> saved = equipmentRepository.saveAll(newEquipment);
+		for (Equipment equipment : saved) {
+			inventoryLedger.track(equipment);
+			eventPublisher.publishEvent(new EquipmentChangedEvent(EquipmentChangedEvent.Type.CREATED,
+					equipment.getEquipmentId(), null, EquipmentSnapshot.of(equipment)));
+		}
+		return saved;
+	}
+
+	@Transactional
 	public Equipment updateEquipment(Long id, @Valid EquipmentDto equipment) {
-		Equipment existingEquipment = equipmentRepository.findById(id)
+		EquipmentSnapshot before = loadEquipment(id).map(EquipmentSnapshot::of)
 				.orElseThrow(() -> new ResourceNotFoundException("Equipment not found."));
-		int currentBorrowed = existingEquipment.getBorrowedCount();
 		int newTotalQuantity = equipment.totalQuantity();
-		// CRITICAL VALIDATION: Check if the new total stock is less than the borrowed
-		// count.
-		if (newTotalQuantity < currentBorrowed) {
+		// CRITICAL VALIDATION: the new total stock may not drop below the borrowed
+		// count. The check runs inside the UPDATE so a concurrent approval can't slip in
+		// between reading borrowedCount and writing availableQuantity.
+		int updated = equipmentRepository.updateDetails(id, equipment.name(), equipment.category(),
+				equipment.condition(), newTotalQuantity);
+		if (updated == 0 || !inventoryLedger.resize(id, newTotalQuantity)) {
+			int currentBorrowed = inventoryLedger.borrowed(id);
 			throw new InvalidInputException("New total quantity (" + newTotalQuantity
 					+ ") cannot be less than the number of items currently borrowed (" + currentBorrowed + ").");
 		}
-		existingEquipment.setName(equipment.name());
-		existingEquipment.setCategory(equipment.category());
-		existingEquipment.setCondition(equipment.condition());
-		existingEquipment.setTotalQuantity(newTotalQuantity);
-		existingEquipment.setAvailableQuantity(newTotalQuantity - currentBorrowed);
-		return equipmentRepository.save(existingEquipment);
+		Equipment updatedEquipment = loadEquipment(id)
+				.orElseThrow(() -> new ResourceNotFoundException("Equipment not found."));
+		eventPublisher.publishEvent(new EquipmentChangedEvent(EquipmentChangedEvent.Type.UPDATED, id, before,
+				EquipmentSnapshot.of(updatedEquipment)));
+		return updatedEquipment;
 	}
 
 	public void deleteEquipment(Long id) {
 
 		// 1. Check if the equipment exists (and get it)
-		Equipment existingEquipment = equipmentRepository.findById(id)
+		Equipment existingEquipment = loadEquipment(id)
 				.orElseThrow(() -> new ResourceNotFoundException("Equipment not found with ID: " + id));
 
 		// 2. CRITICAL CHECK: Prevent deletion if any units are borrowed
@@ -87,25 +207,79 @@ public class EquipmentService {
 		}
 
 		// 3. Perform the deletion
-		equipmentRepository.delete(existingEquipment);
+		equipmentRepository.deleteById(id);
+		inventoryLedger.forget(id);
+		reservationIndex.evict(id);
+		eventPublisher.publishEvent(new EquipmentChangedEvent(EquipmentChangedEvent.Type.DELETED, id,
+				EquipmentSnapshot.of(existingEquipment), null));
 	}
 
-	public List<Equipment> getAvailableEquipment() {
-
-		// Find all equipment and stream the results
-		return equipmentRepository.findAll().stream()
-				// Filter out items where (totalQuantity - borrowedCount) is zero or less
-				.filter(equipment -> equipment.getTotalQuantity() > equipment.getBorrowedCount())
-				// Recalculate and set the availableQuantity field for the final JSON output
-				// (optional, but good practice)
-				.peek(equipment -> equipment
-						.setAvailableQuantity(equipment.getTotalQuantity() - equipment.getBorrowedCount()))
+	/**
+	 * One keyset page of in-stock equipment, optionally limited to a category.
+	 * Filtering happens in the database on an indexed column.
+	 */
+	public CursorPage<AvailableEquipmentDto> getAvailableEquipment(String category, String cursor, int size) {
+		long afterId = CursorPage.decode(cursor);
+		int limit = CursorPage.checkSize(size) + 1;
+		List<AvailableEquipmentDto> rows = catalogCache
+				.availablePage(category, afterId, limit,
+						() -> equipmentRepository.findAvailablePage(afterId, category, limit))
+				.stream()
+				// In memory ledger mode the row may lag the live counters by one flush
+				.map(row -> row.withAvailableQuantity(
+						inventoryLedger.available(row.equipmentId(), row.availableQuantity())))
 				.collect(Collectors.toList());
+		CursorPage<AvailableEquipmentDto> page = CursorPage.of(rows, size, AvailableEquipmentDto::equipmentId);
+		List<AvailableEquipmentDto> inStock = page.items().stream().filter(row -> row.availableQuantity() > 0)
+				.collect(Collectors.toList());
+		return new CursorPage<>(inStock, page.next());
 	}
 
 	public List<Equipment> searchByCategory(String categoryName) {
 		// Calls the custom repository method
-		return equipmentRepository.findByCategory(categoryName);
+		return catalogCache.byCategory(categoryName, () -> equipmentRepository.findByCategory(categoryName)).stream()
+				.map(inventoryLedger::withLiveCounts).collect(Collectors.toList());
+	}
+
+	/**
+	 * Keyword search over name, category and condition, best matches first;
+	 * tolerates typos and matches substrings. Matching runs on the in-memory
+	 * CatalogSearchIndex, then the hits are read in one query by id.
+	 */
+	public List<Equipment> search(String query, int limit) {
+		checkSearchLimit(limit);
+		List<Long> ids = catalogSearchIndex.search(query, limit).stream().map(EquipmentSuggestionDto::equipmentId)
+				.toList();
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		Map<Long, Equipment> rows = equipmentRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(Equipment::getEquipmentId, Function.identity()));
+		// In index order; an item deleted since the index was read is skipped
+		return ids.stream().map(rows::get).filter(Objects::nonNull).map(inventoryLedger::withLiveCounts)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Completions for a search box, answered from memory without a database
+	 * call.
+	 */
+	public List<EquipmentSuggestionDto> suggest(String prefix, int limit) {
+		return catalogSearchIndex.complete(prefix, checkSearchLimit(limit));
+	}
+
+	private static int checkSearchLimit(int limit) {
+		if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+			throw new InvalidInputException("The result limit must be between 1 and " + MAX_SEARCH_RESULTS + ".");
+		}
+		return limit;
+	}
+
+	private static Equipment copyOf(Equipment equipment) {
+		return Equipment.builder().equipmentId(equipment.getEquipmentId()).name(equipment.getName())
+				.category(equipment.getCategory()).condition(equipment.getCondition())
+				.totalQuantity(equipment.getTotalQuantity()).borrowedCount(equipment.getBorrowedCount())
+				.availableQuantity(equipment.getAvailableQuantity()).build();
 	}
 
     /**
@@ -113,26 +287,64 @@ public class EquipmentService {
      * Decrements available stock and increments borrowed count.
      * * @param equipment The Equipment entity being borrowed.
      * @param quantity The quantity being requested/approved.
+     * @param startDate First day of the loan.
+     * @param endDate Day the loan ends (exclusive).
      */
     @Transactional
-    public void approveRequest(Equipment equipment, int quantity) {
-        
-        int currentAvailable = equipment.getAvailableQuantity();
+    public void approveRequest(Equipment equipment, int quantity, LocalDate startDate, LocalDate endDate) {
 
-        // 1. Critical Validation: Ensure stock hasn't dropped since the request was created.
-        if (quantity > currentAvailable) {
+        // 1. Date-aware check: the request already holds its units in the booking index,
+        // so the peak over its dates must still fit the (possibly reduced) total stock.
+        int peakBooked = reservationIndex.peakBooked(equipment.getEquipmentId(), startDate, endDate);
+        if (peakBooked > equipment.getTotalQuantity()) {
+            throw new InvalidInputException(
+                "Cannot approve request. " + peakBooked + " unit(s) are booked between " + startDate +
+                " and " + endDate + " but only " + equipment.getTotalQuantity() +
+                " exist for equipment: " + equipment.getName());
+        }
+
+        // 2. Validate and update inventory in a single conditional UPDATE. Re-checking
+        // a value read earlier would let two concurrent approvals both pass.
+        if (!inventoryLedger.debit(equipment.getEquipmentId(), quantity)) {
+            int currentAvailable = inventoryLedger.available(equipment.getEquipmentId());
             throw new InvalidInputException(
                 "Cannot approve request. Requested quantity (" + quantity + 
                 ") exceeds current available stock (" + currentAvailable + 
                 ") for equipment: " + equipment.getName());
         }
+        eventPublisher.publishEvent(new StockMovedEvent(equipment.getEquipmentId(), equipment.getCategory(), -quantity));
+    }
 
-        // 2. Update Inventory
-        equipment.setAvailableQuantity(currentAvailable - quantity);
-        equipment.setBorrowedCount(equipment.getBorrowedCount() + quantity);
+    /**
+     * Locks the given items for the rest of the transaction (SELECT ... FOR
+     * UPDATE, in id order) and returns them with their current counters.
+     */
+    @Transactional
+    public List<Equipment> lockForUpdate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return equipmentRepository.lockAllById(ids).stream().map(inventoryLedger::withLiveCounts).toList();
+    }
 
-        // 3. Save changes
-        equipmentRepository.save(equipment);
+    /**
+     * Applies the net stock change of a batch of approvals and returns, one
+     * movement per item and all in a single ledger call: a negative delta
+     * moves units out, a positive one brings them back.
+     *
+     * @param items the items the deltas refer to, by id
+     * @return the ids whose movement the ledger refused
+     */
+    @Transactional
+    public Set<Long> moveStock(Map<Long, Equipment> items, Map<Long, Integer> deltas) {
+        Set<Long> refused = inventoryLedger.moveAll(deltas);
+        deltas.forEach((equipmentId, delta) -> {
+            if (delta != 0 && !refused.contains(equipmentId)) {
+                eventPublisher.publishEvent(
+                        new StockMovedEvent(equipmentId, items.get(equipmentId).getCategory(), delta));
+            }
+        });
+        return refused;
     }
 
     /**
@@ -143,23 +355,17 @@ public class EquipmentService {
      */
     @Transactional
     public void returnRequest(Equipment equipment, int quantity) {
-        
-        int currentBorrowed = equipment.getBorrowedCount();
-        
-        // 1. Validation: Ensure we don't return more than what is currently marked as borrowed.
-        if (quantity > currentBorrowed) {
+
+        // Validation and update happen atomically: we never return more than what is
+        // currently marked as borrowed.
+        if (!inventoryLedger.credit(equipment.getEquipmentId(), quantity)) {
+            int currentBorrowed = inventoryLedger.borrowed(equipment.getEquipmentId());
             throw new InvalidInputException(
                 "Cannot complete return. Quantity being returned (" + quantity + 
                 ") exceeds currently marked borrowed quantity (" + currentBorrowed + 
                 ") for equipment: " + equipment.getName());
         }
-
-        // 2. Update Inventory
-        equipment.setAvailableQuantity(equipment.getAvailableQuantity() + quantity);
-        equipment.setBorrowedCount(currentBorrowed - quantity);
-
-        // 3. Save changes
-        equipmentRepository.save(equipment);
+        eventPublisher.publishEvent(new StockMovedEvent(equipment.getEquipmentId(), equipment.getCategory(), quantity));
     }
 
 }
@@ -0,0 +1,453 @@
+package com.school.lending.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.school.lending.model.Equipment;
+import com.school.lending.repository.EquipmentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory ledger ({@code lending.inventory.mode=memory}).
+ *
+ * Each item's counters are packed into one {@link AtomicLong} (available in the
+ * high 32 bits, borrowed in the low 32 bits) and moved with compare-and-set, so
+ * approvals never take a lock or touch the database. These live counters
+ * include the moves of transactions still open, so two transactions can't both
+ * take the last unit; a rollback moves the units back.
+ *
+ * A second set of counters holds committed state only. A transaction's moves
+ * are collected as it runs and, once it has committed, added to the committed
+ * counters, appended to a local journal as absolute values and marked dirty. A
+ * scheduled flusher writes the committed values of dirty rows back in one JDBC
+ * batch. Neither the journal nor the database ever sees a move that might still
+ * roll back.
+ *
+ * Crash safety: the journal is split into segments. A transaction's entries
+ * are forced to disk right after it commits, before the caller gets its answer
+ * (straight away outside a transaction). A flush seals the current segment,
+ * writes every dirty row, and only then deletes sealed segments. On startup
+ * any leftover segments are replayed into the database before the counters
+ * are loaded; entries are absolute values, so replaying twice is harmless.
+ * The journal and the database commit separately: a crash after a transaction
+ * commits but before its entries reach the disk loses that transaction's stock
+ * moves, though not its status changes.
+ *
+ * The journal and the flusher are guarded by {@link ReentrantLock}s rather than
+ * monitors: both hold their lock across blocking I/O (a file append, a JDBC
+ * batch), which would pin the carrier of a virtual thread inside
+ * {@code synchronized}.
+ */
+@Component
+@ConditionalOnProperty(name = "lending.inventory.mode", havingValue = "memory")
+public class InMemoryInventoryLedger implements InventoryLedger {
+
+	private static final Logger log = LoggerFactory.getLogger(InMemoryInventoryLedger.class);
+
+	private static final String FLUSH_SQL = "UPDATE equipment SET available_quantity = ?, borrowed_count = ? WHERE equipment_id = ?";
+	private static final String SEGMENT_PREFIX = "ledger-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	private final EquipmentRepository equipmentRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final Path journalDir;
+
+	// Live counters, including moves of open transactions
+	private final Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+	// Committed counters: what the journal and the flusher write
+	private final Map<Long, AtomicLong> committed = new ConcurrentHashMap<>();
+	private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+	private final LongAdder totalAvailable = new LongAdder();
+
+	private final ReentrantLock journalLock = new ReentrantLock();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	// Bound to a transaction to the moves it has made so far (item -> available, borrowed delta)
+	private final Object movesKey = new Object();
+	private FileChannel journal;
+	private long segment;
+
+	public InMemoryInventoryLedger(EquipmentRepository equipmentRepository, JdbcTemplate jdbcTemplate,
+			@Value("${lending.inventory.journal-dir:./data/inventory-journal}") String journalDir) {
+		this.equipmentRepository = equipmentRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.journalDir = Paths.get(journalDir);
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		Files.createDirectories(journalDir);
+		List<Path> leftovers = segments();
+		replay(leftovers);
+		for (Equipment equipment : equipmentRepository.findAll()) {
+			track(equipment);
+		}
+		segment = leftovers.isEmpty() ? 1 : segmentNumber(leftovers.get(leftovers.size() - 1)) + 1;
+		journal = openSegment(segment);
+		log.info("In-memory inventory ledger tracking {} items ({} journal segment(s) replayed)", counters.size(),
+				leftovers.size());
+	}
+
+	@PreDestroy
+	public void stop() throws IOException {
+		flush();
+		journalLock.lock();
+		try {
+			journal.close();
+		} finally {
+			journalLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean debit(Long equipmentId, int quantity) {
+		if (!move(equipmentId, -quantity, quantity)) {
+			return false;
+		}
+		record(equipmentId, -quantity, quantity);
+		return true;
+	}
+
+	@Override
+	public boolean credit(Long equipmentId, int quantity) {
+		if (!move(equipmentId, quantity, -quantity)) {
+			return false;
+		}
+		record(equipmentId, quantity, -quantity);
+		return true;
+	}
+
+	@Override
+	public boolean resize(Long equipmentId, int totalQuantity) {
+		AtomicLong counter = counters.get(equipmentId);
+		if (counter == null) {
+			return false;
+		}
+		long current;
+		long next;
+		do {
+			current = counter.get();
+			int borrowed = borrowed(current);
+			if (borrowed > totalQuantity) {
+				return false;
+			}
+			next = pack(totalQuantity - borrowed, borrowed);
+		} while (!counter.compareAndSet(current, next));
+		record(equipmentId, available(next) - available(current), 0);
+		return true;
+	}
+
+	@Override
+	public void track(Equipment equipment) {
+		long packed = pack(equipment.getAvailableQuantity(), equipment.getBorrowedCount());
+		counters.put(equipment.getEquipmentId(), new AtomicLong(packed));
+		AtomicLong previous = committed.put(equipment.getEquipmentId(), new AtomicLong(packed));
+		if (previous != null) {
+			totalAvailable.add(-available(previous.get()));
+		}
+		totalAvailable.add(equipment.getAvailableQuantity());
+	}
+
+	@Override
+	public void forget(Long equipmentId) {
+		counters.remove(equipmentId);
+		AtomicLong removed = committed.remove(equipmentId);
+		dirty.remove(equipmentId);
+		if (removed != null) {
+			totalAvailable.add(-available(removed.get()));
+		}
+	}
+
+	@Override
+	public Equipment withLiveCounts(Equipment equipment) {
+		AtomicLong counter = counters.get(equipment.getEquipmentId());
+		if (counter == null) {
+			return equipment;
+		}
+		long packed = counter.get();
+		// Copy, so a managed entity never picks up counters that the flusher owns
+		return Equipment.builder().equipmentId(equipment.getEquipmentId()).name(equipment.getName())
+				.category(equipment.getCategory()).condition(equipment.getCondition())
+				.totalQuantity(available(packed) + borrowed(packed)).availableQuantity(available(packed))
+				.borrowedCount(borrowed(packed)).build();
+	}
+
+	@Override
+	public int available(Long equipmentId, int persistedAvailable) {
+		AtomicLong counter = counters.get(equipmentId);
+		return counter == null ? persistedAvailable : available(counter.get());
+	}
+
+	@Override
+	public int available(Long equipmentId) {
+		AtomicLong counter = counters.get(equipmentId);
+		return counter == null ? 0 : available(counter.get());
+	}
+
+	@Override
+	public int borrowed(Long equipmentId) {
+		AtomicLong counter = counters.get(equipmentId);
+		return counter == null ? 0 : borrowed(counter.get());
+	}
+
+	@Override
+	public long totalAvailable() {
+		return totalAvailable.sum();
+	}
+
+	/**
+	 * Writes the committed counters of every dirty item back to the database
+	 * in one batch.
+	 */
+	@Scheduled(fixedDelayString = "${lending.inventory.flush-interval-ms:500}")
+	public void flush() {
+		flushLock.lock();
+		try {
+			flushDirty();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void flushDirty() {
+		if (dirty.isEmpty()) {
+			return;
+		}
+		long sealed;
+		journalLock.lock();
+		try {
+			sealed = segment;
+			rotate();
+		} finally {
+			journalLock.unlock();
+		}
+
+		List<Long> ids = new ArrayList<>();
+		List<Object[]> rows = new ArrayList<>();
+		for (Iterator<Long> it = dirty.iterator(); it.hasNext();) {
+			Long id = it.next();
+			it.remove();
+			AtomicLong counter = committed.get(id);
+			if (counter != null) {
+				long packed = counter.get();
+				ids.add(id);
+				rows.add(new Object[] { available(packed), borrowed(packed), id });
+			}
+		}
+		if (!rows.isEmpty()) {
+			try {
+				jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+			} catch (DataAccessException e) {
+				// Keep the sealed segments; the next flush (or a restart) writes them again
+				dirty.addAll(ids);
+				log.warn("Inventory write-behind failed for {} item(s), will retry", ids.size(), e);
+				return;
+			}
+		}
+		deleteSegmentsUpTo(sealed);
+	}
+
+	private boolean move(Long equipmentId, int availableDelta, int borrowedDelta) {
+		AtomicLong counter = counters.get(equipmentId);
+		if (counter == null) {
+			return false;
+		}
+		long current;
+		long next;
+		do {
+			current = counter.get();
+			int available = available(current) + availableDelta;
+			int borrowed = borrowed(current) + borrowedDelta;
+			if (available < 0 || borrowed < 0) {
+				return false;
+			}
+			next = pack(available, borrowed);
+		} while (!counter.compareAndSet(current, next));
+		return true;
+	}
+
+	// Unchecked move, for changes already decided: undoing a rolled-back move, applying a committed one
+	private static long add(AtomicLong counter, int availableDelta, int borrowedDelta) {
+		long current;
+		long next;
+		do {
+			current = counter.get();
+			next = pack(available(current) + availableDelta, borrowed(current) + borrowedDelta);
+		} while (!counter.compareAndSet(current, next));
+		return next;
+	}
+
+	// Collects a move made in the current transaction, applied to the committed state once it
+	// commits and to the live counters in reverse if it doesn't; without a transaction it is final
+	private void record(Long equipmentId, int availableDelta, int borrowedDelta) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			commit(Map.of(equipmentId, new int[] { availableDelta, borrowedDelta }));
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		Map<Long, int[]> moves = (Map<Long, int[]>) TransactionSynchronizationManager.getResource(movesKey);
+		if (moves == null) {
+			Map<Long, int[]> transactionMoves = new HashMap<>();
+			moves = transactionMoves;
+			TransactionSynchronizationManager.bindResource(movesKey, transactionMoves);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					commit(transactionMoves);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(movesKey);
+					if (status != STATUS_COMMITTED) {
+						transactionMoves.forEach((id, delta) -> {
+							AtomicLong counter = counters.get(id);
+							if (counter != null) {
+								add(counter, -delta[0], -delta[1]);
+							}
+						});
+					}
+				}
+			});
+		}
+		moves.merge(equipmentId, new int[] { availableDelta, borrowedDelta },
+				(a, b) -> new int[] { a[0] + b[0], a[1] + b[1] });
+	}
+
+	// Applies committed moves and forces their journal entries to disk
+	private void commit(Map<Long, int[]> moves) {
+		journalLock.lock();
+		try {
+			// Under the lock, so the last entry for an item is always its latest committed value
+			StringBuilder entries = new StringBuilder();
+			moves.forEach((id, delta) -> {
+				AtomicLong counter = committed.get(id);
+				if (counter == null) {
+					return; // forgotten (deleted) meanwhile
+				}
+				long packed = add(counter, delta[0], delta[1]);
+				totalAvailable.add(delta[0]);
+				dirty.add(id);
+				entries.append(id).append(',').append(available(packed)).append(',').append(borrowed(packed))
+						.append('\n');
+			});
+			if (entries.isEmpty()) {
+				return;
+			}
+			journal.write(ByteBuffer.wrap(entries.toString().getBytes(StandardCharsets.US_ASCII)));
+			journal.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not append to inventory journal", e);
+		} finally {
+			journalLock.unlock();
+		}
+	}
+
+	private void replay(List<Path> leftovers) throws IOException {
+		if (leftovers.isEmpty()) {
+			return;
+		}
+		Map<Long, Object[]> latest = new HashMap<>();
+		for (Path file : leftovers) {
+			for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+				String[] parts = line.split(",");
+				if (parts.length != 3) {
+					continue; // torn write at crash time
+				}
+				try {
+					Long id = Long.valueOf(parts[0]);
+					latest.put(id, new Object[] { Integer.valueOf(parts[1]), Integer.valueOf(parts[2]), id });
+				} catch (NumberFormatException torn) {
+					// skip
+				}
+			}
+		}
+		jdbcTemplate.batchUpdate(FLUSH_SQL, new ArrayList<>(latest.values()));
+		for (Path file : leftovers) {
+			Files.delete(file);
+		}
+	}
+
+	private void rotate() {
+		try {
+			journal.force(false);
+			journal.close();
+			segment++;
+			journal = openSegment(segment);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not rotate inventory journal", e);
+		}
+	}
+
+	private void deleteSegmentsUpTo(long sealed) {
+		try {
+			for (Path file : segments()) {
+				if (segmentNumber(file) <= sealed) {
+					Files.deleteIfExists(file);
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Could not delete flushed inventory journal segments", e);
+		}
+	}
+
+	private FileChannel openSegment(long number) throws IOException {
+		return FileChannel.open(journalDir.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(journalDir)) {
+			return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+					.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+					.sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b))).toList();
+		}
+	}
+
+	private static long segmentNumber(Path file) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private static long pack(int available, int borrowed) {
+		return ((long) available << 32) | (borrowed & 0xFFFFFFFFL);
+	}
+
+	private static int available(long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	private static int borrowed(long packed) {
+		return (int) packed;
+	}
+}
@@ -0,0 +1,87 @@
+package com.school.lending.service;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.school.lending.model.Equipment;
+
+/**
+ * Owns the available/borrowed stock counters of every equipment item.
+ *
+ * Selected with {@code lending.inventory.mode}:
+ * <ul>
+ * <li>{@code jpa} (default) - counters live in the equipment table and every
+ * movement is a conditional UPDATE ({@link JpaInventoryLedger}).</li>
+ * <li>{@code memory} - counters live in memory and are written back to the
+ * database in batches ({@link InMemoryInventoryLedger}).</li>
+ * </ul>
+ */
+public interface InventoryLedger {
+
+	/**
+	 * Moves {@code quantity} units from available to borrowed.
+	 *
+	 * @return {@code false} if fewer than {@code quantity} units are available
+	 */
+	boolean debit(Long equipmentId, int quantity);
+
+	/**
+	 * Moves {@code quantity} units from borrowed back to available.
+	 *
+	 * @return {@code false} if fewer than {@code quantity} units are borrowed
+	 */
+	boolean credit(Long equipmentId, int quantity);
+
+	/**
+	 * Applies one net movement per item: a negative quantity is a
+	 * {@link #debit}, a positive one a {@link #credit}. Implementations may
+	 * send them to the database together.
+	 *
+	 * @return the ids whose movement was refused
+	 */
+	default Set<Long> moveAll(Map<Long, Integer> quantities) {
+		Set<Long> refused = new HashSet<>();
+		quantities.forEach((equipmentId, quantity) -> {
+			boolean moved = quantity == 0 || (quantity < 0 ? debit(equipmentId, -quantity) : credit(equipmentId, quantity));
+			if (!moved) {
+				refused.add(equipmentId);
+			}
+		});
+		return refused;
+	}
+
+	/**
+	 * Applies a new total stock, keeping the borrowed count.
+	 *
+	 * @return {@code false} if more than {@code totalQuantity} units are borrowed
+	 */
+	boolean resize(Long equipmentId, int totalQuantity);
+
+	/** Starts tracking a newly created item. */
+	void track(Equipment equipment);
+
+	/** Stops tracking a deleted item. */
+	void forget(Long equipmentId);
+
+	/**
+	 * Returns the item with its current counters. May be the same instance when
+	 * the database is already the source of truth.
+	 */
+	Equipment withLiveCounts(Equipment equipment);
+
+	/**
+	 * Live available units of one item, given the value read from the database
+	 * alongside it. Costs no extra query.
+	 */
+	int available(Long equipmentId, int persistedAvailable);
+
+	/** Live available units of one item (0 if unknown). */
+	int available(Long equipmentId);
+
+	/** Live borrowed units of one item (0 if unknown). */
+	int borrowed(Long equipmentId);
+
+	/** Sum of available units across the whole catalog. */
+	long totalAvailable();
+}
@@ -0,0 +1,110 @@
+package com.school.lending.service;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.school.lending.model.Equipment;
+import com.school.lending.repository.EquipmentRepository;
+
+/**
+ * Default ledger: the equipment row is the only copy of the counters and each
+ * movement is a single conditional UPDATE. Must be called inside a transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "lending.inventory.mode", havingValue = "jpa", matchIfMissing = true)
+public class JpaInventoryLedger implements InventoryLedger {
+
+	// Same guards as EquipmentRepository.debitStock/creditStock, for a signed quantity
+	private static final String MOVE_SQL = "UPDATE equipment SET available_quantity = available_quantity + ?, "
+			+ "borrowed_count = borrowed_count - ? WHERE equipment_id = ? AND available_quantity + ? >= 0 "
+			+ "AND borrowed_count - ? >= 0";
+
+	private final EquipmentRepository equipmentRepository;
+	private final JdbcTemplate jdbcTemplate;
+
+	public JpaInventoryLedger(EquipmentRepository equipmentRepository, JdbcTemplate jdbcTemplate) {
+		this.equipmentRepository = equipmentRepository;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public boolean debit(Long equipmentId, int quantity) {
+		return equipmentRepository.debitStock(equipmentId, quantity) > 0;
+	}
+
+	@Override
+	public boolean credit(Long equipmentId, int quantity) {
+		return equipmentRepository.creditStock(equipmentId, quantity) > 0;
+	}
+
+	// All movements in one JDBC batch, i.e. one round trip
+	@Override
+	public Set<Long> moveAll(Map<Long, Integer> quantities) {
+		List<Long> ids = new ArrayList<>();
+		List<Object[]> rows = new ArrayList<>();
+		quantities.forEach((equipmentId, quantity) -> {
+			if (quantity != 0) {
+				ids.add(equipmentId);
+				rows.add(new Object[] { quantity, quantity, equipmentId, quantity, quantity });
+			}
+		});
+		Set<Long> refused = new HashSet<>();
+		if (rows.isEmpty()) {
+			return refused;
+		}
+		int[] updated = jdbcTemplate.batchUpdate(MOVE_SQL, rows);
+		for (int i = 0; i < updated.length; i++) {
+			if (updated[i] == 0 || updated[i] == Statement.EXECUTE_FAILED) {
+				refused.add(ids.get(i));
+			}
+		}
+		return refused;
+	}
+
+	@Override
+	public boolean resize(Long equipmentId, int totalQuantity) {
+		// Already enforced by EquipmentRepository.updateDetails
+		return true;
+	}
+
+	@Override
+	public void track(Equipment equipment) {
+	}
+
+	@Override
+	public void forget(Long equipmentId) {
+	}
+
+	@Override
+	public Equipment withLiveCounts(Equipment equipment) {
+		return equipment;
+	}
+
+	@Override
+	public int available(Long equipmentId, int persistedAvailable) {
+		return persistedAvailable;
+	}
+
+	@Override
+	public int available(Long equipmentId) {
+		return equipmentRepository.findAvailableQuantityById(equipmentId).orElse(0);
+	}
+
+	@Override
+	public int borrowed(Long equipmentId) {
+		return equipmentRepository.findBorrowedCountById(equipmentId).orElse(0);
+	}
+
+	@Override
+	public long totalAvailable() {
+		return equipmentRepository.sumAvailableQuantity().orElse(0L);
+	}
+}
@@ -1,8 +1,11 @@
 package com.school.lending.service;
 
+import java.time.Clock;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -25,20 +28,38 @@ import com.school.lending.exception.AuthenticationException;
 @Service
 public class KeycloakUserService {
 
-	private String keycloakServerUrl = "http://localhost:8081/";
+	private final String keycloakServerUrl;
 
-	private String realm = "school";
+	private final String realm;
 
-	@Value("${spring.security.oauth2.client.registration.keycloak.client-id}")
-	private String clientId;
+	private final String clientId;
 
-	@Value("${spring.security.oauth2.client.registration.keycloak.client-secret}")
-	private String clientSecret;
+	private final String clientSecret;
 
 	private final ObjectMapper objectMapper;
 
-	public KeycloakUserService(ObjectMapper objectMapper) {
+	// Shared and pooled (see KeycloakClientConfig); never create a RestTemplate per call
+	private final RestTemplate restTemplate;
+
+	private final AdminTokenHolder adminToken;
+
+	// Realm role name -> Keycloak role id
+	private final Map<String, String> roleIds = new ConcurrentHashMap<>();
+
+	public KeycloakUserService(ObjectMapper objectMapper, RestTemplate keycloakRestTemplate,
+			@Value("${lending.keycloak.server-url:http://localhost:8081}") String keycloakServerUrl,
+			@Value("${lending.keycloak.realm:school}") String realm,
+			@Value("${spring.security.oauth2.client.registration.keycloak.client-id}") String clientId,
+			@Value("${spring.security.oauth2.client.registration.keycloak.client-secret}") String clientSecret) {
 		this.objectMapper = objectMapper;
+		this.restTemplate = keycloakRestTemplate;
+		this.keycloakServerUrl = keycloakServerUrl.endsWith("/")
+				? keycloakServerUrl.substring(0, keycloakServerUrl.length() - 1)
+				: keycloakServerUrl;
+		this.realm = realm;
+		this.clientId = clientId;
+		this.clientSecret = clientSecret;
+		this.adminToken = new AdminTokenHolder(this::requestAdminToken, Clock.systemUTC());
 	}
 
 	public Map<String, Object> getToken(String username, String password) {
@@ -46,7 +67,6 @@ public class KeycloakUserService {
 
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-		RestTemplate restTemplate = new RestTemplate();
 		MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
 		formData.add("client_id", clientId);
 		formData.add("client_secret", clientSecret);
@@ -91,7 +111,15 @@ public class KeycloakUserService {
 		}
 	}
 
+	/**
+	 * Admin API access token, cached until shortly before it expires (see
+	 * AdminTokenHolder).
+	 */
 	public String getAdminToken() {
+		return adminToken.get();
+	}
+
+	private Map<String, Object> requestAdminToken() {
 		String tokenUrl = keycloakServerUrl + "/realms/" + realm + "/protocol/openid-connect/token";
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -104,32 +132,33 @@ public class KeycloakUserService {
 //		formData.add("password", "admin");
 
 		HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(formData, headers);
-		RestTemplate restTemplate = new RestTemplate();
 		ResponseEntity<Map> response = restTemplate.exchange(tokenUrl, HttpMethod.POST, entity, Map.class);
-		Map<String, Object> responseBody;
-		if (response.getStatusCode().is2xxSuccessful()) {
-			// Safe to return the map if the response is successful
-			responseBody = response.getBody();
-		} else {
+		if (!response.getStatusCode().is2xxSuccessful()) {
 			// Provide better error logging/handling
 			throw new RuntimeException("Failed to get token from Keycloak. Status: " + response.getStatusCode());
 		}
+		// AdminTokenHolder reads access_token and expires_in from the body
+		return response.getBody();
+	}
 
-		if (responseBody != null && responseBody.containsKey("access_token")) {
-
-			// 2. Access the "access_token" key and cast its value to a String
-			String accessToken = (String) responseBody.get("access_token");
-
-			return accessToken;
+	/**
+	 * Keycloak id of a realm role. Role ids practically never change, so they
+	 * are looked up once per role name and cached.
+	 */
+	public String getStudentRoleId(String adminToken, String role) {
+		String roleId = roleIds.get(role);
+		if (roleId != null) {
+			return roleId;
 		}
-
-		// Handle the case where the token is missing or the body is empty
-		throw new RuntimeException("Keycloak response body is missing or 'access_token' not found.");
+		// Looked up outside the map: computeIfAbsent would hold the bin lock for the whole
+		// HTTP call. Concurrent misses may both ask Keycloak; the first answer is kept
+		String fetched = requestRoleId(adminToken, role);
+		String raced = roleIds.putIfAbsent(role, fetched);
+		return raced != null ? raced : fetched;
 	}
 
-	public String getStudentRoleId(String adminToken, String role) {
+	private String requestRoleId(String adminToken, String role) {
 		String roleUrl = keycloakServerUrl + "/admin/realms/" + realm + "/roles/" + role;
-		RestTemplate restTemplate = new RestTemplate();
 		// 1. Setup headers with Bearer Auth
 		HttpHeaders headers = new HttpHeaders();
 		headers.setBearerAuth(adminToken);
@@ -154,6 +183,8 @@ public class KeycloakUserService {
 						"Failed to get 'student' role from Keycloak. Status: " + response.getStatusCode());
 			}
 
+		} catch (HttpClientErrorException.Unauthorized e) {
+			throw e; // let asAdmin() retry with a fresh admin token
 		} catch (HttpClientErrorException e) {
 			// 4. Handle 404 Not Found specifically (Role does not exist)
 			if (e.getStatusCode().value() == 404) {
@@ -165,16 +196,29 @@ public class KeycloakUserService {
 		}
 	}
 
+	/**
+	 * Runs an Admin API call with the cached admin token. If Keycloak rejects
+	 * the token (revoked, or the realm keys were rotated) it is dropped and the
+	 * call is retried once with a fresh one.
+	 */
+	private <T> T asAdmin(Function<String, T> call) {
+		String token = adminToken.get();
+		try {
+			return call.apply(token);
+		} catch (HttpClientErrorException.Unauthorized e) {
+			adminToken.invalidate(token);
+			return call.apply(adminToken.get());
+		}
+	}
+
 	// Inside KeycloakAuthService
-	public void createUserAndAssignDefaultRole(RegisterRequest request) {
-		String adminToken = getAdminToken();
-		String studentRoleId = getStudentRoleId(adminToken, request.role()); // Get the role ID once
+	// 💡 With the admin token and role id cached, a registration costs two Keycloak
+	// calls: create the user, then map the role.
+	// Returns the Keycloak id of the new user.
+	public String createUserAndAssignDefaultRole(RegisterRequest request) {
+		String studentRoleId = asAdmin(token -> getStudentRoleId(token, request.role()));
 		String userCreationUrl = keycloakServerUrl + "/admin/realms/" + realm + "/users";
 
-		HttpHeaders headers = new HttpHeaders();
-		headers.setBearerAuth(adminToken);
-		headers.setContentType(MediaType.APPLICATION_JSON);
-
 		// 1. Create the Credentials object (Password)
 		Map<String, Object> credential = new HashMap<>();
 		credential.put("type", "password");
@@ -191,10 +235,8 @@ public class KeycloakUserService {
 		userRepresentation.put("enabled", true);
 		userRepresentation.put("credentials", List.of(credential));
 
-		HttpEntity<Map<String, Object>> entity = new HttpEntity<>(userRepresentation, headers);
-
-		ResponseEntity<Void> response = new RestTemplate().exchange(userCreationUrl, HttpMethod.POST, entity,
-				Void.class);
+		ResponseEntity<Void> response = asAdmin(token -> restTemplate.exchange(userCreationUrl, HttpMethod.POST,
+				new HttpEntity<>(userRepresentation, adminJsonHeaders(token)), Void.class));
 
 		if (!response.getStatusCode().is2xxSuccessful()) {
 			throw new RuntimeException("Keycloak user creation failed.");
@@ -208,16 +250,53 @@ public class KeycloakUserService {
 		String roleMappingUrl = keycloakServerUrl + "/admin/realms/" + realm + "/users/" + userId
 				+ "/role-mappings/realm";
 
-		// Keycloak expects a list containing the role object
-		List<Map<String, String>> roleMappingBody = List.of(Map.of("id", studentRoleId, "name", request.role()));
+		try {
+			try {
+				assignRole(roleMappingUrl, studentRoleId, request.role());
+			} catch (HttpClientErrorException.NotFound e) {
+				// The cached id belongs to a role that was deleted and re-created: look it up again
+				roleIds.remove(request.role(), studentRoleId);
+				assignRole(roleMappingUrl, asAdmin(token -> getStudentRoleId(token, request.role())),
+						request.role());
+			}
+		} catch (RuntimeException e) {
+			// Don't leave a user without a role behind; the registration can simply be retried
+			try {
+				deleteUser(userId);
+			} catch (RuntimeException cleanup) {
+				e.addSuppressed(cleanup);
+			}
+			throw e;
+		}
+		return userId;
+	}
 
-		HttpHeaders headers_role = new HttpHeaders();
-		headers_role.setBearerAuth(adminToken);
-		headers_role.setContentType(MediaType.APPLICATION_JSON);
-		HttpEntity<List<Map<String, String>>> roleEntity = new HttpEntity<>(roleMappingBody, headers_role);
+	/**
+	 * Deletes a Keycloak user, e.g. to undo a registration whose local insert
+	 * failed. A user that is already gone counts as deleted.
+	 */
+	public void deleteUser(String userId) {
+		String userUrl = keycloakServerUrl + "/admin/realms/" + realm + "/users/" + userId;
+		try {
+			asAdmin(token -> restTemplate.exchange(userUrl, HttpMethod.DELETE,
+					new HttpEntity<>(adminJsonHeaders(token)), Void.class));
+		} catch (HttpClientErrorException.NotFound ignored) {
+			// nothing to undo
+		}
+	}
 
-		new RestTemplate().exchange(roleMappingUrl, HttpMethod.POST, roleEntity, Void.class);
-		// You must handle any failure here too!
+	private void assignRole(String roleMappingUrl, String roleId, String roleName) {
+		// Keycloak expects a list containing the role object
+		List<Map<String, String>> roleMappingBody = List.of(Map.of("id", roleId, "name", roleName));
+		asAdmin(token -> restTemplate.exchange(roleMappingUrl, HttpMethod.POST,
+				new HttpEntity<>(roleMappingBody, adminJsonHeaders(token)), Void.class));
+	}
+
+	private static HttpHeaders adminJsonHeaders(String adminToken) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(adminToken);
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		return headers;
 	}
 
 	// KeycloakUserService.java
@@ -227,7 +306,6 @@ public class KeycloakUserService {
 	 */
 	public Map<String, Object> refreshToken(String refreshToken) {
 		String tokenUrl = keycloakServerUrl + "/realms/" + realm + "/protocol/openid-connect/token";
-		RestTemplate restTemplate = new RestTemplate();
 
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -0,0 +1,250 @@
+package com.school.lending.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.school.lending.dto.ActiveLoan;
+import com.school.lending.event.BorrowRequestStatusChangedEvent;
+import com.school.lending.event.LoanDueEvent;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.repository.BorrowRequestRepository;
+
+/**
+ * Keeps track of the loans out (APPROVED requests) and notices when one
+ * passes its end date, so overdue detection never scans borrow_requests.
+ *
+ * Due dates sit in two hashed timing wheels with one-day ticks, one for
+ * reminders and one for deadlines: a loan's timer goes into slot
+ * {@code epochDay mod SLOTS}, so scheduling and cancelling are a map put and
+ * remove, and expiring a day reads a single slot (timers a whole lap or more
+ * ahead share it and are left in place). Every {@code tick-interval-ms} the
+ * tracker checks the date; when it has changed it expires each day passed,
+ * publishing a LoanDueEvent per reminder or newly overdue loan and moving
+ * overdue loans to a list ordered by end date.
+ *
+ * Loaded at startup with one indexed query and kept in step with committed
+ * BorrowRequestStatusChangedEvents: an approval schedules the loan, a return
+ * (or anything else leaving APPROVED) cancels it. Events are published only
+ * as days pass while the application runs; loans found already overdue at
+ * startup or on a late approval are listed without one.
+ */
+@Component
+public class OverdueTracker implements SmartInitializingSingleton {
+
+	// Wheel size in days; longer than almost every loan, so a slot rarely holds later laps
+	private static final int SLOTS = 256;
+
+	private static final Comparator<ActiveLoan> BY_END_DATE = Comparator.comparing(ActiveLoan::endDate)
+			.thenComparing(ActiveLoan::requestId);
+
+	// Timers keyed by request id, in slots by the epoch day they fire on
+	private static final class Wheel {
+		private final List<Map<Long, ActiveLoan>> slots = new ArrayList<>(SLOTS);
+		private final ToLongFunction<ActiveLoan> dayOf;
+
+		Wheel(ToLongFunction<ActiveLoan> dayOf) {
+			this.dayOf = dayOf;
+			for (int i = 0; i < SLOTS; i++) {
+				slots.add(new HashMap<>());
+			}
+		}
+
+		long dayOf(ActiveLoan loan) {
+			return dayOf.applyAsLong(loan);
+		}
+
+		void add(ActiveLoan loan) {
+			slot(dayOf(loan)).put(loan.requestId(), loan);
+		}
+
+		void remove(ActiveLoan loan) {
+			slot(dayOf(loan)).remove(loan.requestId());
+		}
+
+		// Takes out and returns the timers firing on the given day
+		List<ActiveLoan> expire(long day) {
+			List<ActiveLoan> due = new ArrayList<>();
+			for (Iterator<ActiveLoan> it = slot(day).values().iterator(); it.hasNext();) {
+				ActiveLoan loan = it.next();
+				if (dayOf(loan) == day) {
+					due.add(loan);
+					it.remove();
+				}
+			}
+			due.sort(BY_END_DATE);
+			return due;
+		}
+
+		void clear() {
+			slots.forEach(Map::clear);
+		}
+
+		private Map<Long, ActiveLoan> slot(long day) {
+			return slots.get(Math.floorMod(day, SLOTS));
+		}
+	}
+
+	private final BorrowRequestRepository borrowRequestRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final Clock clock;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Guarded by lock
+	private final Map<Long, ActiveLoan> loans = new HashMap<>();
+	private final Wheel reminders;
+	private final Wheel deadlines = new Wheel(loan -> loan.endDate().toEpochDay() + 1);
+	private final NavigableSet<ActiveLoan> overdue = new TreeSet<>(BY_END_DATE);
+	// Last day expired (epoch day)
+	private long today;
+
+	@Autowired
+	public OverdueTracker(BorrowRequestRepository borrowRequestRepository, ApplicationEventPublisher eventPublisher,
+			@Value("${lending.overdue.reminder-days:1}") int reminderDays) {
+		this(borrowRequestRepository, eventPublisher, reminderDays, Clock.systemDefaultZone());
+	}
+
+	OverdueTracker(BorrowRequestRepository borrowRequestRepository, ApplicationEventPublisher eventPublisher,
+			int reminderDays, Clock clock) {
+		this.borrowRequestRepository = borrowRequestRepository;
+		this.eventPublisher = eventPublisher;
+		this.clock = clock;
+		this.reminders = new Wheel(loan -> loan.endDate().toEpochDay() - reminderDays);
+		this.today = LocalDate.now(clock).toEpochDay();
+	}
+
+	// Runs before the web server starts, so no request can race the load
+	@Override
+	public void afterSingletonsInstantiated() {
+		load();
+	}
+
+	void load() {
+		// Read under the lock: a change committed meanwhile is applied after, not lost
+		lock.lock();
+		try {
+			loans.clear();
+			reminders.clear();
+			deadlines.clear();
+			overdue.clear();
+			today = LocalDate.now(clock).toEpochDay();
+			for (ActiveLoan loan : borrowRequestRepository.findActiveLoans()) {
+				track(loan);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Expires the days passed since the last tick and publishes their
+	 * reminders and overdue notices. Does nothing until the date changes.
+	 */
+	@Scheduled(fixedDelayString = "${lending.overdue.tick-interval-ms:60000}")
+	public void tick() {
+		List<LoanDueEvent> fired = new ArrayList<>();
+		lock.lock();
+		try {
+			long now = LocalDate.now(clock).toEpochDay();
+			while (today < now) {
+				today++;
+				for (ActiveLoan loan : reminders.expire(today)) {
+					fired.add(event(LoanDueEvent.Type.REMINDER, loan));
+				}
+				for (ActiveLoan loan : deadlines.expire(today)) {
+					overdue.add(loan);
+					fired.add(event(LoanDueEvent.Type.OVERDUE, loan));
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		// Outside the lock: listeners may take their time or call back in
+		fired.forEach(eventPublisher::publishEvent);
+	}
+
+	/** Loans past their end date and not returned, earliest end date first. */
+	public List<ActiveLoan> overdueLoans() {
+		lock.lock();
+		try {
+			return List.copyOf(overdue);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int overdueCount() {
+		lock.lock();
+		try {
+			return overdue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStatusChanged(BorrowRequestStatusChangedEvent event) {
+		if (event.to() != RequestStatus.APPROVED && event.from() != RequestStatus.APPROVED) {
+			return;
+		}
+		lock.lock();
+		try {
+			if (event.to() == RequestStatus.APPROVED) {
+				track(new ActiveLoan(event.requestId(), event.userId(), event.equipmentId(), event.quantity(),
+						event.startDate(), event.endDate()));
+			} else {
+				ActiveLoan loan = loans.remove(event.requestId());
+				if (loan != null) {
+					untrack(loan);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Schedules a loan, or reschedules it if already known. Days up to today are past:
+	// their timers have fired, so the loan is overdue already or gets no reminder
+	private void track(ActiveLoan loan) {
+		ActiveLoan previous = loans.put(loan.requestId(), loan);
+		if (previous != null) {
+			untrack(previous);
+		}
+		if (deadlines.dayOf(loan) <= today) {
+			overdue.add(loan);
+			return;
+		}
+		deadlines.add(loan);
+		if (reminders.dayOf(loan) > today) {
+			reminders.add(loan);
+		}
+	}
+
+	private void untrack(ActiveLoan loan) {
+		reminders.remove(loan);
+		deadlines.remove(loan);
+		overdue.remove(loan);
+	}
+
+	private static LoanDueEvent event(LoanDueEvent.Type type, ActiveLoan loan) {
+		return new LoanDueEvent(type, loan.requestId(), loan.equipmentId(), loan.userId(), loan.quantity(),
+				loan.endDate());
+	}
+}
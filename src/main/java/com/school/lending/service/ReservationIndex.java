@@ -0,0 +1,156 @@
+package com.school.lending.service;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.school.lending.dto.BookingSlot;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.repository.BorrowRequestRepository;
+
+/**
+ * In-memory index of booked units per equipment and day.
+ *
+ * Every PENDING or APPROVED borrow request holds its units over [startDate,
+ * endDate). The index answers "how many units are booked at peak over a date
+ * range" in logarithmic time, so availability checks never scan
+ * borrow_requests. It is loaded once at startup and kept in step by
+ * {@link BorrowRequestService} and {@link EquipmentService}.
+ *
+ * Each timeline is guarded by its own {@link ReentrantLock} instead of its
+ * monitor, so request threads queueing on a popular item park without pinning
+ * their carrier when running on virtual threads.
+ */
+@Component
+public class ReservationIndex implements SmartInitializingSingleton {
+
+	/** Statuses whose units count as booked. */
+	public static final Set<RequestStatus> ACTIVE_STATUSES = EnumSet.of(RequestStatus.PENDING,
+			RequestStatus.APPROVED);
+
+	private final BorrowRequestRepository borrowRequestRepository;
+	private final Map<Long, Guarded> timelines = new ConcurrentHashMap<>();
+
+	private record Guarded(BookingTimeline timeline, ReentrantLock lock) {
+	}
+
+	public ReservationIndex(BorrowRequestRepository borrowRequestRepository) {
+		this.borrowRequestRepository = borrowRequestRepository;
+	}
+
+	// Runs before the web server starts, so no request can race the load
+	@Override
+	public void afterSingletonsInstantiated() {
+		load();
+	}
+
+	void load() {
+		timelines.clear();
+		for (BookingSlot slot : borrowRequestRepository.findBookingSlotsByStatusIn(ACTIVE_STATUSES)) {
+			Guarded guarded = timeline(slot.equipmentId());
+			guarded.lock().lock();
+			try {
+				guarded.timeline().add(slot.startDate(), slot.endDate(), slot.requestedQuantity());
+			} finally {
+				guarded.lock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Peak number of units booked on any day in [start, end).
+	 */
+	public int peakBooked(Long equipmentId, LocalDate start, LocalDate end) {
+		Guarded guarded = timelines.get(equipmentId);
+		if (guarded == null) {
+			return 0;
+		}
+		guarded.lock().lock();
+		try {
+			return guarded.timeline().peak(start, end);
+		} finally {
+			guarded.lock().unlock();
+		}
+	}
+
+	/**
+	 * Books {@code quantity} units over [start, end) if that keeps every day
+	 * within {@code capacity}. The check and the booking are atomic per
+	 * equipment. When called inside a transaction the booking is undone if the
+	 * transaction rolls back.
+	 *
+	 * @return {@code true} if the units were booked
+	 */
+	public boolean reserve(Long equipmentId, LocalDate start, LocalDate end, int quantity, int capacity) {
+		Guarded guarded = timeline(equipmentId);
+		guarded.lock().lock();
+		try {
+			if (guarded.timeline().peak(start, end) + quantity > capacity) {
+				return false;
+			}
+			guarded.timeline().add(start, end, quantity);
+		} finally {
+			guarded.lock().unlock();
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						release(equipmentId, start, end, quantity);
+					}
+				}
+			});
+		}
+		return true;
+	}
+
+	/**
+	 * Frees units booked over [start, end). Inside a transaction the release is
+	 * deferred until commit, so a rolled-back status change keeps its booking.
+	 */
+	public void releaseAfterCommit(Long equipmentId, LocalDate start, LocalDate end, int quantity) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					release(equipmentId, start, end, quantity);
+				}
+			});
+		} else {
+			release(equipmentId, start, end, quantity);
+		}
+	}
+
+	/**
+	 * Drops every booking held for a deleted equipment item.
+	 */
+	public void evict(Long equipmentId) {
+		timelines.remove(equipmentId);
+	}
+
+	private void release(Long equipmentId, LocalDate start, LocalDate end, int quantity) {
+		Guarded guarded = timelines.get(equipmentId);
+		if (guarded == null) {
+			return;
+		}
+		guarded.lock().lock();
+		try {
+			guarded.timeline().add(start, end, -quantity);
+		} finally {
+			guarded.lock().unlock();
+		}
+	}
+
+	private Guarded timeline(Long equipmentId) {
+		return timelines.computeIfAbsent(equipmentId, id -> new Guarded(new BookingTimeline(), new ReentrantLock()));
+	}
+}
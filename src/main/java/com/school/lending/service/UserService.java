@@ -1,8 +1,14 @@
 package com.school.lending.service;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.school.lending.dto.RegisterRequest;
 import com.school.lending.model.Role;
@@ -18,6 +24,33 @@ public class UserService {
 	}
 
 	public User registerUserLocally(RegisterRequest request) {
+		return userRepository.save(toUser(request));
+	}
+
+	/**
+	 * Inserts a batch of users in one transaction: either all rows are stored
+	 * or none are.
+	 */
+	@Transactional
+	public List<User> registerUsersLocally(List<RegisterRequest> requests) {
+		return userRepository.saveAll(requests.stream().map(UserService::toUser).toList());
+	}
+
+	/**
+	 * Which of the given emails already belong to a local user, ignoring case.
+	 * The result holds the addresses in lower case.
+	 */
+	public Set<String> findRegisteredEmails(Collection<String> emails) {
+		Set<String> registered = new HashSet<>();
+		List<String> pending = emails.stream().map(email -> email.toLowerCase(Locale.ROOT)).distinct().toList();
+		// Keep the IN lists a reasonable size
+		for (int from = 0; from < pending.size(); from += 1000) {
+			registered.addAll(userRepository.findLowerCaseEmailsIn(pending.subList(from, Math.min(pending.size(), from + 1000))));
+		}
+		return registered;
+	}
+
+	private static User toUser(RegisterRequest request) {
 		User newUser = new User();
 		newUser.setFirstName(request.firstName());
 		newUser.setLastName(request.lastName());
@@ -29,7 +62,7 @@ public class UserService {
 			// Handle case where the request.role() string doesn't match any enum constant
 			throw new IllegalArgumentException("Invalid role specified: " + request.role());
 		}
-		return userRepository.save(newUser);
+		return newUser;
 	}
 
 	public Optional<User> getUserById(Long userId) {
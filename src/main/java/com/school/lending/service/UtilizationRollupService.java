@@ -0,0 +1,255 @@
+package com.school.lending.service;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.school.lending.dto.DateSpan;
+import com.school.lending.dto.RequestChange;
+import com.school.lending.dto.UtilizationPointDto;
+import com.school.lending.dto.UtilizationSource;
+import com.school.lending.event.BorrowRequestStatusChangedEvent;
+import com.school.lending.exception.InvalidInputException;
+import com.school.lending.model.DailyCategoryUtilization;
+import com.school.lending.model.DailyUtilization;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.RollupWatermark;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.DailyCategoryUtilizationRepository;
+import com.school.lending.repository.DailyUtilizationRepository;
+import com.school.lending.repository.RollupWatermarkRepository;
+
+/**
+ * Maintains the daily_utilization rollup (one row per equipment item and day)
+ * and its per-category sums in daily_category_utilization, and answers
+ * time-series queries from them.
+ *
+ * The refresh is incremental: it reads only the borrow requests whose
+ * updatedAt is past the stored high-water mark and recomputes just the days
+ * those requests touch. The mark is re-read with a small look-back so changes
+ * committed late by slower transactions are not skipped. Deleted requests leave
+ * no row to find, so their days are queued from the delete event instead.
+ */
+@Service
+public class UtilizationRollupService {
+
+	private static final Logger log = LoggerFactory.getLogger(UtilizationRollupService.class);
+
+	static final String WATERMARK = "daily_utilization";
+	// Days recomputed per pass, bounds the memory of one rebuild
+	private static final int CHUNK_DAYS = 31;
+	private static final int MAX_SERIES_DAYS = 3 * 366;
+	private static final String INSERT_SQL = "INSERT INTO daily_utilization (usage_date, equipment_id, category, "
+			+ "units_out, requests_created, requests_approved, requests_rejected) VALUES (?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_CATEGORY_SQL = "INSERT INTO daily_category_utilization (usage_date, category, "
+			+ "units_out, requests_created, requests_approved, requests_rejected) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private final BorrowRequestRepository borrowRequestRepository;
+	private final DailyUtilizationRepository dailyUtilizationRepository;
+	private final DailyCategoryUtilizationRepository dailyCategoryUtilizationRepository;
+	private final RollupWatermarkRepository rollupWatermarkRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final Duration lookback;
+
+	private final Queue<DateSpan> pendingSpans = new ConcurrentLinkedQueue<>();
+
+	public UtilizationRollupService(BorrowRequestRepository borrowRequestRepository,
+			DailyUtilizationRepository dailyUtilizationRepository,
+			DailyCategoryUtilizationRepository dailyCategoryUtilizationRepository,
+			RollupWatermarkRepository rollupWatermarkRepository, JdbcTemplate jdbcTemplate, @Value("${lending.analytics.rollup.lookback-ms:300000}") long lookbackMs) {
+		this.borrowRequestRepository = borrowRequestRepository;
+		this.dailyUtilizationRepository = dailyUtilizationRepository;
+		this.dailyCategoryUtilizationRepository = dailyCategoryUtilizationRepository;
+		this.rollupWatermarkRepository = rollupWatermarkRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.lookback = Duration.ofMillis(lookbackMs);
+	}
+
+	/**
+	 * Daily series for [from, to] (defaults: the year ending today), for one
+	 * equipment item, one category, or everything when both are null. Days
+	 * without any activity are omitted.
+	 */
+	@Transactional(readOnly = true)
+	public List<UtilizationPointDto> getSeries(LocalDate from, LocalDate to, Long equipmentId, String category) {
+		LocalDate last = to != null ? to : LocalDate.now();
+		LocalDate first = from != null ? from : last.minusYears(1).plusDays(1);
+		if (first.isAfter(last)) {
+			throw new InvalidInputException("'from' (" + first + ") must not be after 'to' (" + last + ").");
+		}
+		if (ChronoUnit.DAYS.between(first, last) >= MAX_SERIES_DAYS) {
+			throw new InvalidInputException("A time series may cover at most " + MAX_SERIES_DAYS + " days.");
+		}
+		if (equipmentId != null) {
+			return dailyUtilizationRepository.findEquipmentSeries(equipmentId, first, last);
+		}
+		if (category != null) {
+			return dailyCategoryUtilizationRepository.findCategorySeries(category, first, last);
+		}
+		return dailyCategoryUtilizationRepository.findTotalSeries(first, last);
+	}
+
+	@Scheduled(initialDelayString = "${lending.analytics.rollup.refresh-interval-ms:60000}",
+			fixedDelayString = "${lending.analytics.rollup.refresh-interval-ms:60000}")
+	@Transactional
+	public void refresh() {
+		List<DateSpan> dirty = new ArrayList<>();
+		DateSpan queued;
+		while ((queued = pendingSpans.poll()) != null) {
+			dirty.add(queued);
+		}
+		List<DateSpan> drained = List.copyOf(dirty);
+		try {
+			Instant highWater = collectChanges(dirty);
+			long days = 0;
+			for (DateSpan span : merge(dirty)) {
+				for (LocalDate from = span.first(); !from.isAfter(span.last()); from = from.plusDays(CHUNK_DAYS)) {
+					LocalDate to = from.plusDays(CHUNK_DAYS - 1);
+					rebuild(from, to.isAfter(span.last()) ? span.last() : to);
+				}
+				days += ChronoUnit.DAYS.between(span.first(), span.last()) + 1;
+			}
+			rollupWatermarkRepository.save(new RollupWatermark(WATERMARK, highWater));
+			if (days > 0) {
+				log.debug("Utilization rollup recomputed {} day(s), high-water mark {}", days, highWater);
+			}
+		} catch (RuntimeException e) {
+			// Don't lose the days queued by delete events; the next run retries them
+			pendingSpans.addAll(drained);
+			throw e;
+		}
+	}
+
+	// Adds the day ranges changed since the mark to dirty and returns the new mark
+	private Instant collectChanges(List<DateSpan> dirty) {
+		RollupWatermark mark = rollupWatermarkRepository.findById(WATERMARK).orElse(null);
+		if (mark == null) {
+			// First run: build the whole history once
+			Instant startedAt = Instant.now();
+			DateSpan all = borrowRequestRepository.findActivitySpan();
+			if (all != null && all.first() != null) {
+				dirty.add(all);
+			}
+			return startedAt;
+		}
+		Instant highWater = mark.getHighWater();
+		for (RequestChange change : borrowRequestRepository.findChangedSince(highWater.minus(lookback))) {
+			dirty.add(new DateSpan(change.requestDate(), change.requestDate()));
+			dirty.add(new DateSpan(change.startDate(), change.endDate().minusDays(1)));
+			if (change.updatedAt().isAfter(highWater)) {
+				highWater = change.updatedAt();
+			}
+		}
+		return highWater;
+	}
+
+	// Recomputes every row of the days [from, to] from the borrow requests
+	private void rebuild(LocalDate from, LocalDate to) {
+		Map<DailyUtilization.Key, DailyUtilization> rows = new HashMap<>();
+		for (UtilizationSource source : borrowRequestRepository.findUtilizationSources(from, to)) {
+			boolean approved = source.status() == RequestStatus.APPROVED || source.status() == RequestStatus.RETURNED;
+			if (!source.requestDate().isBefore(from) && !source.requestDate().isAfter(to)) {
+				DailyUtilization row = row(rows, source.requestDate(), source);
+				row.setRequestsCreated(row.getRequestsCreated() + 1);
+				if (approved) {
+					row.setRequestsApproved(row.getRequestsApproved() + 1);
+				} else if (source.status() == RequestStatus.REJECTED) {
+					row.setRequestsRejected(row.getRequestsRejected() + 1);
+				}
+			}
+			if (approved) {
+				LocalDate first = source.startDate().isBefore(from) ? from : source.startDate();
+				LocalDate lastOut = source.endDate().minusDays(1);
+				LocalDate last = lastOut.isAfter(to) ? to : lastOut;
+				for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+					DailyUtilization row = row(rows, day, source);
+					row.setUnitsOut(row.getUnitsOut() + source.requestedQuantity());
+				}
+			}
+		}
+		Map<DailyCategoryUtilization.Key, DailyCategoryUtilization> categoryRows = new HashMap<>();
+		for (DailyUtilization row : rows.values()) {
+			DailyCategoryUtilization sum = categoryRows.computeIfAbsent(
+					new DailyCategoryUtilization.Key(row.getCategory(), row.getUsageDate()),
+					key -> DailyCategoryUtilization.builder().category(key.getCategory())
+							.usageDate(key.getUsageDate()).build());
+			sum.setUnitsOut(sum.getUnitsOut() + row.getUnitsOut());
+			sum.setRequestsCreated(sum.getRequestsCreated() + row.getRequestsCreated());
+			sum.setRequestsApproved(sum.getRequestsApproved() + row.getRequestsApproved());
+			sum.setRequestsRejected(sum.getRequestsRejected() + row.getRequestsRejected());
+		}
+
+		dailyUtilizationRepository.deleteDays(from, to);
+		dailyCategoryUtilizationRepository.deleteDays(from, to);
+		jdbcTemplate.batchUpdate(INSERT_CATEGORY_SQL, categoryRows.values(), 500, (ps, row) -> {
+			ps.setDate(1, Date.valueOf(row.getUsageDate()));
+			ps.setString(2, row.getCategory());
+			ps.setLong(3, row.getUnitsOut());
+			ps.setLong(4, row.getRequestsCreated());
+			ps.setLong(5, row.getRequestsApproved());
+			ps.setLong(6, row.getRequestsRejected());
+		});
+		jdbcTemplate.batchUpdate(INSERT_SQL, rows.values(), 500, (ps, row) -> {
+			ps.setDate(1, Date.valueOf(row.getUsageDate()));
+			ps.setLong(2, row.getEquipmentId());
+			ps.setString(3, row.getCategory());
+			ps.setLong(4, row.getUnitsOut());
+			ps.setLong(5, row.getRequestsCreated());
+			ps.setLong(6, row.getRequestsApproved());
+			ps.setLong(7, row.getRequestsRejected());
+		});
+	}
+
+	private static DailyUtilization row(Map<DailyUtilization.Key, DailyUtilization> rows, LocalDate day,
+			UtilizationSource source) {
+		return rows.computeIfAbsent(new DailyUtilization.Key(day, source.equipmentId()),
+				key -> DailyUtilization.builder().usageDate(day).equipmentId(source.equipmentId())
+						.category(source.category()).build());
+	}
+
+	// Sorts the spans and joins the ones that overlap or touch
+	static List<DateSpan> merge(List<DateSpan> spans) {
+		List<DateSpan> sorted = new ArrayList<>(spans);
+		sorted.removeIf(span -> span.last().isBefore(span.first()));
+		sorted.sort(Comparator.comparing(DateSpan::first));
+		List<DateSpan> merged = new ArrayList<>();
+		for (DateSpan span : sorted) {
+			DateSpan tail = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (tail != null && !span.first().isAfter(tail.last().plusDays(1))) {
+				if (span.last().isAfter(tail.last())) {
+					merged.set(merged.size() - 1, new DateSpan(tail.first(), span.last()));
+				}
+			} else {
+				merged.add(span);
+			}
+		}
+		return merged;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onRequestStatusChanged(BorrowRequestStatusChangedEvent event) {
+		// Inserts and status changes are found through updatedAt; only deletions need queuing
+		if (event.to() == null) {
+			pendingSpans.add(new DateSpan(event.requestDate(), event.requestDate()));
+			pendingSpans.add(new DateSpan(event.startDate(), event.endDate().minusDays(1)));
+		}
+	}
+}
@@ -0,0 +1,40 @@
+-- Schema as Hibernate created it with ddl-auto: update, up to the switch to migrations
+-- (IDENTITY ids, no indexes beyond the keys). Databases created that way are baselined
+-- at this version (spring.flyway.baseline-on-migrate) and start at V2.
+
+create table users (
+    user_id bigint generated by default as identity,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    role varchar(255) check (role in ('STUDENT','STAFF','ADMIN')),
+    primary key (user_id)
+);
+
+create table equipment (
+    available_quantity integer not null,
+    borrowed_count integer not null,
+    condition smallint check (condition between 0 and 4),
+    total_quantity integer not null,
+    equipment_id bigint generated by default as identity,
+    category varchar(255),
+    name varchar(255),
+    primary key (equipment_id)
+);
+
+create table borrow_requests (
+    end_date date not null,
+    request_date date not null,
+    requested_quantity integer not null,
+    start_date date not null,
+    equipment_id bigint not null,
+    request_id bigint generated by default as identity,
+    user_id bigint not null,
+    status varchar(255) not null check (status in ('PENDING','APPROVED','REJECTED','RETURNED')),
+    primary key (request_id)
+);
+
+alter table borrow_requests add constraint FK2kl8amuwp8109dg2306fgm2ek
+    foreign key (equipment_id) references equipment;
+alter table borrow_requests add constraint FKhw6n6naouqvpx1r0lbo211fu6
+    foreign key (user_id) references users;
@@ -0,0 +1,54 @@
+-- Schema changes made by the entities after the baseline. Runs on baselined databases
+-- too, so it starts from the rows already there.
+
+-- Pooled sequence ids (50 per round trip) replace IDENTITY, so inserts can be JDBC-batched.
+-- Each sequence starts past the ids already stored: the pooled optimizer hands out the
+-- 50 ids up to the value it reads, so the first value read must be at least MAX(id) + 50.
+create sequence equipment_seq start with 1 increment by 50;
+create sequence users_seq start with 1 increment by 50;
+create sequence borrow_requests_seq start with 1 increment by 50;
+select setval('equipment_seq', max(equipment_id) + 51, false) from equipment having max(equipment_id) is not null;
+select setval('users_seq', max(user_id) + 51, false) from users having max(user_id) is not null;
+select setval('borrow_requests_seq', max(request_id) + 51, false) from borrow_requests
+    having max(request_id) is not null;
+alter table equipment alter column equipment_id drop identity if exists;
+alter table users alter column user_id drop identity if exists;
+alter table borrow_requests alter column request_id drop identity if exists;
+
+-- Last insert or status change of a request: the high-water mark of the utilization rollup.
+-- Rows from before stay null; the first rollup run reads the whole history anyway
+alter table borrow_requests add column updated_at timestamp(6) with time zone;
+create index idx_borrow_request_updated on borrow_requests (updated_at);
+
+-- Catalog pages of one category in id order
+create index idx_equipment_category on equipment (category, equipment_id);
+
+-- Daily utilization rollup, per equipment item and summed per category
+create table daily_utilization (
+    usage_date date not null,
+    equipment_id bigint not null,
+    requests_approved bigint not null,
+    requests_created bigint not null,
+    requests_rejected bigint not null,
+    units_out bigint not null,
+    category varchar(255),
+    primary key (usage_date, equipment_id)
+);
+create index idx_utilization_equipment on daily_utilization (equipment_id, usage_date);
+
+create table daily_category_utilization (
+    usage_date date not null,
+    requests_approved bigint not null,
+    requests_created bigint not null,
+    requests_rejected bigint not null,
+    units_out bigint not null,
+    category varchar(255) not null,
+    primary key (usage_date, category)
+);
+create index idx_category_utilization_date on daily_category_utilization (usage_date);
+
+create table rollup_watermark (
+    high_water timestamp(6) with time zone,
+    name varchar(255) not null,
+    primary key (name)
+);
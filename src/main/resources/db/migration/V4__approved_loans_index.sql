@@ -0,0 +1,5 @@
+-- Loans out (approved requests) by due date, covering what the overdue tracker loads at
+-- startup (findActiveLoans) so it reads the index alone and never the request history
+create index if not exists idx_borrow_requests_approved_due on borrow_requests (end_date)
+    include (request_id, user_id, equipment_id, requested_quantity, start_date)
+    where status = 'APPROVED';
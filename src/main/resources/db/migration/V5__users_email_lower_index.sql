@@ -0,0 +1,3 @@
+-- Registration checks compare emails ignoring case (findLowerCaseEmailsIn), which
+-- idx_users_email can't serve
+create index if not exists idx_users_email_lower on users (lower(email));
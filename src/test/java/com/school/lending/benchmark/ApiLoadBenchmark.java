@@ -0,0 +1,297 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.lending.SchoolLendingApplication;
+import com.school.lending.dto.RegisterRequest;
+import com.school.lending.model.User;
+import com.school.lending.service.UserService;
+
+/**
+ * End-to-end load test of the REST API, with no Keycloak needed.
+ *
+ * Starts the application on H2 against a {@link KeycloakStub}: users log in
+ * through /api/auth/login and call the API with RS256 tokens that the resource
+ * server checks against the stub's JWKS, as in production. After seeding users
+ * and a catalog, CLIENTS callers send a weighted mix of student, staff and
+ * admin calls for the warm-up and then the measured period, and the run
+ * reports throughput, status classes and latency percentiles per operation.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ApiLoadBenchmark
+ *
+ * Optional system properties: load.clients (32), load.seconds (20),
+ * load.warmupSeconds (5), load.virtualThreads (application default), and
+ * load.mix as name=weight pairs, e.g.
+ * {@code -Dload.mix=browse=50,borrow=50}. Operations: browse (GET
+ * /api/equipment), available (GET /api/equipment/available), myRequests (GET
+ * /api/requests/user/{id}), borrow (POST /api/requests), pending (staff GET
+ * /api/requests?status=PENDING) and summary (admin GET
+ * /api/analytics/summary).
+ */
+@Tag("benchmark")
+class ApiLoadBenchmark {
+
+	private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+	private static final Duration WARM_UP = Duration.ofSeconds(Integer.getInteger("load.warmupSeconds", 5));
+	private static final Duration MEASURED = Duration.ofSeconds(Integer.getInteger("load.seconds", 20));
+	private static final String MIX = System.getProperty("load.mix",
+			"browse=30,available=20,myRequests=15,borrow=10,pending=15,summary=10");
+
+	private static final int STUDENTS = 200;
+	private static final int EQUIPMENT = 500;
+	private static final int CATEGORIES = 10;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private record Session(String token, Long userId) {
+	}
+
+	// One kind of call in the mix; the caller is the client's student, or the shared staff/admin session
+	private interface Operation {
+		HttpRequest build(Session student, ThreadLocalRandom random);
+	}
+
+	// Latencies and status classes of one operation, as seen by one client
+	private static final class Samples {
+		private long[] millis = new long[1024];
+		private int size;
+		private int clientErrors;
+		private int failures;
+
+		void add(long elapsedMillis, int status) {
+			if (size == millis.length) {
+				millis = Arrays.copyOf(millis, size * 2);
+			}
+			millis[size++] = elapsedMillis;
+			if (status >= 500 || status < 0) {
+				failures++;
+			} else if (status >= 400) {
+				clientErrors++;
+			}
+		}
+
+		void addAll(Samples other) {
+			for (int i = 0; i < other.size; i++) {
+				add(other.millis[i], 200);
+			}
+			clientErrors += other.clientErrors;
+			failures += other.failures;
+		}
+	}
+
+	private URI base;
+	private HttpClient http;
+	private Session staff;
+	private Session admin;
+
+	@Test
+	void mixedApiLoad() throws Exception {
+		try (KeycloakStub keycloak = new KeycloakStub(Duration.ZERO);
+				ConfigurableApplicationContext app = start(keycloak);
+				ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			http = HttpClient.newBuilder().executor(clients).build();
+			base = URI.create("http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort());
+			List<Session> students = seed(app, keycloak);
+
+			Map<String, Operation> operations = operations();
+			List<String> weighted = weightedMix(operations.keySet());
+			long warmUpEnds = System.nanoTime() + WARM_UP.toNanos();
+			long ends = warmUpEnds + MEASURED.toNanos();
+			List<Future<Map<String, Samples>>> running = new ArrayList<>();
+			for (int c = 0; c < CLIENTS; c++) {
+				Session student = students.get(c % students.size());
+				running.add(clients.submit(() -> drive(student, operations, weighted, warmUpEnds, ends)));
+			}
+			Map<String, Samples> merged = new LinkedHashMap<>();
+			for (Future<Map<String, Samples>> client : running) {
+				client.get().forEach((name, samples) -> merged.computeIfAbsent(name, key -> new Samples())
+						.addAll(samples));
+			}
+			report(merged);
+			int failures = merged.values().stream().mapToInt(samples -> samples.failures).sum();
+			assertEquals(0, failures, "server errors or failed calls under load");
+		}
+	}
+
+	private ConfigurableApplicationContext start(KeycloakStub keycloak) {
+		List<String> args = new ArrayList<>(keycloak.applicationArgs());
+		args.addAll(List.of("--spring.profiles.active=test", "--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:api-load;DB_CLOSE_DELAY=-1", "--logging.level.root=WARN"));
+		String virtualThreads = System.getProperty("load.virtualThreads");
+		if (virtualThreads != null) {
+			args.add("--spring.threads.virtual.enabled=" + virtualThreads);
+		}
+		return new SpringApplicationBuilder(SchoolLendingApplication.class).run(args.toArray(String[]::new));
+	}
+
+	// Local users, Keycloak logins for each, and the catalog (imported through the API as the admin)
+	private List<Session> seed(ConfigurableApplicationContext app, KeycloakStub keycloak) throws Exception {
+		List<RegisterRequest> users = new ArrayList<>();
+		users.add(new RegisterRequest("Ada", "Admin", "admin@load.test", "ADMIN", "pw"));
+		users.add(new RegisterRequest("Sid", "Staff", "staff@load.test", "STAFF", "pw"));
+		for (int i = 0; i < STUDENTS; i++) {
+			users.add(new RegisterRequest("Student", "No" + i, "student" + i + "@load.test", "STUDENT", "pw"));
+		}
+		List<Session> students = new ArrayList<>();
+		for (User user : app.getBean(UserService.class).registerUsersLocally(users)) {
+			keycloak.user(user.getEmail(), user.getRole().name());
+			Session session = new Session(login(user.getEmail()), user.getUserId());
+			switch (user.getRole()) {
+			case ADMIN -> admin = session;
+			case STAFF -> staff = session;
+			default -> students.add(session);
+			}
+		}
+
+		List<Map<String, Object>> catalog = new ArrayList<>();
+		for (int i = 0; i < EQUIPMENT; i++) {
+			catalog.add(Map.of("name", "Load item " + i, "category", "Category " + i % CATEGORIES, "condition",
+					"GOOD", "totalQuantity", 1_000, "borrowedCount", 0, "availableQuantity", 1_000));
+		}
+		HttpResponse<String> imported = http.send(json(admin, "/api/equipment/import", "POST", catalog),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(201, imported.statusCode(), imported.body());
+		return students;
+	}
+
+	private String login(String email) throws Exception {
+		HttpResponse<String> response = http.send(
+				HttpRequest.newBuilder(base.resolve("/api/auth/login")).header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers
+								.ofString(objectMapper.writeValueAsString(Map.of("email", email, "password", "pw"))))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode(), response.body());
+		return (String) objectMapper.readValue(response.body(), Map.class).get("access_token");
+	}
+
+	private Map<String, Operation> operations() {
+		Map<String, Operation> operations = new LinkedHashMap<>();
+		operations.put("browse", (student, random) -> get(student, random.nextInt(4) == 0
+				? "/api/equipment?size=20"
+				: "/api/equipment?size=20&category=Category%20" + random.nextInt(CATEGORIES)));
+		operations.put("available", (student, random) -> get(student, "/api/equipment/available?size=20"));
+		operations.put("myRequests",
+				(student, random) -> get(student, "/api/requests/user/" + student.userId() + "?size=20"));
+		operations.put("borrow", (student, random) -> {
+			LocalDate start = LocalDate.now().plusDays(1 + random.nextInt(60));
+			return json(student, "/api/requests", "POST",
+					Map.of("userId", student.userId(), "equipmentId", 1 + random.nextInt(EQUIPMENT),
+							"requestedQuantity", 1, "startDate", start.toString(), "endDate",
+							start.plusDays(1 + random.nextInt(14)).toString()));
+		});
+		operations.put("pending", (student, random) -> get(staff, "/api/requests?status=PENDING&size=50"));
+		operations.put("summary", (student, random) -> get(admin, "/api/analytics/summary"));
+		return operations;
+	}
+
+	// Runs the mix until ends; calls started before warmUpEnds are not recorded
+	private Map<String, Samples> drive(Session student, Map<String, Operation> operations, List<String> weighted,
+			long warmUpEnds, long ends) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Map<String, Samples> samples = new LinkedHashMap<>();
+		long now;
+		while ((now = System.nanoTime()) < ends) {
+			String name = weighted.get(random.nextInt(weighted.size()));
+			HttpRequest request = operations.get(name).build(student, random);
+			int status;
+			try {
+				status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+			} catch (Exception e) {
+				status = -1;
+			}
+			if (now >= warmUpEnds) {
+				samples.computeIfAbsent(name, key -> new Samples()).add((System.nanoTime() - now) / 1_000_000,
+						status);
+			}
+		}
+		return samples;
+	}
+
+	private static List<String> weightedMix(Iterable<String> known) {
+		List<String> weighted = new ArrayList<>();
+		for (String entry : MIX.split(",")) {
+			String[] parts = entry.trim().split("=");
+			String name = parts[0].trim();
+			boolean exists = false;
+			for (String operation : known) {
+				exists |= operation.equals(name);
+			}
+			assertTrue(exists && parts.length == 2, "Unknown load.mix entry: " + entry);
+			for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+				weighted.add(name);
+			}
+		}
+		assertTrue(!weighted.isEmpty(), "load.mix has no weight");
+		return weighted;
+	}
+
+	private static void report(Map<String, Samples> results) {
+		double seconds = MEASURED.toMillis() / 1000.0;
+		System.out.printf("[api-load] %d clients, %d s measured after %d s warm-up, mix %s%n", CLIENTS,
+				MEASURED.toSeconds(), WARM_UP.toSeconds(), MIX);
+		System.out.printf("[api-load] %-11s %8s %8s %6s %6s %6s %6s %6s %6s%n", "operation", "calls", "calls/s",
+				"4xx", "failed", "p50", "p90", "p99", "max");
+		Samples all = new Samples();
+		results.forEach((name, samples) -> {
+			print(name, samples, seconds);
+			all.addAll(samples);
+		});
+		print("total", all, seconds);
+	}
+
+	private static void print(String name, Samples samples, double seconds) {
+		long[] sorted = Arrays.copyOf(samples.millis, samples.size);
+		Arrays.sort(sorted);
+		System.out.printf("[api-load] %-11s %8d %8.0f %6d %6d %4dms %4dms %4dms %4dms%n", name, sorted.length,
+				sorted.length / seconds, samples.clientErrors, samples.failures, percentile(sorted, 50),
+				percentile(sorted, 90), percentile(sorted, 99), sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+	}
+
+	private static long percentile(long[] sorted, int percent) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+	}
+
+	private HttpRequest get(Session session, String path) {
+		return HttpRequest.newBuilder(base.resolve(path)).header("Authorization", "Bearer " + session.token()).GET()
+				.build();
+	}
+
+	private HttpRequest json(Session session, String path, String method, Object body) {
+		try {
+			return HttpRequest.newBuilder(base.resolve(path)).header("Authorization", "Bearer " + session.token())
+					.header("Content-Type", "application/json")
+					.method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+					.build();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.model.Equipment;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.service.CatalogCache;
+import com.school.lending.service.CatalogFacets;
+import com.school.lending.service.CatalogSearchIndex;
+import com.school.lending.service.EquipmentService;
+import com.school.lending.service.JpaInventoryLedger;
+import com.school.lending.service.ReservationIndex;
+
+/**
+ * Compares the old getAvailableEquipment (findAll + filter in Java) with the
+ * indexed projection query and with the cached service call, on a 100k-item
+ * catalog where half the items are in stock.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=AvailableEquipmentBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ EquipmentService.class, ReservationIndex.class, JpaInventoryLedger.class, CatalogCache.class,
+		CatalogSearchIndex.class, CatalogFacets.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AvailableEquipmentBenchmark {
+
+	private static final int CATALOG_SIZE = 100_000;
+	private static final int ROUNDS = 20;
+
+	@Autowired
+	private EquipmentService equipmentService;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void compareAvailabilityQueries() {
+		seedCatalog();
+		int expectedAvailable = CATALOG_SIZE / 2;
+
+		double legacy = time("legacy findAll + stream filter", () -> legacyAvailable().size());
+		double firstPage = time("indexed query, first page (50)", () -> equipmentRepository
+				.findAvailablePage(0L, null, CursorPage.DEFAULT_SIZE + 1).size() - 1);
+		double categoryPage = time("indexed query, category page (50)", () -> equipmentRepository
+				.findAvailablePage(0L, "Category-4", CursorPage.DEFAULT_SIZE + 1).size() - 1);
+		double cachedPage = time("cached service, first page (50)",
+				() -> equipmentService.getAvailableEquipment(null, null, CursorPage.DEFAULT_SIZE).items().size());
+		double allPages = time("cached service, every page (500)", () -> {
+			int total = 0;
+			String cursor = null;
+			do {
+				CursorPage<AvailableEquipmentDto> page = equipmentService.getAvailableEquipment(null, cursor,
+						CursorPage.MAX_SIZE);
+				total += page.items().size();
+				cursor = page.next();
+			} while (cursor != null);
+			return total;
+		});
+
+		assertEquals(expectedAvailable, legacyAvailable().size());
+		assertEquals(CursorPage.DEFAULT_SIZE,
+				equipmentService.getAvailableEquipment(null, null, CursorPage.DEFAULT_SIZE).items().size());
+		System.out.printf("[available] speed-up first page %.0fx, category page %.0fx, cached page %.0fx, full walk %.1fx%n",
+				legacy / firstPage, legacy / categoryPage, legacy / cachedPage, legacy / allPages);
+	}
+
+	// The implementation this replaced, kept here as the baseline
+	private List<Equipment> legacyAvailable() {
+		return equipmentRepository.findAll().stream()
+				.filter(equipment -> equipment.getTotalQuantity() > equipment.getBorrowedCount())
+				.peek(equipment -> equipment
+						.setAvailableQuantity(equipment.getTotalQuantity() - equipment.getBorrowedCount()))
+				.collect(Collectors.toList());
+	}
+
+	private double time(String label, IntSupplier run) {
+		for (int i = 0; i < 3; i++) {
+			run.getAsInt(); // warm-up
+		}
+		long began = System.nanoTime();
+		int rows = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			rows = run.getAsInt();
+		}
+		double millis = (System.nanoTime() - began) / 1e6 / ROUNDS;
+		System.out.printf("[available] %-36s %8.2f ms/call (%d rows)%n", label, millis, rows);
+		return millis;
+	}
+
+	private void seedCatalog() {
+		List<Object[]> rows = new ArrayList<>(CATALOG_SIZE);
+		for (int i = 0; i < CATALOG_SIZE; i++) {
+			boolean inStock = i % 2 == 0;
+			rows.add(new Object[] { "Item-" + i, "Category-" + (i % 20), 1, 4, inStock ? 1 : 4, inStock ? 3 : 0 });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO equipment (equipment_id, name, category, condition, total_quantity, "
+				+ "borrowed_count, available_quantity) VALUES (NEXT VALUE FOR equipment_seq, ?, ?, ?, ?, ?, ?)", rows);
+	}
+}
@@ -0,0 +1,197 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Inserts 100k borrow requests through JPA, once with JDBC batching switched
+ * off for the session (one round trip per row, as with the old IDENTITY ids)
+ * and once with the configured hibernate.jdbc.batch_size, and reports
+ * inserts per second.
+ *
+ * Rows are written in transactions of CHUNK rows, flushing and clearing the
+ * persistence context after each so memory stays flat.
+ *
+ * In-memory H2 has no network between the application and the database, which
+ * is where batching pays off, so each pair of runs is repeated with every
+ * statement execution (a row, a batch, or a sequence fetch) charged
+ * ROUND_TRIP_MICROS, a typical same-datacenter database round trip.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=BulkInsertBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkInsertBenchmark {
+
+	private static final int REQUESTS = 100_000;
+	private static final int CHUNK = 1_000;
+	private static final int ITEMS = 100;
+	private static final long ROUND_TRIP_MICROS = 200;
+
+	// Latency added to every statement execution while set
+	private static volatile long roundTripNanos;
+
+	@TestConfiguration
+	static class RoundTripLatency {
+		@Bean
+		static BeanPostProcessor roundTripDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? new DelayingDataSource(dataSource) : bean;
+				}
+			};
+		}
+	}
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Test
+	void batchedInsertsOfBorrowRequests() {
+		User user = new User();
+		user.setEmail("bulk@school.test");
+		user.setRole(Role.STUDENT);
+		Long userId = userRepository.save(user).getUserId();
+		Long[] items = new Long[ITEMS];
+		for (int i = 0; i < ITEMS; i++) {
+			items[i] = equipmentRepository.save(Equipment.builder().name("Bulk-" + i).category("Bulk")
+					.condition(EquipmentCondition.GOOD).totalQuantity(10).availableQuantity(10).build())
+					.getEquipmentId();
+		}
+
+		insert(userId, items, 1); // warm-up
+		borrowRequestRepository.deleteAllInBatch();
+
+		double localUnbatched = insert(userId, items, 1);
+		double localBatched = insert(userId, items, null);
+		roundTripNanos = ROUND_TRIP_MICROS * 1_000;
+		double remoteUnbatched;
+		double remoteBatched;
+		try {
+			remoteUnbatched = insert(userId, items, 1);
+			remoteBatched = insert(userId, items, null);
+		} finally {
+			roundTripNanos = 0;
+		}
+		assertEquals(4L * REQUESTS, borrowRequestRepository.count());
+		System.out.printf("[bulk-insert] batching speed-up %.1fx in-process, %.1fx with a %dus round trip%n",
+				localBatched / localUnbatched, remoteBatched / remoteUnbatched, ROUND_TRIP_MICROS);
+	}
+
+	// Inserts REQUESTS rows and returns inserts per second; a null batch size keeps the configured one
+	private double insert(Long userId, Long[] items, Integer jdbcBatchSize) {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		LocalDate today = LocalDate.now();
+		long began = System.nanoTime();
+		for (int from = 0; from < REQUESTS; from += CHUNK) {
+			int first = from;
+			tx.executeWithoutResult(status -> {
+				entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+				User user = entityManager.getReference(User.class, userId);
+				for (int i = first; i < first + CHUNK; i++) {
+					entityManager.persist(BorrowRequest.builder().user(user)
+							.equipment(entityManager.getReference(Equipment.class, items[i % ITEMS]))
+							.requestedQuantity(1).requestDate(today).startDate(today.plusDays(1))
+							.endDate(today.plusDays(2 + i % 7)).status(RequestStatus.PENDING).build());
+				}
+				entityManager.flush();
+				entityManager.clear();
+			});
+		}
+		double seconds = (System.nanoTime() - began) / 1e9;
+		double perSecond = REQUESTS / seconds;
+		System.out.printf("[bulk-insert] round trip %4dus, jdbc batch size %-4s %8.0f inserts/s (%.2f s)%n",
+				roundTripNanos / 1_000, jdbcBatchSize == null ? "cfg" : jdbcBatchSize, perSecond, seconds);
+		return perSecond;
+	}
+
+	// Charges roundTripNanos for every execute*() on the statements of its connections
+	private static final class DelayingDataSource extends DelegatingDataSource {
+
+		DelayingDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return delaying(super.getConnection(), Connection.class);
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return delaying(super.getConnection(username, password), Connection.class);
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T delaying(T target, Class<T> type) {
+			InvocationHandler handler = (proxy, method, args) -> {
+				if (target instanceof Statement && method.getName().startsWith("execute") && roundTripNanos > 0) {
+					LockSupport.parkNanos(roundTripNanos);
+				}
+				try {
+					Object result = method.invoke(target, args);
+					if (result instanceof Statement statement && target instanceof Connection) {
+						return delaying(statement, (Class<Statement>) method.getReturnType());
+					}
+					return result;
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			};
+			return type.cast(Proxy.newProxyInstance(BulkInsertBenchmark.class.getClassLoader(),
+					new Class<?>[] { type }, handler));
+		}
+	}
+}
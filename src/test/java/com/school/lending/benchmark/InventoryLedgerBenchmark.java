@@ -0,0 +1,130 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.service.InMemoryInventoryLedger;
+import com.school.lending.service.InventoryLedger;
+import com.school.lending.service.JpaInventoryLedger;
+
+/**
+ * Compares approvals/sec of the JPA ledger (one transaction and conditional
+ * UPDATE per approval) with the in-memory ledger (CAS + journal, batched
+ * write-behind), 64 approvers each.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=InventoryLedgerBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:ledger;LOCK_TIMEOUT=30000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryLedgerBenchmark {
+
+	private static final int APPROVERS = 64;
+	private static final int UNITS = 20_000;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@TempDir
+	Path journalDir;
+
+	@Test
+	void memoryLedgerOutrunsJpaLedger() throws Exception {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		Equipment jpaItem = equipmentRepository.save(item("JPA ledger item"));
+		JpaInventoryLedger jpaLedger = new JpaInventoryLedger(equipmentRepository, jdbcTemplate);
+		double jpaRate = run("jpa", () -> tx.execute(status -> jpaLedger.debit(jpaItem.getEquipmentId(), 1)));
+		assertEquals(0, equipmentRepository.findById(jpaItem.getEquipmentId()).orElseThrow().getAvailableQuantity());
+
+		Equipment memoryItem = equipmentRepository.save(item("Memory ledger item"));
+		InMemoryInventoryLedger memoryLedger = new InMemoryInventoryLedger(equipmentRepository, jdbcTemplate,
+				journalDir.toString());
+		memoryLedger.start();
+		double memoryRate = run("memory", () -> memoryLedger.debit(memoryItem.getEquipmentId(), 1));
+		assertEquals(0, memoryLedger.available(memoryItem.getEquipmentId()));
+		memoryLedger.stop();
+
+		// The write-behind flush must leave the database matching memory
+		Equipment flushed = equipmentRepository.findById(memoryItem.getEquipmentId()).orElseThrow();
+		assertEquals(0, flushed.getAvailableQuantity());
+		assertEquals(UNITS, flushed.getBorrowedCount());
+
+		System.out.printf("[ledger] memory/jpa speed-up: %.1fx%n", memoryRate / jpaRate);
+		assertTrue(memoryRate > jpaRate, "in-memory ledger should be faster");
+	}
+
+	private double run(String label, BooleanSupplier approve) throws Exception {
+		AtomicInteger approved = new AtomicInteger();
+		AtomicInteger refused = new AtomicInteger();
+		CountDownLatch go = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(APPROVERS);
+		List<Future<?>> approvers = new ArrayList<>();
+		for (int i = 0; i < APPROVERS; i++) {
+			approvers.add(pool.submit(() -> {
+				go.await();
+				// Keep approving until stock runs out; refusals past that point prove no oversell
+				while (refused.get() < APPROVERS) {
+					if (approve.getAsBoolean()) {
+						approved.incrementAndGet();
+					} else {
+						refused.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		long began = System.nanoTime();
+		go.countDown();
+		for (Future<?> approver : approvers) {
+			approver.get();
+		}
+		double seconds = (System.nanoTime() - began) / 1e9;
+		pool.shutdown();
+
+		double rate = approved.get() / seconds;
+		System.out.printf("[ledger] %-6s approvers=%d approved=%d in %.2fs -> %.0f approvals/sec%n", label,
+				APPROVERS, approved.get(), seconds, rate);
+		assertEquals(UNITS, approved.get(), label + " ledger oversold or lost approvals");
+		return rate;
+	}
+
+	private static Equipment item(String name) {
+		return Equipment.builder().name(name).category("IT").condition(EquipmentCondition.GOOD).totalQuantity(UNITS)
+				.borrowedCount(0).availableQuantity(UNITS).build();
+	}
+}
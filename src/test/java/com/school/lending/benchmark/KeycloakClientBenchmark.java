@@ -0,0 +1,167 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.lending.security.KeycloakClientConfig;
+import com.school.lending.service.KeycloakUserService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Login storm against a local stub of the Keycloak token endpoint: 16
+ * concurrent users (more than the JDK's keep-alive cache of 5 connections) logging in through KeycloakUserService, first with the old
+ * per-call RestTemplate (SimpleClientHttpRequestFactory, i.e. JDK
+ * HttpURLConnection with its small keep-alive cache), then with the pooled
+ * client from KeycloakClientConfig. Reports latency percentiles and how many
+ * TCP connections the stub had to accept.
+ *
+ * The stub spends TOKEN_WORK_MS per token (off-CPU, like Keycloak hashing
+ * and its database). A loopback connect is almost free, so the stub also
+ * charges HANDSHAKE_MS on the first request of every new connection to stand
+ * in for the TCP + TLS setup of a real, remote Keycloak.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=KeycloakClientBenchmark
+ */
+@Tag("benchmark")
+class KeycloakClientBenchmark {
+
+	private static final int USERS = 16;
+	private static final int LOGINS_PER_USER = 200;
+	private static final int HANDSHAKE_MS = 3;
+	private static final int TOKEN_WORK_MS = 5;
+	private static final String TOKEN_JSON = "{\"access_token\":\"a\",\"refresh_token\":\"r\",\"expires_in\":300,"
+			+ "\"refresh_expires_in\":1800,\"token_type\":\"Bearer\"}";
+
+	private HttpServer stub;
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+	@BeforeEach
+	void startStub() throws IOException {
+		// Otherwise Nagle + delayed ACK add ~40ms to every stub response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		stub.createContext("/realms/school/protocol/openid-connect/token", this::token);
+		stub.setExecutor(Executors.newFixedThreadPool(USERS));
+		stub.start();
+	}
+
+	@AfterEach
+	void stopStub() {
+		stub.stop(0);
+	}
+
+	@Test
+	void pooledClientReusesConnections() throws Exception {
+		String url = "http://127.0.0.1:" + stub.getAddress().getPort();
+		ObjectMapper objectMapper = new ObjectMapper();
+
+		clientPorts.clear();
+		long[] legacy = storm(new KeycloakUserService(objectMapper, new RestTemplate(), url, "school", "app", "s"));
+		int legacyConnections = clientPorts.size();
+
+		KeycloakClientConfig config = new KeycloakClientConfig();
+		PoolingHttpClientConnectionManager pool = config.keycloakConnectionManager(USERS, Duration.ofSeconds(2),
+				Duration.ofSeconds(5), Duration.ofMinutes(5));
+		try (CloseableHttpClient client = config.keycloakHttpClient(pool, Duration.ofSeconds(2),
+				Duration.ofSeconds(5))) {
+			clientPorts.clear();
+			long[] pooled = storm(new KeycloakUserService(objectMapper, config.keycloakRestTemplate(client,
+					new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)), url,
+					"school", "app", "s"));
+			int pooledConnections = clientPorts.size();
+
+			report("per-call", legacy, legacyConnections);
+			report("pooled", pooled, pooledConnections);
+			System.out.printf("[keycloak] p99 speed-up %.1fx, connections %d -> %d%n",
+					(double) percentile(legacy, 99) / percentile(pooled, 99), legacyConnections, pooledConnections);
+			assertTrue(pooledConnections <= USERS, "the pool bounds the number of connections");
+		}
+	}
+
+	// Runs the login storm and returns every call's latency in microseconds, sorted
+	private long[] storm(KeycloakUserService keycloak) throws Exception {
+		for (int i = 0; i < 500; i++) {
+			keycloak.getToken("warm-up", "pw");
+		}
+		long[] latencies = new long[USERS * LOGINS_PER_USER];
+		CountDownLatch go = new CountDownLatch(1);
+		ExecutorService users = Executors.newFixedThreadPool(USERS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int u = 0; u < USERS; u++) {
+			int user = u;
+			futures.add(users.submit(() -> {
+				go.await();
+				for (int i = 0; i < LOGINS_PER_USER; i++) {
+					long began = System.nanoTime();
+					assertEquals("a", keycloak.getToken("user" + user, "pw").get("access_token"));
+					latencies[user * LOGINS_PER_USER + i] = (System.nanoTime() - began) / 1_000;
+				}
+				return null;
+			}));
+		}
+		go.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		users.shutdown();
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	private void token(HttpExchange exchange) throws IOException {
+		boolean newConnection = clientPorts.add(exchange.getRemoteAddress().getPort());
+		try {
+			Thread.sleep(newConnection ? HANDSHAKE_MS + TOKEN_WORK_MS : TOKEN_WORK_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try (InputStream body = exchange.getRequestBody()) {
+			body.readAllBytes();
+		}
+		byte[] json = TOKEN_JSON.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, json.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(json);
+		}
+	}
+
+	private static void report(String label, long[] latencies, int connections) {
+		System.out.printf("[keycloak] %-8s logins=%d p50=%dus p99=%dus p99.9=%dus max=%dus connections=%d%n", label,
+				latencies.length, percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 99.9),
+				latencies[latencies.length - 1], connections);
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p / 100 * sorted.length) - 1)];
+	}
+}
@@ -0,0 +1,203 @@
+package com.school.lending.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Keycloak realm, for load tests that start the real
+ * application.
+ *
+ * Serves the OpenID discovery document, a JWKS with a key pair generated at
+ * startup, and a password-grant token endpoint that returns RS256 access
+ * tokens carrying the user's realm role, so the application's resource server
+ * validates them exactly as it validates Keycloak's. Passwords are not
+ * checked; unknown users get the 401 Keycloak answers with.
+ */
+final class KeycloakStub implements AutoCloseable {
+
+	static final String REALM = "school";
+
+	// Tokens are re-signed after this long, well inside their lifetime
+	private static final Duration TOKEN_REUSE = Duration.ofMinutes(1);
+	private static final int TOKEN_LIFETIME_SECONDS = 300;
+
+	static {
+		// The JDK server closes idle keep-alive connections beyond 200 by default, which the
+		// application's Keycloak pool would then find dead (read when the first server starts)
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "4096");
+	}
+
+	private record IssuedToken(String value, Instant issuedAt) {
+	}
+
+	private final HttpServer server;
+	private final Duration tokenLatency;
+	private final RSAKey signingKey;
+	private final Map<String, String> roles = new ConcurrentHashMap<>();
+	private final Map<String, IssuedToken> issued = new ConcurrentHashMap<>();
+	private final AtomicInteger tokenCalls = new AtomicInteger();
+
+	/**
+	 * @param tokenLatency how long the token endpoint takes to answer
+	 */
+	KeycloakStub(Duration tokenLatency) throws IOException {
+		this.tokenLatency = tokenLatency;
+		this.signingKey = generateKey();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext(realmPath() + "/.well-known/openid-configuration", this::discovery);
+		server.createContext(realmPath() + "/protocol/openid-connect/certs",
+				exchange -> respond(exchange, 200, new JWKSet(signingKey.toPublicJWK()).toString()));
+		server.createContext(realmPath() + "/protocol/openid-connect/token", this::token);
+		server.start();
+	}
+
+	/** Lets {@code email} log in, with the given realm role (STUDENT, STAFF or ADMIN). */
+	KeycloakStub user(String email, String role) {
+		roles.put(email, role);
+		return this;
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	String issuer() {
+		return url() + realmPath();
+	}
+
+	int tokenCalls() {
+		return tokenCalls.get();
+	}
+
+	/** Command-line arguments that point the application's login and token validation here. */
+	List<String> applicationArgs() {
+		return List.of("--lending.keycloak.server-url=" + url(), "--lending.keycloak.realm=" + REALM);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private void discovery(HttpExchange exchange) throws IOException {
+		String issuer = issuer();
+		respond(exchange, 200, "{\"issuer\":\"" + issuer + "\",\"authorization_endpoint\":\"" + issuer
+				+ "/protocol/openid-connect/auth\",\"token_endpoint\":\"" + issuer
+				+ "/protocol/openid-connect/token\",\"jwks_uri\":\"" + issuer
+				+ "/protocol/openid-connect/certs\",\"userinfo_endpoint\":\"" + issuer
+				+ "/protocol/openid-connect/userinfo\",\"subject_types_supported\":[\"public\"],"
+				+ "\"response_types_supported\":[\"code\"],\"id_token_signing_alg_values_supported\":[\"RS256\"]}");
+	}
+
+	private void token(HttpExchange exchange) throws IOException {
+		Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+		if (!tokenLatency.isZero()) {
+			try {
+				Thread.sleep(tokenLatency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		tokenCalls.incrementAndGet();
+		String email = form.get("username");
+		String role = email == null ? null : roles.get(email);
+		if (role == null) {
+			respond(exchange, 401, "{\"error\":\"invalid_grant\",\"error_description\":\"Invalid user credentials\"}");
+			return;
+		}
+		respond(exchange, 200, "{\"access_token\":\"" + accessToken(email, role)
+				+ "\",\"refresh_token\":\"refresh\",\"expires_in\":" + TOKEN_LIFETIME_SECONDS
+				+ ",\"token_type\":\"Bearer\"}");
+	}
+
+	// Signing costs about a millisecond of CPU; hand out the same token for a while, as a session would
+	private String accessToken(String email, String role) {
+		Instant now = Instant.now();
+		return issued.compute(email, (key, token) -> token != null && token.issuedAt().plus(TOKEN_REUSE).isAfter(now)
+				? token
+				: new IssuedToken(sign(email, role, now), now)).value();
+	}
+
+	private String sign(String email, String role, Instant now) {
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().issuer(issuer()).subject(UUID.nameUUIDFromBytes(
+				email.getBytes(StandardCharsets.UTF_8)).toString()).audience("account").issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plusSeconds(TOKEN_LIFETIME_SECONDS))).claim("typ", "Bearer")
+				.claim("preferred_username", email).claim("email", email)
+				.claim("realm_access", Map.of("roles", List.of(role, "offline_access", "default-roles-" + REALM)))
+				.build();
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+				claims);
+		try {
+			jwt.sign(new RSASSASigner(signingKey));
+		} catch (JOSEException e) {
+			throw new IllegalStateException("Could not sign stub token", e);
+		}
+		return jwt.serialize();
+	}
+
+	private static RSAKey generateKey() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			KeyPair pair = generator.generateKeyPair();
+			return new RSAKey.Builder((RSAPublicKey) pair.getPublic()).privateKey(pair.getPrivate())
+					.keyID(UUID.randomUUID().toString()).build();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String realmPath() {
+		return "/realms/" + REALM;
+	}
+
+	private static Map<String, String> parseForm(String body) {
+		Map<String, String> form = new HashMap<>();
+		for (String pair : body.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return form;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
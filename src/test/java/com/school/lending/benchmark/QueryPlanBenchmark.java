@@ -0,0 +1,379 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.school.lending.dto.BorrowRequestFilter;
+import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.DailyCategoryUtilizationRepository;
+import com.school.lending.repository.DailyUtilizationRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+
+/**
+ * Migrates an empty PostgreSQL schema with the Flyway scripts (with Hibernate
+ * validating the entities against it), fills it to a million borrow requests
+ * and a million utilization rows, and runs every repository query while the
+ * data source EXPLAINs each statement. A query that reads a large table with a
+ * sequential scan fails the run, except for the few that read every row by
+ * design; the one allowed elsewhere is reading users or equipment whole into
+ * the hash table of a join that matches thousands of requests.
+ *
+ * Needs a PostgreSQL server; the schema plan_check is dropped and recreated:
+ * mvn test -Pbenchmark -Dtest=QueryPlanBenchmark
+ * -Dplan.jdbcUrl=jdbc:postgresql://localhost:5432/equipment_lending
+ * [-Dplan.username=postgres -Dplan.password=postgres]
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "plan.jdbcUrl", matches = ".+")
+@DataJpaTest(properties = { "spring.flyway.schemas=" + QueryPlanBenchmark.SCHEMA, "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("postgres")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanBenchmark {
+
+	static final String SCHEMA = "plan_check";
+
+	private static final int USERS = 50_000;
+	private static final int ITEMS = 20_000;
+	private static final int CATEGORIES = 50;
+	private static final int REQUESTS = 1_000_000;
+	private static final int HISTORY_DAYS = 1_000;
+	private static final int ROLLUP_ITEMS = 1_000;
+
+	// Tables holding thousands of rows or more once in use
+	private static final Set<String> LARGE_TABLES = Set.of("borrow_requests", "users", "equipment",
+			"daily_utilization", "daily_category_utilization");
+
+	// Queries that read every row by design
+	private static final Set<String> FULL_SCANS = Set.of(
+			"BorrowRequestRepository.streamAllResponses", // full CSV export
+			"BorrowRequestRepository.findActivitySpan", // first rollup run only
+			"EquipmentRepository.findAllSnapshots", // facet counts, loaded once at startup
+			"EquipmentRepository.sumAvailableQuantity", // totals, re-checked every few minutes
+			"EquipmentRepository.sumTotalQuantity");
+
+	// Small enough to hash whole when joined to many requests
+	private static final Set<String> JOIN_LOOKUPS = Set.of("users", "equipment");
+
+	private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+	// Plans by query, filled while a query runs under its label
+	private static final Map<String, List<String>> plans = new LinkedHashMap<>();
+	private static volatile String label;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DailyUtilizationRepository dailyUtilizationRepository;
+
+	@Autowired
+	private DailyCategoryUtilizationRepository dailyCategoryUtilizationRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@TestConfiguration
+	static class ExplainConfig {
+
+		@Bean
+		static BeanPostProcessor explainingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? explaining(dataSource) : bean;
+				}
+			};
+		}
+	}
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		String url = System.getProperty("plan.jdbcUrl");
+		registry.add("spring.datasource.url",
+				() -> url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA);
+		registry.add("spring.datasource.username", () -> System.getProperty("plan.username", "postgres"));
+		registry.add("spring.datasource.password", () -> System.getProperty("plan.password", "postgres"));
+	}
+
+	@BeforeAll
+	static void dropSchema() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(System.getProperty("plan.jdbcUrl"),
+				System.getProperty("plan.username", "postgres"), System.getProperty("plan.password", "postgres"));
+				Statement statement = connection.createStatement()) {
+			statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		}
+	}
+
+	@Test
+	void repositoryQueriesUseIndexes() {
+		long began = System.nanoTime();
+		seed();
+		System.out.printf("Seeded %,d requests and %,d utilization rows in %d ms%n", REQUESTS,
+				HISTORY_DAYS * ROLLUP_ITEMS, (System.nanoTime() - began) / 1_000_000);
+
+		LocalDate today = LocalDate.now();
+		LocalDate weekAgo = today.minusDays(7);
+		int limit = 50;
+
+		explain("BorrowRequestRepository.findResponsesByStatus",
+				() -> borrowRequestRepository.findResponsesByStatus(RequestStatus.PENDING));
+		explain("BorrowRequestRepository.countByStatus", () -> borrowRequestRepository.countByStatus(RequestStatus.PENDING));
+		explain("BorrowRequestRepository.findBookingSlotsByStatusIn", () -> borrowRequestRepository
+				.findBookingSlotsByStatusIn(List.of(RequestStatus.PENDING, RequestStatus.APPROVED)));
+		explain("BorrowRequestRepository.findActiveLoans", () -> borrowRequestRepository.findActiveLoans());
+		explain("BorrowRequestRepository.streamAllResponses", () -> {
+			try (Stream<BorrowRequestResponseDto> rows = borrowRequestRepository.streamAllResponses()) {
+				rows.limit(10).count();
+			}
+		});
+		explain("BorrowRequestRepository.findPage", () -> {
+			borrowRequestRepository.findPage(0, new BorrowRequestFilter(null, null, null, null, null), limit);
+			borrowRequestRepository.findPage(500_000, new BorrowRequestFilter(42L, null, null, null, null), limit);
+			borrowRequestRepository.findPage(0, new BorrowRequestFilter(null, RequestStatus.PENDING, null, null, null),
+					limit);
+			borrowRequestRepository.findPage(0, new BorrowRequestFilter(null, null, weekAgo, today, null), limit);
+			borrowRequestRepository.findPage(0, new BorrowRequestFilter(null, null, null, null, "Category 7"), limit);
+			borrowRequestRepository.findPage(0,
+					new BorrowRequestFilter(42L, RequestStatus.RETURNED, weekAgo, today, "Category 7"), limit);
+		});
+		explain("BorrowRequestRepository.transitionStatus", () -> borrowRequestRepository.transitionStatus(1_000L,
+				RequestStatus.PENDING, RequestStatus.APPROVED, Instant.now()));
+		explain("BorrowRequestRepository.lockAllById", () -> borrowRequestRepository.lockAllById(List.of(1L, 2L, 3L)));
+		explain("BorrowRequestRepository.setStatus",
+				() -> borrowRequestRepository.setStatus(List.of(1L, 2L, 3L), RequestStatus.RETURNED, Instant.now()));
+		explain("BorrowRequestRepository.findChangedSince",
+				() -> borrowRequestRepository.findChangedSince(Instant.now().minusSeconds(300)));
+		explain("BorrowRequestRepository.findActivitySpan", () -> borrowRequestRepository.findActivitySpan());
+		explain("BorrowRequestRepository.findUtilizationSources",
+				() -> borrowRequestRepository.findUtilizationSources(weekAgo, today));
+		explain("BorrowRequestRepository.findById", () -> borrowRequestRepository.findById(1_000L));
+
+		explain("EquipmentRepository.findByName", () -> equipmentRepository.findByName("Item 1234"));
+		explain("EquipmentRepository.findNamesIn",
+				() -> equipmentRepository.findNamesIn(List.of("Item 1", "Item 2", "Item 3")));
+		explain("EquipmentRepository.findByCategory", () -> equipmentRepository.findByCategory("Category 7"));
+		explain("EquipmentRepository.findPage", () -> {
+			equipmentRepository.findPage(0, null, null, false, limit);
+			equipmentRepository.findPage(0, "Category 7", null, false, limit);
+			equipmentRepository.findPage(0, null, null, true, limit);
+			equipmentRepository.findPage(0, "Category 7", EquipmentCondition.GOOD, true, limit);
+		});
+		explain("EquipmentRepository.findAvailablePage", () -> {
+			equipmentRepository.findAvailablePage(0, null, limit);
+			equipmentRepository.findAvailablePage(0, "Category 7", limit);
+		});
+		explain("EquipmentRepository.findAllSnapshots", () -> equipmentRepository.findAllSnapshots());
+		explain("EquipmentRepository.sumAvailableQuantity", () -> equipmentRepository.sumAvailableQuantity());
+		explain("EquipmentRepository.sumTotalQuantity", () -> equipmentRepository.sumTotalQuantity());
+		explain("EquipmentRepository.findAvailableQuantityById", () -> equipmentRepository.findAvailableQuantityById(7L));
+		explain("EquipmentRepository.findBorrowedCountById", () -> equipmentRepository.findBorrowedCountById(7L));
+		explain("EquipmentRepository.debitStock", () -> equipmentRepository.debitStock(7L, 1));
+		explain("EquipmentRepository.creditStock", () -> equipmentRepository.creditStock(7L, 1));
+		explain("EquipmentRepository.lockAllById", () -> equipmentRepository.lockAllById(List.of(7L, 8L)));
+		explain("EquipmentRepository.updateDetails", () -> equipmentRepository.updateDetails(7L, "Item 7",
+				"Category 7", EquipmentCondition.GOOD, 10));
+
+		explain("UserRepository.findByEmail", () -> userRepository.findByEmail("user1234@school.test"));
+		explain("UserRepository.findLowerCaseEmailsIn",
+				() -> userRepository.findLowerCaseEmailsIn(List.of("user1@school.test", "user2@school.test")));
+
+		explain("DailyUtilizationRepository.findEquipmentSeries",
+				() -> dailyUtilizationRepository.findEquipmentSeries(7L, today.minusYears(1), today));
+		explain("DailyUtilizationRepository.deleteDays", () -> dailyUtilizationRepository.deleteDays(weekAgo, today));
+		explain("DailyCategoryUtilizationRepository.findCategorySeries",
+				() -> dailyCategoryUtilizationRepository.findCategorySeries("Category 7", today.minusYears(1), today));
+		explain("DailyCategoryUtilizationRepository.findTotalSeries",
+				() -> dailyCategoryUtilizationRepository.findTotalSeries(today.minusMonths(1), today));
+		explain("DailyCategoryUtilizationRepository.deleteDays",
+				() -> dailyCategoryUtilizationRepository.deleteDays(weekAgo, today));
+
+		Map<String, Set<String>> offenders = new TreeMap<>();
+		plans.forEach((query, queryPlans) -> {
+			Set<String> scanned = new TreeSet<>();
+			for (String plan : queryPlans) {
+				String previous = "";
+				for (String line : plan.split("\n")) {
+					Matcher matcher = SEQ_SCAN.matcher(line);
+					if (matcher.find() && !(previous.contains("Hash  (") && JOIN_LOOKUPS.contains(matcher.group(1)))) {
+						scanned.add(matcher.group(1));
+					}
+					previous = line;
+				}
+			}
+			scanned.retainAll(LARGE_TABLES);
+			System.out.printf("%-60s %d statement(s)%s%n", query, queryPlans.size(),
+					scanned.isEmpty() ? "" : ", sequential scan of " + scanned);
+			if (!scanned.isEmpty() && !FULL_SCANS.contains(query)) {
+				offenders.put(query, scanned);
+				queryPlans.forEach(System.out::println);
+			}
+		});
+		assertTrue(offenders.isEmpty(), "Sequential scans: " + offenders);
+	}
+
+	// Runs the queries in a transaction that is rolled back, so updates leave the data as seeded
+	private void explain(String query, Runnable queries) {
+		plans.put(query, new ArrayList<>());
+		label = query;
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				queries.run();
+				status.setRollbackOnly();
+			});
+		} finally {
+			label = null;
+		}
+	}
+
+	private void seed() {
+		jdbcTemplate.execute("INSERT INTO users (user_id, email, first_name, last_name, role) "
+				+ "SELECT i, 'user' || i || '@school.test', 'First', 'Last', "
+				+ "CASE WHEN i % 100 = 0 THEN 'STAFF' ELSE 'STUDENT' END FROM generate_series(1, " + USERS + ") i");
+		jdbcTemplate.execute("INSERT INTO equipment (equipment_id, name, category, condition, total_quantity, "
+				+ "borrowed_count, available_quantity) SELECT i, 'Item ' || i, 'Category ' || (i % " + CATEGORIES
+				+ "), 1, 10, CASE WHEN i % 4 = 0 THEN 10 ELSE i % 4 END, "
+				+ "10 - CASE WHEN i % 4 = 0 THEN 10 ELSE i % 4 END FROM generate_series(1, " + ITEMS + ") i");
+		// Mostly history: 2% pending, 3% approved, 10% rejected, the rest returned; one in 500
+		// changed in the last few minutes
+		jdbcTemplate.execute("INSERT INTO borrow_requests (request_id, user_id, equipment_id, requested_quantity, "
+				+ "request_date, start_date, end_date, status, updated_at) "
+				+ "SELECT i, 1 + i % " + USERS + ", 1 + (i * 7) % " + ITEMS + ", 1 + i % 3, day, day + 1, day + 1 + i % 14, "
+				+ "CASE WHEN i % 50 = 0 THEN 'PENDING' WHEN i % 50 < 3 THEN 'APPROVED' "
+				+ "WHEN i % 50 < 8 THEN 'REJECTED' ELSE 'RETURNED' END, "
+				+ "CASE WHEN i % 500 = 0 THEN now() - interval '1 minute' ELSE day::timestamptz + interval '12 hours' END "
+				+ "FROM (SELECT i, current_date - " + HISTORY_DAYS + " + (i::bigint * " + HISTORY_DAYS + " / " + REQUESTS
+				+ ")::int AS day FROM generate_series(1, " + REQUESTS + ") i) r");
+		jdbcTemplate.execute("INSERT INTO daily_utilization (usage_date, equipment_id, category, units_out, "
+				+ "requests_created, requests_approved, requests_rejected) "
+				+ "SELECT current_date - d, e, 'Category ' || (e % " + CATEGORIES + "), e % 5, 1, 1, 0 "
+				+ "FROM generate_series(0, " + (HISTORY_DAYS - 1) + ") d, generate_series(1, " + ROLLUP_ITEMS + ") e");
+		jdbcTemplate.execute("INSERT INTO daily_category_utilization (usage_date, category, units_out, "
+				+ "requests_created, requests_approved, requests_rejected) "
+				+ "SELECT usage_date, category, SUM(units_out), SUM(requests_created), SUM(requests_approved), "
+				+ "SUM(requests_rejected) FROM daily_utilization GROUP BY usage_date, category");
+		jdbcTemplate.execute("ANALYZE");
+	}
+
+	private static DataSource explaining(DataSource target) {
+		return (DataSource) Proxy.newProxyInstance(QueryPlanBenchmark.class.getClassLoader(),
+				new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+					Object result = invoke(target, method, args);
+					return result instanceof Connection connection
+							? Proxy.newProxyInstance(QueryPlanBenchmark.class.getClassLoader(),
+									new Class<?>[] { Connection.class }, new ExplainingConnection(connection))
+							: result;
+				});
+	}
+
+	// Wraps prepared statements so that, while a label is set, each query is EXPLAINed with its parameters
+	private record ExplainingConnection(Connection target) implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = QueryPlanBenchmark.invoke(target, method, args);
+			if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+				return Proxy.newProxyInstance(QueryPlanBenchmark.class.getClassLoader(),
+						new Class<?>[] { PreparedStatement.class },
+						new ExplainingStatement(target, (String) args[0], statement, new TreeMap<>()));
+			}
+			return result;
+		}
+	}
+
+	private record ExplainingStatement(Connection connection, String sql, PreparedStatement target,
+			Map<Integer, Object[]> parameters) implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+				parameters.put(index, new Object[] { method, args });
+			} else if (name.equals("clearParameters")) {
+				parameters.clear();
+			} else if (name.startsWith("execute") && label != null) {
+				plans.get(label).add(plan());
+			}
+			return QueryPlanBenchmark.invoke(target, method, args);
+		}
+
+		private String plan() throws Exception {
+			StringBuilder plan = new StringBuilder(sql).append('\n');
+			try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+				for (Object[] parameter : parameters.values()) {
+					((Method) parameter[0]).invoke(explain, (Object[]) parameter[1]);
+				}
+				try (ResultSet rows = explain.executeQuery()) {
+					while (rows.next()) {
+						plan.append("    ").append(rows.getString(1)).append('\n');
+					}
+				}
+			}
+			return plan.toString();
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
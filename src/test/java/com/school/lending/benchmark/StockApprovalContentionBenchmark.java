@@ -0,0 +1,108 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.exception.InvalidInputException;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.service.CatalogCache;
+import com.school.lending.service.CatalogFacets;
+import com.school.lending.service.CatalogSearchIndex;
+import com.school.lending.service.EquipmentService;
+import com.school.lending.service.JpaInventoryLedger;
+import com.school.lending.service.ReservationIndex;
+
+/**
+ * Hammers {@link EquipmentService#approveRequest} from 64 threads against a
+ * single equipment row and checks that stock is never oversold.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=StockApprovalContentionBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:contention;LOCK_TIMEOUT=30000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ EquipmentService.class, ReservationIndex.class, JpaInventoryLedger.class, CatalogCache.class,
+		CatalogSearchIndex.class, CatalogFacets.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every approval must really commit
+class StockApprovalContentionBenchmark {
+
+	private static final int APPROVERS = 64;
+	private static final int ATTEMPTS_PER_APPROVER = 100;
+	private static final int UNITS = 2_000;
+
+	@Autowired
+	private EquipmentService equipmentService;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Test
+	void concurrentApprovalsNeverOversell() throws Exception {
+		Equipment equipment = equipmentRepository.save(Equipment.builder().name("Contended Laptop")
+				.category("IT").condition(EquipmentCondition.GOOD).totalQuantity(UNITS).borrowedCount(0)
+				.availableQuantity(UNITS).build());
+		LocalDate start = LocalDate.now().plusDays(1);
+		LocalDate end = start.plusDays(7);
+
+		AtomicInteger approved = new AtomicInteger();
+		AtomicInteger refused = new AtomicInteger();
+		CountDownLatch go = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(APPROVERS);
+		List<Future<?>> approvers = new ArrayList<>();
+		for (int i = 0; i < APPROVERS; i++) {
+			approvers.add(pool.submit(() -> {
+				go.await();
+				for (int attempt = 0; attempt < ATTEMPTS_PER_APPROVER; attempt++) {
+					try {
+						equipmentService.approveRequest(equipment, 1, start, end);
+						approved.incrementAndGet();
+					} catch (InvalidInputException outOfStock) {
+						refused.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+
+		long began = System.nanoTime();
+		go.countDown();
+		for (Future<?> approver : approvers) {
+			approver.get();
+		}
+		double seconds = (System.nanoTime() - began) / 1e9;
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+
+		Equipment after = equipmentRepository.findById(equipment.getEquipmentId()).orElseThrow();
+		System.out.printf("[contention] approvers=%d attempts=%d approved=%d refused=%d in %.2fs -> %.0f approvals/sec, %.0f attempts/sec%n",
+				APPROVERS, APPROVERS * ATTEMPTS_PER_APPROVER, approved.get(), refused.get(), seconds,
+				approved.get() / seconds, (approved.get() + refused.get()) / seconds);
+
+		assertEquals(UNITS, approved.get(), "every unit is approved exactly once");
+		assertEquals(APPROVERS * ATTEMPTS_PER_APPROVER - UNITS, refused.get());
+		assertEquals(0, after.getAvailableQuantity(), "no oversell");
+		assertEquals(UNITS, after.getBorrowedCount());
+	}
+}
@@ -0,0 +1,164 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.UtilizationPointDto;
+import com.school.lending.dto.UtilizationSource;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+import com.school.lending.service.UtilizationRollupService;
+
+/**
+ * Builds the daily utilization rollup over two years of history (100k
+ * requests, 200 items) and compares a one-year series read from the rollup
+ * with aggregating the raw requests on the fly.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=UtilizationRollupBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "lending.analytics.rollup.lookback-ms=0")
+@ActiveProfiles("test")
+@Import(UtilizationRollupService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UtilizationRollupBenchmark {
+
+	private static final int ITEMS = 200;
+	private static final int REQUESTS = 100_000;
+	private static final int HISTORY_DAYS = 730;
+	private static final int ROUNDS = 20;
+
+	@Autowired
+	private UtilizationRollupService rollupService;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void rollupAnswersAYearInMilliseconds() {
+		List<Long> items = seed();
+		LocalDate to = LocalDate.now();
+		LocalDate from = to.minusYears(1).plusDays(1);
+		Long item = items.get(0);
+
+		long began = System.nanoTime();
+		rollupService.refresh();
+		System.out.printf("[rollup] full build of %d days: %.0f ms%n", HISTORY_DAYS,
+				(System.nanoTime() - began) / 1e6);
+
+		// A typical incremental run: a handful of recent status changes
+		jdbcTemplate.update("UPDATE borrow_requests SET status = 'RETURNED', updated_at = ? "
+				+ "WHERE status = 'APPROVED' AND request_id % 1000 = 0", Timestamp.from(Instant.now().plusSeconds(1)));
+		began = System.nanoTime();
+		rollupService.refresh();
+		System.out.printf("[rollup] incremental refresh: %.0f ms%n", (System.nanoTime() - began) / 1e6);
+
+		double raw = time("on the fly, all equipment", () -> onTheFly(from, to).size());
+		double all = time("rollup, all equipment", () -> rollupService.getSeries(from, to, null, null).size());
+		double category = time("rollup, one category",
+				() -> rollupService.getSeries(from, to, null, "Category-3").size());
+		double single = time("rollup, one item", () -> rollupService.getSeries(from, to, item, null).size());
+
+		List<UtilizationPointDto> series = rollupService.getSeries(from, to, null, null);
+		Map<LocalDate, Long> expected = onTheFly(from, to);
+		assertFalse(series.isEmpty());
+		series.forEach(point -> assertEquals(expected.getOrDefault(point.day(), 0L), point.unitsOut(),
+				"units out on " + point.day()));
+		System.out.printf("[rollup] speed-up all %.0fx, category %.0fx, item %.0fx%n", raw / all, raw / category,
+				raw / single);
+	}
+
+	// What answering without the rollup costs: every overlapping request, expanded per day
+	private Map<LocalDate, Long> onTheFly(LocalDate from, LocalDate to) {
+		Map<LocalDate, Long> unitsOut = new HashMap<>();
+		for (UtilizationSource source : borrowRequestRepository.findUtilizationSources(from, to)) {
+			if (source.status() != RequestStatus.APPROVED && source.status() != RequestStatus.RETURNED) {
+				continue;
+			}
+			for (LocalDate day = source.startDate(); day.isBefore(source.endDate()); day = day.plusDays(1)) {
+				if (!day.isBefore(from) && !day.isAfter(to)) {
+					unitsOut.merge(day, (long) source.requestedQuantity(), Long::sum);
+				}
+			}
+		}
+		return unitsOut;
+	}
+
+	private double time(String label, IntSupplier run) {
+		for (int i = 0; i < 30; i++) {
+			run.getAsInt(); // warm-up (JIT + Hibernate query plan cache)
+		}
+		long began = System.nanoTime();
+		int rows = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			rows = run.getAsInt();
+		}
+		double millis = (System.nanoTime() - began) / 1e6 / ROUNDS;
+		System.out.printf("[rollup] %-28s %8.2f ms/call (%d days)%n", label, millis, rows);
+		return millis;
+	}
+
+	private List<Long> seed() {
+		User user = new User();
+		user.setEmail("rollup@school.test");
+		user.setRole(Role.STUDENT);
+		Long userId = userRepository.save(user).getUserId();
+		List<Long> items = new ArrayList<>(ITEMS);
+		for (int i = 0; i < ITEMS; i++) {
+			items.add(equipmentRepository.save(Equipment.builder().name("Item-" + i).category("Category-" + (i % 10))
+					.condition(EquipmentCondition.GOOD).totalQuantity(1_000).availableQuantity(1_000).build())
+					.getEquipmentId());
+		}
+		RequestStatus[] statuses = { RequestStatus.APPROVED, RequestStatus.RETURNED, RequestStatus.REJECTED,
+				RequestStatus.PENDING, RequestStatus.RETURNED };
+		LocalDate first = LocalDate.now().minusDays(HISTORY_DAYS);
+		Timestamp changed = Timestamp.from(Instant.now().minusSeconds(60));
+		List<Object[]> rows = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			LocalDate requested = first.plusDays(i % HISTORY_DAYS);
+			LocalDate start = requested.plusDays(i % 5);
+			rows.add(new Object[] { userId, items.get(i % ITEMS), 1 + i % 3, Date.valueOf(requested),
+					Date.valueOf(start), Date.valueOf(start.plusDays(1 + i % 14)), statuses[i % statuses.length].name(),
+					changed });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO borrow_requests (request_id, user_id, equipment_id, requested_quantity, "
+				+ "request_date, start_date, end_date, status, updated_at) "
+				+ "VALUES (NEXT VALUE FOR borrow_requests_seq, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+		return items;
+	}
+}
@@ -0,0 +1,130 @@
+package com.school.lending.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.school.lending.SchoolLendingApplication;
+
+/**
+ * Drives a login burst at the running application, once with Tomcat on its
+ * platform thread pool and once on virtual threads, and reports throughput
+ * and latency percentiles for each mode.
+ *
+ * Every /api/auth/login blocks on a password grant against a local Keycloak
+ * stub that answers after KEYCLOAK_LATENCY_MS. CLIENTS callers each send
+ * REQUESTS_PER_CLIENT logins back to back. The Keycloak connection pool is
+ * sized above CLIENTS for both runs, so the only difference between them is
+ * the request thread model: 200 platform threads cap the logins in flight,
+ * virtual threads do not.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=VirtualThreadLoadBenchmark
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+	private static final int CLIENTS = 400;
+	private static final int REQUESTS_PER_CLIENT = 8;
+	private static final int WARM_UP_PER_CLIENT = 2;
+	private static final long KEYCLOAK_LATENCY_MS = 1000;
+	private static final String USER = "load@school.test";
+
+	private KeycloakStub keycloak;
+
+	@BeforeEach
+	void startKeycloakStub() throws IOException {
+		keycloak = new KeycloakStub(Duration.ofMillis(KEYCLOAK_LATENCY_MS)).user(USER, "STUDENT");
+	}
+
+	@AfterEach
+	void stopKeycloakStub() {
+		keycloak.close();
+	}
+
+	@Test
+	void loginBurstInPlatformAndVirtualMode() throws Exception {
+		double platform = run(false);
+		double virtual = run(true);
+		System.out.printf("[virtual-threads] login throughput %.1fx with virtual threads%n", virtual / platform);
+	}
+
+	// Starts the application in the given mode, runs the burst, and returns logins per second
+	private double run(boolean virtualThreads) throws Exception {
+		List<String> args = new ArrayList<>(keycloak.applicationArgs());
+		args.addAll(List.of("--spring.profiles.active=test", "--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:vt-load-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--lending.keycloak.http.max-connections=" + (CLIENTS + 100),
+				"--lending.keycloak.http.pool-wait-timeout=30s", "--logging.level.root=WARN"));
+		try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SchoolLendingApplication.class)
+				.run(args.toArray(String[]::new))) {
+			URI login = URI.create("http://127.0.0.1:"
+					+ ((WebServerApplicationContext) app).getWebServer().getPort() + "/api/auth/login");
+			burst(login, WARM_UP_PER_CLIENT);
+			int before = keycloak.tokenCalls();
+			long began = System.nanoTime();
+			long[] latencies = burst(login, REQUESTS_PER_CLIENT);
+			double seconds = (System.nanoTime() - began) / 1e9;
+			assertEquals(latencies.length, keycloak.tokenCalls() - before);
+
+			Arrays.sort(latencies);
+			double perSecond = latencies.length / seconds;
+			System.out.printf(
+					"[virtual-threads] %-8s %6d logins in %5.2f s: %7.0f logins/s, p50 %4d ms, p99 %4d ms, max %4d ms%n",
+					virtualThreads ? "virtual" : "platform", latencies.length, seconds, perSecond,
+					percentile(latencies, 50), percentile(latencies, 99), latencies[latencies.length - 1]);
+			return perSecond;
+		}
+	}
+
+	// CLIENTS concurrent callers each send perClient logins; returns every latency in milliseconds
+	private long[] burst(URI login, int perClient) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(login).header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + USER + "\",\"password\":\"pw\"}"))
+				.build();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+				HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+			List<Future<long[]>> callers = new ArrayList<>();
+			for (int c = 0; c < CLIENTS; c++) {
+				callers.add(clients.submit(() -> {
+					long[] mine = new long[perClient];
+					for (int i = 0; i < perClient; i++) {
+						long sent = System.nanoTime();
+						HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+						mine[i] = (System.nanoTime() - sent) / 1_000_000;
+						assertEquals(200, response.statusCode(), response.body());
+					}
+					return mine;
+				}));
+			}
+			long[] all = new long[CLIENTS * perClient];
+			for (int c = 0; c < CLIENTS; c++) {
+				System.arraycopy(callers.get(c).get(), 0, all, c * perClient, perClient);
+			}
+			return all;
+		}
+	}
+
+	private static long percentile(long[] sorted, int percent) {
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+	}
+}
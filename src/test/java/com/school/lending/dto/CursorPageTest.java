@@ -0,0 +1,55 @@
+package com.school.lending.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.school.lending.exception.InvalidInputException;
+
+/**
+ * Cursors round-trip, malformed ones are rejected as bad input, and the extra
+ * row of a {@code size + 1} fetch only decides whether there is a next page.
+ */
+class CursorPageTest {
+
+	@Test
+	void cursorsRoundTrip() {
+		assertEquals(0L, CursorPage.decode(null));
+		assertEquals(0L, CursorPage.decode(" "));
+		assertEquals(1234567890123L, CursorPage.decode(CursorPage.encode(1234567890123L)));
+
+		for (String bad : List.of("%%%", encoded("x:12"), encoded("k:twelve"), encoded("k:"))) {
+			assertThrows(InvalidInputException.class, () -> CursorPage.decode(bad), bad);
+		}
+	}
+
+	@Test
+	void extraRowMeansAnotherPage() {
+		CursorPage<Long> last = CursorPage.of(List.of(4L, 9L), 2, Function.identity());
+		assertEquals(List.of(4L, 9L), last.items());
+		assertNull(last.next());
+
+		CursorPage<Long> first = CursorPage.of(List.of(4L, 9L, 15L), 2, Function.identity());
+		assertEquals(List.of(4L, 9L), first.items());
+		assertEquals(9L, CursorPage.decode(first.next()), "the next page starts after the last row shown");
+	}
+
+	@Test
+	void checksPageSize() {
+		assertEquals(1, CursorPage.checkSize(1));
+		assertEquals(CursorPage.MAX_SIZE, CursorPage.checkSize(CursorPage.MAX_SIZE));
+		assertThrows(InvalidInputException.class, () -> CursorPage.checkSize(0));
+		assertThrows(InvalidInputException.class, () -> CursorPage.checkSize(CursorPage.MAX_SIZE + 1));
+	}
+
+	private static String encoded(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
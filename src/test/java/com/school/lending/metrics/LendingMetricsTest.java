@@ -0,0 +1,125 @@
+package com.school.lending.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.RequestTransitionDto;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+import com.school.lending.service.AnalyticsService;
+import com.school.lending.service.BorrowRequestService;
+import com.school.lending.service.CatalogCache;
+import com.school.lending.service.CatalogFacets;
+import com.school.lending.service.CatalogSearchIndex;
+import com.school.lending.service.EquipmentService;
+import com.school.lending.service.JpaInventoryLedger;
+import com.school.lending.service.OverdueTracker;
+import com.school.lending.service.ReservationIndex;
+import com.school.lending.service.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A batch of status changes shows up in the transition counters (applied and
+ * refused by reason), the service call timers and the domain gauges.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ BorrowRequestService.class, UserService.class, EquipmentService.class, ReservationIndex.class,
+		JpaInventoryLedger.class, CatalogCache.class, CatalogSearchIndex.class, CatalogFacets.class,
+		AnalyticsService.class, OverdueTracker.class, LendingMetrics.class, MetricsConfig.class,
+		LendingMetricsTest.Registry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LendingMetricsTest {
+
+	@TestConfiguration
+	static class Registry {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private LendingMetrics lendingMetrics;
+
+	@Autowired
+	private BorrowRequestService borrowRequestService;
+
+	@Autowired
+	private AnalyticsService analyticsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Test
+	void countsAppliedAndRefusedTransitions() {
+		lendingMetrics.bindTo(registry);
+		User user = new User();
+		user.setEmail("metrics@school.test");
+		user.setRole(Role.STUDENT);
+		userRepository.save(user);
+		Equipment camera = equipmentRepository.save(Equipment.builder().name("Camera").category("AV")
+				.condition(EquipmentCondition.GOOD).totalQuantity(2).availableQuantity(1).borrowedCount(1).build());
+		List<RequestTransitionDto> changes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			BorrowRequest request = borrowRequestRepository.save(BorrowRequest.builder().user(user)
+					.equipment(camera).requestedQuantity(1).requestDate(LocalDate.now())
+					.startDate(LocalDate.now().plusDays(1)).endDate(LocalDate.now().plusDays(3))
+					.status(RequestStatus.PENDING).build());
+			changes.add(new RequestTransitionDto(request.getRequestId(), RequestStatus.APPROVED));
+		}
+		changes.add(new RequestTransitionDto(changes.get(0).requestId(), RequestStatus.RETURNED));
+		analyticsService.reconcile();
+
+		// Returns are checked first, so the return of a pending request is refused and its
+		// approval then counts as a repeat; of the other two approvals one fits in stock
+		borrowRequestService.transitionRequests(changes);
+
+		assertEquals(1, transitions("approved", "applied"));
+		assertEquals(1, transitions("approved", "insufficient_stock"));
+		assertEquals(1, transitions("approved", "invalid_input"));
+		assertEquals(1, transitions("returned", "invalid_transition"));
+		assertEquals(1, registry.get(ServiceCallMetrics.METRIC).tag("service", "BorrowRequestService")
+				.tag("method", "transitionRequests").tag("outcome", "success").timer().count());
+		assertEquals(2, registry.get("lending.requests.pending").gauge().value());
+		assertEquals(2, registry.get("lending.equipment.units.out").gauge().value());
+	}
+
+	private double transitions(String to, String outcome) {
+		return registry.get(LendingMetrics.TRANSITIONS).tag("to", to).tag("outcome", outcome).counter().count();
+	}
+}
@@ -0,0 +1,104 @@
+package com.school.lending.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Tokens validate against keys from the local file with no call to Keycloak;
+ * a token signed with a new key triggers one refresh, which is also written
+ * back to the file.
+ */
+class JwksKeyStoreTest {
+
+	private static final String ISSUER = "http://keycloak.test/realms/school";
+
+	@TempDir
+	private Path dir;
+
+	private final AtomicInteger fetches = new AtomicInteger();
+	private final AtomicReference<String> published = new AtomicReference<>();
+
+	@Test
+	void validatesOfflineAndPicksUpRotatedKeys() throws Exception {
+		RSAKey oldKey = new RSAKeyGenerator(2048).keyID("old").generate();
+		RSAKey newKey = new RSAKeyGenerator(2048).keyID("new").generate();
+		Path file = dir.resolve("jwks/school.json");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, new JWKSet(oldKey.toPublicJWK()).toString());
+		JwksKeyStore store = new JwksKeyStore(file, this::fetch, Duration.ofSeconds(30), Clock.systemUTC());
+		JwtDecoder decoder = OfflineJwtDecoderConfig.decoder(store, ISSUER);
+
+		assertEquals("sam@school.test", decoder.decode(token(oldKey, ISSUER)).getClaimAsString("email"));
+		assertEquals(0, fetches.get());
+
+		// Keycloak rotated: the first token with the new kid refreshes the keys
+		published.set(new JWKSet(List.of(oldKey.toPublicJWK(), newKey.toPublicJWK())).toString());
+		decoder.decode(token(newKey, ISSUER));
+		decoder.decode(token(newKey, ISSUER));
+		assertEquals(1, fetches.get());
+		assertTrue(Files.readString(file).contains("\"kid\":\"new\""));
+
+		// An unknown key within the refresh interval fails without another fetch
+		RSAKey forged = new RSAKeyGenerator(2048).keyID("forged").generate();
+		assertThrows(JwtException.class, () -> decoder.decode(token(forged, ISSUER)));
+		assertThrows(JwtException.class, () -> decoder.decode(token(oldKey, "http://elsewhere.test/realms/x")));
+		assertEquals(1, fetches.get());
+	}
+
+	@Test
+	void startsWithoutFileAndLoadsKeysOnRefresh() throws Exception {
+		RSAKey key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		Path file = dir.resolve("missing.json");
+		JwksKeyStore store = new JwksKeyStore(file, this::fetch, Duration.ofSeconds(30), Clock.systemUTC());
+		assertFalse(store.hasKeys());
+
+		published.set(new JWKSet(key.toPublicJWK()).toString());
+		store.refresh();
+
+		assertTrue(store.hasKeys());
+		assertTrue(Files.exists(file));
+		OfflineJwtDecoderConfig.decoder(store, ISSUER).decode(token(key, ISSUER));
+	}
+
+	private String fetch() {
+		fetches.incrementAndGet();
+		return published.get();
+	}
+
+	private static String token(RSAKey key, String issuer) throws Exception {
+		Instant now = Instant.now();
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+				new JWTClaimsSet.Builder().jwtID(UUID.randomUUID().toString()).issuer(issuer).subject("sam")
+						.claim("email", "sam@school.test").issueTime(Date.from(now))
+						.expirationTime(Date.from(now.plusSeconds(300))).build());
+		jwt.sign(new RSASSASigner(key));
+		return jwt.serialize();
+	}
+}
@@ -0,0 +1,55 @@
+package com.school.lending.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Authorities are converted once per token and shared by every later request
+ * carrying it; a different token gets its own roles, with the same authority
+ * instances where the roles match.
+ */
+class KeycloakRoleConverterTest {
+
+	private final KeycloakRoleConverter converter = new KeycloakRoleConverter(100, Duration.ofMinutes(30));
+
+	@Test
+	void convertsEachTokenOnce() {
+		Collection<GrantedAuthority> first = converter.convert(token("a", "STUDENT", "offline_access"));
+		Collection<GrantedAuthority> again = converter.convert(token("a", "STUDENT", "offline_access"));
+		Collection<GrantedAuthority> other = converter.convert(token("b", "staff"));
+
+		assertEquals(Set.of("ROLE_STUDENT", "ROLE_OFFLINE_ACCESS"), AuthorityUtils.authorityListToSet(first));
+		assertSame(first, again);
+		assertEquals(Set.of("ROLE_STAFF"), AuthorityUtils.authorityListToSet(other));
+		assertNotSame(first, other);
+		assertSame(first.iterator().next(),
+				converter.convert(token("c", "STUDENT")).iterator().next());
+	}
+
+	@Test
+	void tokenWithoutRealmRolesHasNoAuthorities() {
+		Jwt jwt = Jwt.withTokenValue("no-roles").header("alg", "RS256").subject("x")
+				.expiresAt(Instant.now().plusSeconds(60)).build();
+
+		assertEquals(0, converter.convert(jwt).size());
+	}
+
+	private static Jwt token(String id, String... roles) {
+		return Jwt.withTokenValue("token-" + id).header("alg", "RS256").jti(id).subject("user-" + id)
+				.expiresAt(Instant.now().plusSeconds(300)).claim("realm_access", Map.of("roles", List.of(roles)))
+				.build();
+	}
+}
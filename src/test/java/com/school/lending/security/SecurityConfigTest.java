@@ -0,0 +1,49 @@
+package com.school.lending.security;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Health probes stay open while the Prometheus scrape needs the metrics (or
+ * admin) role; the utilization time series are for admins only.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class SecurityConfigTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void prometheusNeedsTheMetricsRole() throws Exception {
+		mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/actuator/prometheus")).andExpect(status().is4xxClientError());
+		mockMvc.perform(get("/actuator/prometheus").with(jwt().authorities(new SimpleGrantedAuthority("ROLE_STUDENT"))))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/actuator/prometheus").with(jwt().authorities(new SimpleGrantedAuthority("ROLE_METRICS"))))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/actuator/prometheus").with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void timeSeriesAreForAdminsOnly() throws Exception {
+		mockMvc.perform(get("/api/analytics/timeseries").with(jwt().authorities(new SimpleGrantedAuthority("ROLE_STAFF"))))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/analytics/timeseries/category/Sports")
+				.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_STAFF")))).andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/analytics/timeseries").with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,167 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.BorrowRequestDto;
+import com.school.lending.dto.EquipmentDto;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.EquipmentSnapshot;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+
+/**
+ * The dashboard counters follow committed creates, approvals, returns and
+ * deletes without querying, a reconcile corrects them when the database moved
+ * behind their back, and an event landing during a reconcile is not lost.
+ *
+ * Runs without a test transaction: the counters only see committed changes.
+ * Other tests share the database, so counts are checked against a baseline.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ AnalyticsService.class, BorrowRequestService.class, UserService.class, EquipmentService.class,
+		ReservationIndex.class, JpaInventoryLedger.class, CatalogCache.class, CatalogSearchIndex.class,
+		CatalogFacets.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AnalyticsServiceTest {
+
+	@Autowired
+	private AnalyticsService analyticsService;
+
+	@Autowired
+	private BorrowRequestService borrowRequestService;
+
+	@Autowired
+	private EquipmentService equipmentService;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private long equipment;
+	private long pending;
+	private long available;
+	private long out;
+
+	@BeforeEach
+	void baseline() {
+		analyticsService.reconcile();
+		equipment = analyticsService.totalEquipment();
+		pending = analyticsService.pendingRequests();
+		available = analyticsService.availableUnits();
+		out = analyticsService.unitsOut();
+	}
+
+	@Test
+	void countersFollowCommittedChanges() {
+		User user = new User();
+		user.setEmail("analytics@lending.test");
+		user.setRole(Role.STUDENT);
+		Long userId = userRepository.save(user).getUserId();
+
+		Equipment projector = equipmentService
+				.createEquipment(new EquipmentDto("Analytics Projector", "Analytics", EquipmentCondition.GOOD, 4, 0, 4));
+		assertCounters(1, 0, 4, 0);
+
+		BorrowRequest loan = borrowRequestService.createRequest(request(userId, projector, 3, null));
+		assertCounters(1, 1, 4, 0);
+
+		borrowRequestService.updateRequest(loan.getRequestId(), request(userId, projector, 3, RequestStatus.APPROVED));
+		assertCounters(1, 0, 1, 3);
+
+		borrowRequestService.updateRequest(loan.getRequestId(), request(userId, projector, 3, RequestStatus.RETURNED));
+		assertCounters(1, 0, 4, 0);
+
+		BorrowRequest withdrawn = borrowRequestService.createRequest(request(userId, projector, 1, null));
+		assertCounters(1, 1, 4, 0);
+		borrowRequestService.deleteRequest(withdrawn.getRequestId());
+		assertCounters(1, 0, 4, 0);
+
+		Equipment spare = equipmentService
+				.createEquipment(new EquipmentDto("Analytics Screen", "Analytics", EquipmentCondition.GOOD, 2, 0, 2));
+		assertCounters(2, 0, 6, 0);
+		equipmentService.deleteEquipment(spare.getEquipmentId());
+		assertCounters(1, 0, 4, 0);
+
+		// Changes that bypass the services publish no events; the counters only see them on reconcile
+		jdbcTemplate.update("UPDATE equipment SET available_quantity = available_quantity - 1 WHERE equipment_id = ?",
+				projector.getEquipmentId());
+		borrowRequestRepository.save(BorrowRequest.builder().user(userRepository.getReferenceById(userId))
+				.equipment(projector).requestedQuantity(1).requestDate(LocalDate.now())
+				.startDate(LocalDate.now().plusDays(1)).endDate(LocalDate.now().plusDays(2))
+				.status(RequestStatus.PENDING).build());
+		assertCounters(1, 0, 4, 0);
+
+		analyticsService.reconcile();
+		assertCounters(1, 1, 3, 1);
+		assertEquals(equipment + 1, analyticsService.getSummaryAnalytics().totalEquipment());
+		assertEquals(pending + 1, analyticsService.getSummaryAnalytics().pendingRequestsCount());
+		assertEquals(available + 3, analyticsService.getSummaryAnalytics().availableItems());
+	}
+
+	@Test
+	void keepsEventsAppliedWhileReconciling() {
+		EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+		BorrowRequestRepository requests = mock(BorrowRequestRepository.class);
+		InventoryLedger ledger = mock(InventoryLedger.class);
+		AnalyticsService analytics = new AnalyticsService(equipmentRepository, requests, ledger);
+		EquipmentSnapshot created = new EquipmentSnapshot(11L, "Late Tripod", "AV", EquipmentCondition.GOOD, 4, 4);
+
+		// The item is created after the count's snapshot but before reconcile finishes
+		when(equipmentRepository.count()).thenAnswer(invocation -> {
+			analytics.onEquipmentChanged(new EquipmentChangedEvent(EquipmentChangedEvent.Type.CREATED, 11L, null,
+					created));
+			return 10L;
+		});
+		when(requests.countByStatus(RequestStatus.PENDING)).thenReturn(0L);
+		when(ledger.totalAvailable()).thenReturn(44L);
+		when(equipmentRepository.sumTotalQuantity()).thenReturn(Optional.of(44L));
+
+		analytics.reconcile();
+		assertEquals(11, analytics.totalEquipment());
+		assertEquals(44, analytics.availableUnits());
+		assertEquals(0, analytics.unitsOut());
+	}
+
+	private void assertCounters(long equipmentDelta, long pendingDelta, long availableDelta, long outDelta) {
+		assertEquals(equipment + equipmentDelta, analyticsService.totalEquipment(), "totalEquipment");
+		assertEquals(pending + pendingDelta, analyticsService.pendingRequests(), "pendingRequests");
+		assertEquals(available + availableDelta, analyticsService.availableUnits(), "availableUnits");
+		assertEquals(out + outDelta, analyticsService.unitsOut(), "unitsOut");
+	}
+
+	private static BorrowRequestDto request(Long userId, Equipment equipment, int quantity, RequestStatus status) {
+		return new BorrowRequestDto(userId, equipment.getEquipmentId(), quantity, LocalDate.now().plusDays(1),
+				LocalDate.now().plusDays(3), status);
+	}
+}
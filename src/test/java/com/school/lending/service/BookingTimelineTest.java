@@ -0,0 +1,100 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Range add / range max over [start, end) day ranges, checked on hand-picked
+ * cases and against a plain per-day array.
+ */
+class BookingTimelineTest {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+	private final BookingTimeline timeline = new BookingTimeline();
+
+	@Test
+	void peaksOverHalfOpenRanges() {
+		timeline.add(DAY, DAY.plusDays(3), 2); // days 0-2
+		timeline.add(DAY.plusDays(3), DAY.plusDays(5), 1); // days 3-4, adjacent: no overlap
+		assertEquals(2, timeline.peak(DAY, DAY.plusDays(5)));
+		assertEquals(1, timeline.peak(DAY.plusDays(3), DAY.plusDays(5)));
+		assertEquals(0, timeline.peak(DAY.plusDays(5), DAY.plusDays(9)), "end date is free");
+
+		timeline.add(DAY.plusDays(2), DAY.plusDays(4), 3); // overlaps both on days 2 and 3
+		assertEquals(5, timeline.peak(DAY, DAY.plusDays(5)));
+		assertEquals(4, timeline.peak(DAY.plusDays(3), DAY.plusDays(4)), "single day");
+		assertEquals(2, timeline.peak(DAY.plusDays(1), DAY.plusDays(2)));
+		assertEquals(0, timeline.peak(DAY.plusDays(2), DAY.plusDays(2)), "empty range");
+
+		timeline.add(DAY, DAY.plusDays(3), -2);
+		timeline.add(DAY.plusDays(3), DAY.plusDays(5), -1);
+		timeline.add(DAY.plusDays(2), DAY.plusDays(4), -3);
+		assertEquals(0, timeline.peak(DAY.minusDays(30), DAY.plusDays(30)));
+	}
+
+	@Test
+	void partialReleaseUnderLongBooking() {
+		timeline.add(DAY, DAY.plusDays(60), 5);
+		timeline.add(DAY.plusDays(59), DAY.plusDays(60), -5); // the last day given back
+		assertEquals(0, timeline.peak(DAY.plusDays(59), DAY.plusDays(60)));
+		assertEquals(5, timeline.peak(DAY.plusDays(58), DAY.plusDays(60)));
+	}
+
+	@Test
+	void keepsFarApartBookingsSeparate() {
+		LocalDate early = LocalDate.of(1971, 1, 1);
+		LocalDate late = LocalDate.of(2300, 6, 1);
+		timeline.add(early, early.plusDays(1), 4);
+		timeline.add(late, late.plusDays(10), 7);
+		timeline.add(DAY, DAY.plusYears(1), 1);
+
+		assertEquals(4, timeline.peak(early, early.plusDays(1)));
+		assertEquals(7, timeline.peak(late.plusDays(9), late.plusDays(10)));
+		assertEquals(1, timeline.peak(early.plusDays(1), late));
+		assertEquals(7, timeline.peak(LocalDate.of(1970, 1, 1), LocalDate.of(2400, 1, 1)));
+	}
+
+	@Test
+	void matchesPerDayCounts() {
+		int days = 400;
+		int[] booked = new int[days];
+		Random random = new Random(42);
+		for (int i = 0; i < 3_000; i++) {
+			int from = random.nextInt(days);
+			int to = from + 1 + random.nextInt(Math.min(30, days - from));
+			if (random.nextInt(3) == 0) {
+				// Release part of what one of the days in range holds, never below zero
+				int units = booked[from];
+				for (int day = from; day < to; day++) {
+					units = Math.min(units, booked[day]);
+				}
+				if (units > 0) {
+					timeline.add(DAY.plusDays(from), DAY.plusDays(to), -units);
+					for (int day = from; day < to; day++) {
+						booked[day] -= units;
+					}
+				}
+			} else {
+				int units = 1 + random.nextInt(4);
+				timeline.add(DAY.plusDays(from), DAY.plusDays(to), units);
+				for (int day = from; day < to; day++) {
+					booked[day] += units;
+				}
+			}
+
+			int qFrom = random.nextInt(days);
+			int qTo = qFrom + 1 + random.nextInt(days - qFrom);
+			int expected = 0;
+			for (int day = qFrom; day < qTo; day++) {
+				expected = Math.max(expected, booked[day]);
+			}
+			assertEquals(expected, timeline.peak(DAY.plusDays(qFrom), DAY.plusDays(qTo)),
+					"peak over days " + qFrom + "-" + qTo + " after step " + i);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.school.lending.dto.BorrowRequestDto;
+import com.school.lending.exception.ConflictException;
+import com.school.lending.exception.InvalidInputException;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+import com.school.lending.repository.EquipmentRepository;
+import com.school.lending.repository.UserRepository;
+
+/**
+ * Concurrent approvals never lend more units than are on the shelf, and a
+ * request moved by someone else since it was read is refused rather than
+ * moved twice.
+ *
+ * Runs without a test transaction, so every approval commits on its own.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ BorrowRequestService.class, UserService.class, EquipmentService.class, ReservationIndex.class,
+		JpaInventoryLedger.class, CatalogCache.class, CatalogSearchIndex.class, CatalogFacets.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowRequestApprovalTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+	@Autowired
+	private BorrowRequestService borrowRequestService;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void approvesNoMoreThanTheStock() throws Exception {
+		int requests = 12;
+		int stock = 5;
+		User user = user("approval-race@lending.test");
+		Equipment camera = equipment("Approval Camera", stock);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < requests; i++) {
+			// Separate dates, so only the shelf count limits the approvals
+			ids.add(request(user, camera, 1, i * 3).getRequestId());
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(requests + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean racing = new AtomicBoolean(true);
+		try {
+			Future<Boolean> neverNegative = pool.submit(() -> {
+				boolean ok = true;
+				while (racing.get()) {
+					ok &= jdbcTemplate.queryForObject("SELECT LEAST(available_quantity, borrowed_count) FROM equipment "
+							+ "WHERE equipment_id = ?", Integer.class, camera.getEquipmentId()) >= 0;
+				}
+				return ok;
+			});
+			List<Future<?>> approvals = new ArrayList<>();
+			for (int i = 0; i < requests; i++) {
+				Long id = ids.get(i);
+				LocalDate startDate = DAY.plusDays(i * 3);
+				approvals.add(pool.submit(() -> {
+					start.await();
+					return borrowRequestService.updateRequest(id, new BorrowRequestDto(user.getUserId(),
+							camera.getEquipmentId(), 1, startDate, startDate.plusDays(2), RequestStatus.APPROVED));
+				}));
+			}
+			start.countDown();
+
+			int approved = 0;
+			for (Future<?> approval : approvals) {
+				try {
+					approval.get();
+					approved++;
+				} catch (ExecutionException e) {
+					assertInstanceOf(InvalidInputException.class, e.getCause(), "refused for lack of stock");
+				}
+			}
+			racing.set(false);
+			assertEquals(stock, approved);
+			assertTrue(neverNegative.get(), "stock counters went negative");
+		} finally {
+			racing.set(false);
+			pool.shutdown();
+		}
+
+		Equipment after = equipmentRepository.findById(camera.getEquipmentId()).orElseThrow();
+		assertEquals(0, after.getAvailableQuantity());
+		assertEquals(stock, after.getBorrowedCount());
+		List<RequestStatus> statuses = borrowRequestRepository.findAllById(ids).stream()
+				.map(BorrowRequest::getStatus).toList();
+		assertEquals(stock, statuses.stream().filter(RequestStatus.APPROVED::equals).count());
+		assertEquals(requests - stock, statuses.stream().filter(RequestStatus.PENDING::equals).count(),
+				"refused approvals leave the request pending");
+	}
+
+	@Test
+	void refusesARequestMovedSinceItWasRead() {
+		User user = user("approval-stale@lending.test");
+		Equipment tripod = equipment("Approval Tripod", 3);
+		Long id = request(user, tripod, 2, 0).getRequestId();
+		TransactionTemplate staff = new TransactionTemplate(transactionManager);
+		TransactionTemplate otherStaff = new TransactionTemplate(transactionManager);
+		otherStaff.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		assertThrows(ConflictException.class, () -> staff.executeWithoutResult(status -> {
+			// Read while pending; the copy in this transaction goes stale below
+			borrowRequestService.getRequestById(id).orElseThrow();
+			otherStaff.executeWithoutResult(
+					other -> borrowRequestService.updateRequest(id, approval(user, tripod, RequestStatus.REJECTED)));
+			borrowRequestService.updateRequest(id, approval(user, tripod, RequestStatus.APPROVED));
+		}));
+
+		assertEquals(RequestStatus.REJECTED, borrowRequestRepository.findById(id).orElseThrow().getStatus());
+		Equipment after = equipmentRepository.findById(tripod.getEquipmentId()).orElseThrow();
+		assertEquals(3, after.getAvailableQuantity(), "the refused approval moved no stock");
+		assertEquals(0, after.getBorrowedCount());
+	}
+
+	private BorrowRequestDto approval(User user, Equipment equipment, RequestStatus status) {
+		return new BorrowRequestDto(user.getUserId(), equipment.getEquipmentId(), 2, DAY, DAY.plusDays(2), status);
+	}
+
+	private User user(String email) {
+		User user = new User();
+		user.setEmail(email);
+		user.setRole(Role.STUDENT);
+		return userRepository.save(user);
+	}
+
+	private Equipment equipment(String name, int quantity) {
+		return equipmentRepository.save(Equipment.builder().name(name).category("Approval")
+				.condition(EquipmentCondition.GOOD).totalQuantity(quantity).availableQuantity(quantity).build());
+	}
+
+	private BorrowRequest request(User user, Equipment equipment, int quantity, int startDay) {
+		return borrowRequestRepository.save(BorrowRequest.builder().user(user).equipment(equipment)
+				.requestedQuantity(quantity).requestDate(LocalDate.now()).startDate(DAY.plusDays(startDay))
+				.endDate(DAY.plusDays(startDay + 2)).status(RequestStatus.PENDING).build());
+	}
+}
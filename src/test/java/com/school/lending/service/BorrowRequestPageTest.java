@@ -0,0 +1,129 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.school.lending.dto.BorrowRequestFilter;
+import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+import com.school.lending.repository.BorrowRequestRepository;
+
+/**
+ * Each filter, alone and combined, selects the right requests, and following
+ * {@code next} walks them in id order without gaps or repeats.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ BorrowRequestService.class, UserService.class, EquipmentService.class, ReservationIndex.class,
+		JpaInventoryLedger.class, CatalogCache.class, CatalogSearchIndex.class, CatalogFacets.class })
+class BorrowRequestPageTest {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+	@Autowired
+	private BorrowRequestService borrowRequestService;
+
+	@Autowired
+	private BorrowRequestRepository borrowRequestRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private User ada;
+	private User ben;
+	private Long pendingAv;
+	private Long approvedSports;
+	private Long approvedAv;
+	private Long returnedSports;
+	private Long rejectedAv;
+
+	@BeforeEach
+	void seed() {
+		ada = user("ada@page.test");
+		ben = user("ben@page.test");
+		Equipment camera = equipment("Page Camera", "Page-AV");
+		Equipment ball = equipment("Page Ball", "Page-Sports");
+		pendingAv = request(ada, camera, RequestStatus.PENDING, 1, 3);
+		approvedSports = request(ada, ball, RequestStatus.APPROVED, 5, 8);
+		approvedAv = request(ben, camera, RequestStatus.APPROVED, 2, 4);
+		returnedSports = request(ben, ball, RequestStatus.RETURNED, 10, 12);
+		rejectedAv = request(ada, camera, RequestStatus.REJECTED, 3, 5);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void filtersAloneAndCombined() {
+		assertEquals(List.of(pendingAv, approvedSports, rejectedAv), ids(filter(ada.getUserId(), null, null, null, null)));
+		assertEquals(List.of(approvedAv), ids(filter(null, RequestStatus.APPROVED, null, null, "Page-AV")));
+		assertEquals(List.of(pendingAv, approvedAv, rejectedAv), ids(filter(null, null, null, null, "Page-AV")));
+		// Overlap with [from, to): a loan ending on from, or starting on to, is outside
+		assertEquals(List.of(rejectedAv), ids(filter(ada.getUserId(), null, DAY.plusDays(3), DAY.plusDays(5), null)));
+		assertEquals(List.of(returnedSports), ids(filter(ben.getUserId(), null, DAY.plusDays(11), null, null)));
+		assertEquals(List.of(pendingAv, approvedAv), ids(filter(null, null, null, DAY.plusDays(3), "Page-AV")));
+		assertEquals(List.of(rejectedAv), ids(filter(ada.getUserId(), RequestStatus.REJECTED, DAY.plusDays(4),
+				DAY.plusDays(5), "Page-AV")));
+		assertEquals(List.of(), ids(filter(ben.getUserId(), RequestStatus.PENDING, null, null, null)));
+	}
+
+	@Test
+	void pagesFollowTheCursor() {
+		BorrowRequestFilter mine = new BorrowRequestFilter(ada.getUserId(), null, null, null, null);
+		CursorPage<BorrowRequestResponseDto> first = borrowRequestService.getRequestPage(mine, null, 2);
+		assertEquals(List.of(pendingAv, approvedSports), ids(first.items()));
+
+		CursorPage<BorrowRequestResponseDto> second = borrowRequestService.getRequestPage(mine, first.next(), 2);
+		assertEquals(List.of(rejectedAv), ids(second.items()));
+		assertNull(second.next());
+
+		// Exactly a page's worth: no cursor to an empty page
+		assertNull(borrowRequestService.getRequestPage(mine, null, 3).next());
+	}
+
+	private List<BorrowRequestResponseDto> filter(Long userId, RequestStatus status, LocalDate from, LocalDate to,
+			String category) {
+		return borrowRequestRepository.findPage(0, new BorrowRequestFilter(userId, status, from, to, category), 50);
+	}
+
+	private static List<Long> ids(List<BorrowRequestResponseDto> rows) {
+		return rows.stream().map(BorrowRequestResponseDto::requestId).toList();
+	}
+
+	private User user(String email) {
+		User user = new User();
+		user.setEmail(email);
+		user.setRole(Role.STUDENT);
+		return entityManager.persist(user);
+	}
+
+	private Equipment equipment(String name, String category) {
+		return entityManager.persist(Equipment.builder().name(name).category(category)
+				.condition(EquipmentCondition.GOOD).totalQuantity(5).availableQuantity(5).build());
+	}
+
+	private Long request(User user, Equipment equipment, RequestStatus status, int startDay, int endDay) {
+		return entityManager.persist(BorrowRequest.builder().user(user).equipment(equipment).requestedQuantity(1)
+				.requestDate(DAY).startDate(DAY.plusDays(startDay)).endDate(DAY.plusDays(endDay)).status(status)
+				.build()).getRequestId();
+	}
+}
@@ -0,0 +1,209 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.school.lending.dto.BorrowRequestFilter;
+import com.school.lending.dto.BorrowRequestResponseDto;
+import com.school.lending.dto.CursorPage;
+import com.school.lending.dto.RequestTransitionDto;
+import com.school.lending.dto.RequestTransitionResultDto;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The request listings must cost the same number of SQL statements whether
+ * they return one row or many (no N+1 lazy loading of equipment/user).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ BorrowRequestService.class, UserService.class, EquipmentService.class, ReservationIndex.class,
+		JpaInventoryLedger.class, CatalogCache.class, CatalogSearchIndex.class, CatalogFacets.class })
+class BorrowRequestServiceQueryCountTest {
+
+	@Autowired
+	private BorrowRequestService borrowRequestService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void userListingUsesConstantStatements() {
+		User oneRowUser = seed("one@school.test", 1);
+		User manyRowsUser = seed("many@school.test", 40);
+
+		long small = statementsFor(() -> requestsOf(oneRowUser), 1);
+		long large = statementsFor(() -> requestsOf(manyRowsUser), 40);
+
+		assertEquals(small, large);
+	}
+
+	@Test
+	void statusListingUsesConstantStatements() {
+		seed("pending@school.test", 1);
+		long small = statementsFor(() -> borrowRequestService.getRequestsByStatus(RequestStatus.PENDING), 1);
+
+		seed("more-pending@school.test", 40);
+		long large = statementsFor(() -> borrowRequestService.getRequestsByStatus(RequestStatus.PENDING), 41);
+
+		assertEquals(1, small);
+		assertEquals(small, large);
+	}
+
+	@Test
+	void exportStreamsEveryRowFromOneStatement() {
+		seed("export@school.test", 25);
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+		borrowRequestService.exportRequests(ndjson, false);
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		borrowRequestService.exportRequests(csv, true);
+
+		String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(25, lines.length);
+		assertTrue(lines[0].startsWith("{\"requestId\":"));
+		assertEquals(26, csv.toString(StandardCharsets.UTF_8).split("\n").length); // header + rows
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void batchStatusChangeUsesConstantStatements() {
+		User user = seed("batch@school.test", 40);
+		List<RequestTransitionDto> changes = new ArrayList<>();
+		List<BorrowRequestResponseDto> pending = requestsOf(user);
+		for (int i = 0; i < pending.size(); i++) {
+			changes.add(new RequestTransitionDto(pending.get(i).requestId(),
+					i % 4 == 0 ? RequestStatus.REJECTED : RequestStatus.APPROVED));
+		}
+		changes.add(new RequestTransitionDto(pending.get(1).requestId(), RequestStatus.APPROVED));
+		changes.add(new RequestTransitionDto(-1L, RequestStatus.APPROVED));
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		List<RequestTransitionResultDto> results = borrowRequestService.transitionRequests(changes);
+
+		// Lock the requests, lock their equipment, one UPDATE per target status; the
+		// stock movements go out as a single JDBC batch (not counted by Hibernate)
+		assertEquals(4, statistics.getPrepareStatementCount());
+		assertEquals(40, results.stream().filter(RequestTransitionResultDto::applied).count());
+		assertFalse(results.get(40).applied()); // repeated request
+		assertFalse(results.get(41).applied()); // unknown request
+		entityManager.clear();
+		assertEquals(30, borrowRequestService.getRequestsByStatus(RequestStatus.APPROVED).size());
+		assertEquals(10, borrowRequestService.getRequestsByStatus(RequestStatus.REJECTED).size());
+		Equipment approved = entityManager.find(Equipment.class, pending.get(1).equipmentId());
+		assertEquals(2, approved.getAvailableQuantity());
+		assertEquals(1, approved.getBorrowedCount());
+	}
+
+	@Test
+	void batchApprovalsStopWhenStockRunsOut() {
+		User user = new User();
+		user.setEmail("stock@school.test");
+		user.setRole(Role.STUDENT);
+		entityManager.persist(user);
+		Equipment camera = Equipment.builder().name("Camera").category("AV").condition(EquipmentCondition.GOOD)
+				.totalQuantity(3).availableQuantity(1).borrowedCount(2).build();
+		entityManager.persist(camera);
+		List<RequestTransitionDto> changes = new ArrayList<>();
+		RequestStatus[] from = { RequestStatus.PENDING, RequestStatus.PENDING, RequestStatus.PENDING,
+				RequestStatus.APPROVED };
+		for (RequestStatus status : from) {
+			BorrowRequest request = entityManager.persist(BorrowRequest.builder().user(user).equipment(camera)
+					.requestedQuantity(1).requestDate(LocalDate.now()).startDate(LocalDate.now().plusDays(1))
+					.endDate(LocalDate.now().plusDays(3)).status(status).build());
+			changes.add(new RequestTransitionDto(request.getRequestId(),
+					status == RequestStatus.PENDING ? RequestStatus.APPROVED : RequestStatus.RETURNED));
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		// One unit in stock plus one coming back in the same batch: two of three approvals fit
+		List<RequestTransitionResultDto> results = borrowRequestService.transitionRequests(changes);
+
+		assertEquals(List.of(true, true, false, true),
+				results.stream().map(RequestTransitionResultDto::applied).toList());
+		entityManager.clear();
+		Equipment stored = entityManager.find(Equipment.class, camera.getEquipmentId());
+		assertEquals(0, stored.getAvailableQuantity());
+		assertEquals(3, stored.getBorrowedCount());
+	}
+
+	private long statementsFor(Supplier<List<BorrowRequestResponseDto>> listing, int expectedRows) {
+		// Start from an empty persistence context so nothing is served from the first-level cache
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		List<BorrowRequestResponseDto> rows = listing.get();
+
+		assertEquals(expectedRows, rows.size());
+		rows.forEach(row -> assertEquals("Projector " + row.equipmentId(), row.equipmentName()));
+		return statistics.getPrepareStatementCount();
+	}
+
+	// One page of the user's requests, large enough for every seed here
+	private List<BorrowRequestResponseDto> requestsOf(User user) {
+		return borrowRequestService.getRequestPage(new BorrowRequestFilter(user.getUserId(), null, null, null, null),
+				null, CursorPage.DEFAULT_SIZE).items();
+	}
+
+	private User seed(String email, int requests) {
+		User user = new User();
+		user.setEmail(email);
+		user.setRole(Role.STUDENT);
+		entityManager.persist(user);
+		for (int i = 0; i < requests; i++) {
+			// A distinct equipment row per request, so lazy loading would need one SELECT each
+			Equipment equipment = Equipment.builder().name("tmp").category("AV")
+					.condition(EquipmentCondition.GOOD).totalQuantity(3).availableQuantity(3).build();
+			entityManager.persist(equipment);
+			equipment.setName("Projector " + equipment.getEquipmentId());
+			entityManager.persist(BorrowRequest.builder().user(user).equipment(equipment).requestedQuantity(1)
+					.requestDate(LocalDate.now()).startDate(LocalDate.now().plusDays(1))
+					.endDate(LocalDate.now().plusDays(3)).status(RequestStatus.PENDING).build());
+		}
+		return user;
+	}
+}
@@ -0,0 +1,111 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.OnboardingFailureDto;
+import com.school.lending.dto.OnboardingJobDto;
+import com.school.lending.dto.RegisterRequest;
+import com.school.lending.repository.UserRepository;
+
+/**
+ * A bulk onboarding job registers the valid rows, reports the others with a
+ * reason, and removes the Keycloak user of a row whose local insert failed.
+ */
+@DataJpaTest(properties = "lending.onboarding.insert-batch-size=4")
+@ActiveProfiles("test")
+@Import({ BulkOnboardingService.class, UserService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the job commits from its own thread
+class BulkOnboardingServiceTest {
+
+	@Autowired
+	private BulkOnboardingService bulkOnboardingService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@MockitoBean
+	private KeycloakUserService keycloakUserService;
+
+	@Test
+	void registersValidRowsAndReportsTheRest() throws Exception {
+		userService.registerUserLocally(new RegisterRequest("Old", "Student", "old@bulk.test", "STUDENT", "pw"));
+		userService.registerUserLocally(new RegisterRequest("Mixed", "Case", "Mixed.Case@Bulk.test", "STUDENT", "pw"));
+		when(keycloakUserService.createUserAndAssignDefaultRole(any())).thenAnswer(call -> {
+			String email = call.<RegisterRequest>getArgument(0).email();
+			if (email.startsWith("down")) {
+				throw new IllegalStateException("Keycloak unavailable");
+			}
+			return "kc-" + email;
+		});
+		String tooLong = "x".repeat(300) + "@bulk.test"; // accepted by Keycloak, too long for the users table
+
+		List<RegisterRequest> rows = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			rows.add(new RegisterRequest("New", "Student" + i, "new" + i + "@bulk.test", i % 2 == 0 ? "student" : null,
+					"pw"));
+		}
+		rows.add(new RegisterRequest("Dup", "Student", "NEW1@bulk.test", "STUDENT", "pw")); // row 11
+		rows.add(new RegisterRequest("Old", "Student", "old@bulk.test", "STUDENT", "pw")); // row 12
+		rows.add(new RegisterRequest("Bad", "Role", "badrole@bulk.test", "JANITOR", "pw")); // row 13
+		rows.add(new RegisterRequest("No", "Password", "nopw@bulk.test", "STUDENT", null)); // row 14
+		rows.add(new RegisterRequest("Down", "Student", "down@bulk.test", "STUDENT", "pw")); // row 15
+		rows.add(new RegisterRequest("Long", "Email", tooLong, "STUDENT", "pw")); // row 16
+		rows.add(new RegisterRequest("Mixed", "Case", "mixed.case@bulk.test", "STUDENT", "pw")); // row 17
+
+		OnboardingJobDto job = bulkOnboardingService.start(rows);
+		Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+		while (job.status() == OnboardingJobDto.Status.RUNNING && Instant.now().isBefore(deadline)) {
+			Thread.sleep(20);
+			job = bulkOnboardingService.getJob(job.jobId()).orElseThrow();
+		}
+
+		assertEquals(OnboardingJobDto.Status.COMPLETED, job.status());
+		assertEquals(17, job.processed());
+		assertEquals(10, job.succeeded());
+		Map<Integer, String> failures = job.failures().stream()
+				.collect(Collectors.toMap(OnboardingFailureDto::row, OnboardingFailureDto::reason));
+		assertEquals(List.of(11, 12, 13, 14, 15, 16, 17), failures.keySet().stream().sorted().toList());
+		assertEquals("Email is repeated in the batch (first on row 2)", failures.get(11));
+		assertEquals("Email is already registered", failures.get(12));
+		assertEquals("Email is already registered", failures.get(17));
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals("Student" + i, userRepository.findByEmail("new" + i + "@bulk.test").orElseThrow().getLastName());
+		}
+		verify(keycloakUserService).deleteUser("kc-" + tooLong);
+		verify(keycloakUserService, never()).deleteUser("kc-new0@bulk.test");
+	}
+
+	@Test
+	void parsesCsvWithOrWithoutHeader() {
+		List<RegisterRequest> withHeader = BulkOnboardingService
+				.parseCsv("email,firstName,lastName,password\nann@bulk.test,Ann,\"Lee, Jr.\",\"p\"\"w\"\n\n");
+		assertEquals(List.of(new RegisterRequest("Ann", "Lee, Jr.", "ann@bulk.test", null, "p\"w")), withHeader);
+
+		List<RegisterRequest> positional = BulkOnboardingService.parseCsv("Bo,Ng,bo@bulk.test,STAFF,pw");
+		assertEquals(List.of(new RegisterRequest("Bo", "Ng", "bo@bulk.test", "STAFF", "pw")), positional);
+	}
+}
@@ -0,0 +1,68 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.EquipmentDto;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Catalog reads are served from the cache until a committed write touches the
+ * item, after which the next read sees the new state.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ EquipmentService.class, ReservationIndex.class, JpaInventoryLedger.class, CatalogCache.class,
+		CatalogSearchIndex.class, CatalogFacets.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // invalidation happens after commit
+class CatalogCacheTest {
+
+	@Autowired
+	private EquipmentService equipmentService;
+
+	@Autowired
+	private CatalogCache catalogCache;
+
+	@Test
+	void writesInvalidateCachedReads() {
+		Equipment camera = equipmentService
+				.createEquipment(new EquipmentDto("Cache Camera", "Cache-AV", EquipmentCondition.GOOD, 4, 0, 0));
+		Long id = camera.getEquipmentId();
+
+		equipmentService.getEquipmentById(id);
+		equipmentService.searchByCategory("Cache-AV");
+		equipmentService.getAvailableEquipment("Cache-AV", null, 10);
+		long missesBefore = catalogCache.stats().misses();
+		equipmentService.getEquipmentById(id);
+		equipmentService.searchByCategory("Cache-AV");
+		equipmentService.getAvailableEquipment("Cache-AV", null, 10);
+		assertEquals(missesBefore, catalogCache.stats().misses(), "repeated reads are cache hits");
+
+		LocalDate start = LocalDate.now().plusDays(1);
+		equipmentService.approveRequest(equipmentService.getEquipmentById(id).orElseThrow(), 3, start,
+				start.plusDays(2));
+		assertEquals(1, equipmentService.getEquipmentById(id).orElseThrow().getAvailableQuantity());
+		assertEquals(1, equipmentService.searchByCategory("Cache-AV").get(0).getAvailableQuantity());
+		assertEquals(1, equipmentService.getAvailableEquipment("Cache-AV", null, 10).items().get(0)
+				.availableQuantity());
+
+		equipmentService.updateEquipment(id, new EquipmentDto("Cache Camera", "Cache-Video", EquipmentCondition.GOOD,
+				4, 0, 0));
+		assertEquals(0, equipmentService.searchByCategory("Cache-AV").size());
+		assertEquals("Cache-Video", equipmentService.getEquipmentById(id).orElseThrow().getCategory());
+
+		// Callers get copies, so mutating a result doesn't corrupt the cache
+		equipmentService.getEquipmentById(id).orElseThrow().setName("changed");
+		assertEquals("Cache Camera", equipmentService.getEquipmentById(id).orElseThrow().getName());
+	}
+}
@@ -0,0 +1,101 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.school.lending.dto.EquipmentBrowseDto;
+import com.school.lending.dto.EquipmentDto;
+import com.school.lending.dto.EquipmentFacetsDto;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Facet counts follow creates, edits, approvals, returns and deletes as they
+ * commit, and always agree with a recount of the table.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ EquipmentService.class, ReservationIndex.class, JpaInventoryLedger.class, CatalogCache.class,
+		CatalogSearchIndex.class, CatalogFacets.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // counts move after commit
+class CatalogFacetsTest {
+
+	@Autowired
+	private EquipmentService equipmentService;
+
+	@Autowired
+	private CatalogFacets catalogFacets;
+
+	@Test
+	void countsFollowCommittedChanges() {
+		catalogFacets.load();
+		Equipment tripod = equipmentService
+				.createEquipment(new EquipmentDto("Facet Tripod", "Facet-AV", EquipmentCondition.GOOD, 2, 0, 0));
+		Equipment ball = equipmentService
+				.createEquipment(new EquipmentDto("Facet Ball", "Facet-Sports", EquipmentCondition.NEW, 5, 0, 0));
+		equipmentService
+				.createEquipment(new EquipmentDto("Facet Mic", "Facet-AV", EquipmentCondition.FAIR, 1, 0, 0));
+
+		EquipmentFacetsDto av = catalogFacets.facets("Facet-AV", null, false);
+		assertEquals(Map.of(EquipmentCondition.GOOD, 1, EquipmentCondition.FAIR, 1), av.conditions());
+		assertEquals(2, av.items());
+		assertEquals(3, av.totalUnits());
+
+		// Lending out every tripod takes it out of the in-stock counts
+		LocalDate start = LocalDate.now().plusDays(1);
+		equipmentService.approveRequest(tripod, 2, start, start.plusDays(3));
+		av = catalogFacets.facets("Facet-AV", null, true);
+		assertEquals(Map.of(EquipmentCondition.FAIR, 1), av.conditions());
+		assertEquals(1, av.inStockItems());
+		assertEquals(1, av.availableUnits());
+
+		// An edit moves the item between categories and resizes it around the loaned units
+		equipmentService.updateEquipment(tripod.getEquipmentId(),
+				new EquipmentDto("Facet Tripod", "Facet-Sports", EquipmentCondition.GOOD, 3, 0, 0));
+		EquipmentFacetsDto sports = catalogFacets.facets("Facet-Sports", null, false);
+		assertEquals(2, sports.items());
+		assertEquals(2, sports.inStockItems());
+		assertEquals(8, sports.totalUnits());
+		assertEquals(6, sports.availableUnits());
+		assertEquals(1, catalogFacets.facets(null, EquipmentCondition.GOOD, true).categories().get("Facet-Sports"));
+
+		equipmentService.returnRequest(tripod, 2);
+		equipmentService.deleteEquipment(ball.getEquipmentId());
+		assertEquals(3, catalogFacets.facets("Facet-Sports", null, true).availableUnits());
+
+		EquipmentFacetsDto incremental = catalogFacets.facets(null, null, false);
+		catalogFacets.load();
+		assertEquals(catalogFacets.facets(null, null, false), incremental);
+	}
+
+	@Test
+	void browseReturnsFilteredPageWithFacets() {
+		catalogFacets.load();
+		for (int i = 1; i <= 3; i++) {
+			equipmentService.createEquipment(
+					new EquipmentDto("Browse Drill " + i, "Browse-Workshop", EquipmentCondition.GOOD, 1, 0, 0));
+		}
+		equipmentService.createEquipment(
+				new EquipmentDto("Browse Saw", "Browse-Workshop", EquipmentCondition.POOR, 1, 0, 0));
+
+		EquipmentBrowseDto first = equipmentService.browse("Browse-Workshop", EquipmentCondition.GOOD, false, null, 2);
+		assertEquals(2, first.items().size());
+		assertEquals(Map.of(EquipmentCondition.GOOD, 3, EquipmentCondition.POOR, 1), first.facets().conditions());
+		assertEquals(3, first.facets().items());
+
+		EquipmentBrowseDto second = equipmentService.browse("Browse-Workshop", EquipmentCondition.GOOD, false,
+				first.next(), 2);
+		assertEquals(1, second.items().size());
+		assertEquals(null, second.next());
+	}
+}
@@ -0,0 +1,83 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.school.lending.dto.EquipmentSuggestionDto;
+import com.school.lending.event.EquipmentChangedEvent;
+import com.school.lending.event.EquipmentSnapshot;
+import com.school.lending.model.EquipmentCondition;
+
+/**
+ * Prefix, substring and misspelled queries find the right items, and catalog
+ * changes show up in the results as their events arrive.
+ */
+class CatalogSearchIndexTest {
+
+	private final CatalogSearchIndex index = new CatalogSearchIndex(null);
+
+	@Test
+	void completesPrefixesAndToleratesTypos() {
+		index.put(item(1L, "Epson Projector EB-X49", "AV", EquipmentCondition.GOOD));
+		index.put(item(2L, "Projector Screen", "AV", EquipmentCondition.NEW));
+		index.put(item(3L, "Basketball", "Sports", EquipmentCondition.FAIR));
+		index.put(item(4L, "Microscope (Zeiss)", "Science", EquipmentCondition.GOOD));
+		index.put(item(5L, "Café Espresso Machine", "Staff Room", EquipmentCondition.POOR));
+
+		// Names starting with the prefix first, then names with a word starting with it
+		assertEquals(List.of(2L, 1L), ids(index.complete("Proj", 10)));
+		assertEquals(List.of(1L), ids(index.complete("epson pro", 10)));
+		assertEquals(List.of(5L), ids(index.complete("cafe", 10)));
+
+		assertEquals(3L, ids(index.search("ketba", 5)).get(0), "substring");
+		assertEquals(4L, ids(index.search("microscop zeis", 5)).get(0), "missing letters");
+		assertEquals(1L, ids(index.search("projecter ebx49", 5)).get(0), "typo");
+		assertEquals(3L, ids(index.complete("baskteball", 5)).get(0), "typo falls back to search");
+		assertEquals(Set.of(1L, 4L), Set.copyOf(ids(index.search("good", 5))), "condition");
+		assertTrue(index.search("zzzz", 5).isEmpty());
+	}
+
+	@Test
+	void followsCatalogChanges() {
+		EquipmentSnapshot ball = new EquipmentSnapshot(7L, "Volleyball", "Sports", EquipmentCondition.GOOD, 4, 4);
+		index.onEquipmentChanged(new EquipmentChangedEvent(EquipmentChangedEvent.Type.CREATED, 7L, null, ball));
+		assertEquals(List.of(7L), ids(index.complete("volley", 5)));
+
+		EquipmentSnapshot renamed = new EquipmentSnapshot(7L, "Beach Volleyball", "Outdoor", EquipmentCondition.FAIR,
+				4, 4);
+		index.onEquipmentChanged(new EquipmentChangedEvent(EquipmentChangedEvent.Type.UPDATED, 7L, ball, renamed));
+		assertEquals(List.of(7L), ids(index.complete("beach", 5)));
+		assertEquals("Outdoor", index.search("outdor", 5).get(0).category());
+		assertTrue(index.search("sports", 5).isEmpty());
+
+		index.onEquipmentChanged(new EquipmentChangedEvent(EquipmentChangedEvent.Type.DELETED, 7L, renamed, null));
+		assertTrue(index.complete("beach", 5).isEmpty());
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void compactsAfterManyEdits() {
+		for (long id = 1; id <= 2_000; id++) {
+			index.put(item(id, "Tablet " + id, "IT", EquipmentCondition.GOOD));
+		}
+		for (long id = 1; id <= 2_000; id++) {
+			index.put(item(id, "Laptop " + id, "IT", EquipmentCondition.GOOD));
+		}
+		assertEquals(2_000, index.size());
+		assertTrue(index.complete("tablet", 5).isEmpty());
+		assertEquals(List.of(1234L), ids(index.complete("laptop 1234", 5)));
+	}
+
+	private static EquipmentSuggestionDto item(Long id, String name, String category, EquipmentCondition condition) {
+		return new EquipmentSuggestionDto(id, name, category, condition);
+	}
+
+	private static List<Long> ids(List<EquipmentSuggestionDto> hits) {
+		return hits.stream().map(EquipmentSuggestionDto::equipmentId).toList();
+	}
+}
@@ -0,0 +1,89 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.school.lending.dto.AvailableEquipmentDto;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.repository.EquipmentRepository;
+
+/**
+ * Each catalog filter, alone and combined, selects the right items in id
+ * order, starting after the cursor.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class EquipmentPageTest {
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Long goodCamera;
+	private Long wornCamera;
+	private Long emptyCamera;
+	private Long goodBall;
+
+	@BeforeEach
+	void seed() {
+		goodCamera = equipment("Filter Camera A", "Filter-AV", EquipmentCondition.GOOD, 2);
+		wornCamera = equipment("Filter Camera B", "Filter-AV", EquipmentCondition.FAIR, 1);
+		emptyCamera = equipment("Filter Camera C", "Filter-AV", EquipmentCondition.GOOD, 0);
+		goodBall = equipment("Filter Ball", "Filter-Sports", EquipmentCondition.GOOD, 3);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void filtersAloneAndCombined() {
+		assertEquals(List.of(goodCamera, wornCamera, emptyCamera, goodBall), ids(page(start(), null, null, false)));
+		assertEquals(List.of(goodCamera, wornCamera, emptyCamera), ids(page(start(), "Filter-AV", null, false)));
+		assertEquals(List.of(goodCamera, emptyCamera, goodBall), ids(page(start(), null, EquipmentCondition.GOOD, false)));
+		assertEquals(List.of(goodCamera, wornCamera, goodBall), ids(page(start(), null, null, true)));
+		assertEquals(List.of(goodCamera), ids(page(start(), "Filter-AV", EquipmentCondition.GOOD, true)));
+		assertEquals(List.of(emptyCamera, goodBall), ids(page(wornCamera, null, null, false)));
+		assertEquals(List.of(), ids(page(start(), "Filter-Sports", EquipmentCondition.FAIR, false)));
+	}
+
+	@Test
+	void availablePagesSkipEmptyItems() {
+		assertEquals(List.of(goodCamera, wornCamera, goodBall), availableIds(start(), null));
+		assertEquals(List.of(goodCamera, wornCamera), availableIds(start(), "Filter-AV"));
+		assertEquals(List.of(goodBall), availableIds(wornCamera, null));
+	}
+
+	// Anything already in the table sorts before the items seeded here
+	private long start() {
+		return goodCamera - 1;
+	}
+
+	private List<Equipment> page(long afterId, String category, EquipmentCondition condition, boolean inStockOnly) {
+		return equipmentRepository.findPage(afterId, category, condition, inStockOnly, 50);
+	}
+
+	private List<Long> availableIds(long afterId, String category) {
+		return equipmentRepository.findAvailablePage(afterId, category, 50).stream()
+				.map(AvailableEquipmentDto::equipmentId).toList();
+	}
+
+	private static List<Long> ids(List<Equipment> rows) {
+		return rows.stream().map(Equipment::getEquipmentId).toList();
+	}
+
+	private Long equipment(String name, String category, EquipmentCondition condition, int available) {
+		return entityManager.persist(Equipment.builder().name(name).category(category).condition(condition)
+				.totalQuantity(3).availableQuantity(available).borrowedCount(3 - available).build())
+				.getEquipmentId();
+	}
+}
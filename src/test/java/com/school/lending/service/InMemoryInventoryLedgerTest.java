@@ -0,0 +1,199 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.repository.EquipmentRepository;
+
+/**
+ * Counter moves refuse to go negative (also under contention), roll back with
+ * their transaction, reach the database on flush, and survive a restart
+ * through the journal.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InMemoryInventoryLedgerTest {
+
+	@Autowired
+	private EquipmentRepository equipmentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@TempDir
+	private Path journalDir;
+
+	private InMemoryInventoryLedger ledger;
+
+	@AfterEach
+	void stopLedger() throws IOException {
+		if (ledger != null) {
+			ledger.stop();
+		}
+	}
+
+	@Test
+	void refusesMovesBelowZero() throws Exception {
+		Long id = item("Ledger Tripod", 3);
+		ledger = started();
+
+		assertTrue(ledger.debit(id, 2));
+		assertFalse(ledger.debit(id, 2), "only one unit left");
+		assertFalse(ledger.credit(id, 3), "only two units out");
+		assertTrue(ledger.credit(id, 2));
+		assertFalse(ledger.resize(id, -1));
+		assertEquals(3, ledger.available(id));
+		assertEquals(0, ledger.borrowed(id));
+
+		Long contended = item("Ledger Camera", 5);
+		ledger.track(equipmentRepository.findById(contended).orElseThrow());
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> debits = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				debits.add(pool.submit(() -> ledger.debit(contended, 1)));
+			}
+			int granted = 0;
+			for (Future<Boolean> debit : debits) {
+				granted += debit.get() ? 1 : 0;
+			}
+			assertEquals(5, granted);
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(0, ledger.available(contended));
+		assertEquals(5, ledger.borrowed(contended));
+	}
+
+	@Test
+	void rollbackUndoesMoves() throws Exception {
+		Long id = item("Ledger Drill", 4);
+		ledger = started();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		tx.executeWithoutResult(status -> {
+			assertTrue(ledger.debit(id, 3));
+			assertTrue(ledger.resize(id, 6));
+			status.setRollbackOnly();
+		});
+		assertEquals(4, ledger.available(id));
+		assertEquals(0, ledger.borrowed(id));
+
+		tx.executeWithoutResult(status -> assertTrue(ledger.debit(id, 3)));
+		assertEquals(1, ledger.available(id));
+		assertEquals(3, ledger.borrowed(id));
+	}
+
+	@Test
+	void flushWritesBackAndDropsSealedSegments() throws Exception {
+		Long id = item("Ledger Saw", 3);
+		ledger = started();
+		assertTrue(ledger.debit(id, 2));
+		assertEquals(List.of(id + ",1,2"), Files.readAllLines(journalDir.resolve("ledger-1.journal")));
+		assertEquals(3, equipmentRepository.findAvailableQuantityById(id).orElseThrow(), "not yet written back");
+
+		ledger.flush();
+		assertEquals(1, equipmentRepository.findAvailableQuantityById(id).orElseThrow());
+		assertEquals(2, equipmentRepository.findBorrowedCountById(id).orElseThrow());
+		assertEquals(List.of("ledger-2.journal"), segmentNames());
+	}
+
+	@Test
+	void onlyCommittedMovesReachJournalAndDatabase() throws Exception {
+		Long id = item("Ledger Lamp", 4);
+		ledger = started();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Path journal = journalDir.resolve("ledger-1.journal");
+
+		tx.executeWithoutResult(status -> {
+			assertTrue(ledger.debit(id, 3));
+			assertEquals(1, ledger.available(id), "live counters hold the units at once");
+			status.setRollbackOnly();
+		});
+		assertEquals(List.of(), Files.readAllLines(journal), "a rolled-back move is never journaled");
+
+		tx.executeWithoutResult(status -> {
+			assertTrue(ledger.debit(id, 2));
+			try {
+				// A flush while the transaction is open writes none of its moves
+				assertTrue(ledger.credit(id, 2));
+				assertTrue(ledger.debit(id, 1));
+				ledger.flush();
+				assertEquals(4, equipmentRepository.findAvailableQuantityById(id).orElseThrow());
+				assertEquals(List.of(), Files.readAllLines(journal));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		assertEquals(List.of(id + ",3,1"), Files.readAllLines(journal), "one entry for the committed net move");
+		assertEquals(4, equipmentRepository.findAvailableQuantityById(id).orElseThrow(), "not yet written back");
+
+		ledger.flush();
+		assertEquals(3, equipmentRepository.findAvailableQuantityById(id).orElseThrow());
+		assertEquals(1, equipmentRepository.findBorrowedCountById(id).orElseThrow());
+	}
+
+	@Test
+	void replaysLeftoverSegmentsAtStartup() throws Exception {
+		Long id = item("Ledger Mic", 3);
+		// A crash left two segments; the last entry for the item wins, a torn line is skipped
+		Files.writeString(journalDir.resolve("ledger-6.journal"), id + ",0,3\n", StandardCharsets.US_ASCII);
+		Files.writeString(journalDir.resolve("ledger-7.journal"), id + ",1,2\n" + id + ",2", StandardCharsets.US_ASCII);
+
+		ledger = started();
+		assertEquals(1, equipmentRepository.findAvailableQuantityById(id).orElseThrow());
+		assertEquals(1, ledger.available(id));
+		assertEquals(2, ledger.borrowed(id));
+		assertEquals(List.of("ledger-8.journal"), segmentNames());
+	}
+
+	private InMemoryInventoryLedger started() throws IOException {
+		InMemoryInventoryLedger started = new InMemoryInventoryLedger(equipmentRepository, jdbcTemplate,
+				journalDir.toString());
+		started.start();
+		return started;
+	}
+
+	private Long item(String name, int quantity) {
+		return equipmentRepository.save(Equipment.builder().name(name).category("Ledger")
+				.condition(EquipmentCondition.GOOD).totalQuantity(quantity).availableQuantity(quantity)
+				.borrowedCount(0).build()).getEquipmentId();
+	}
+
+	private List<String> segmentNames() throws IOException {
+		try (Stream<Path> files = Files.list(journalDir)) {
+			return files.map(file -> file.getFileName().toString()).sorted().toList();
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.lending.dto.RegisterRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Registrations reuse the cached admin token and role id, so each one costs
+ * two Keycloak calls (create user, map role).
+ */
+class KeycloakUserServiceTest {
+
+	private HttpServer stub;
+	private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+	private volatile boolean rejectNextAdminCall;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.createContext("/realms/school/protocol/openid-connect/token",
+				exchange -> respond(exchange, "token", 200,
+						"{\"access_token\":\"admin-" + count("token") + "\",\"expires_in\":300}"));
+		stub.createContext("/admin/realms/school/roles/", exchange -> respond(exchange, "role", 200,
+				"{\"id\":\"role-id\",\"name\":\"STUDENT\"}"));
+		stub.createContext("/admin/realms/school/users", exchange -> {
+			if (rejectNextAdminCall) {
+				rejectNextAdminCall = false;
+				respond(exchange, "rejected", 401, "{}");
+			} else if (exchange.getRequestURI().getPath().endsWith("/role-mappings/realm")) {
+				respond(exchange, "role-mapping", 204, null);
+			} else {
+				exchange.getResponseHeaders().add("Location",
+						"http://127.0.0.1/admin/realms/school/users/u-" + count("user"));
+				respond(exchange, "user", 201, null);
+			}
+		});
+		stub.start();
+	}
+
+	@AfterEach
+	void stopStub() {
+		stub.stop(0);
+	}
+
+	@Test
+	void registrationsReuseAdminTokenAndRoleId() {
+		KeycloakUserService keycloak = new KeycloakUserService(new ObjectMapper(), new RestTemplate(),
+				"http://127.0.0.1:" + stub.getAddress().getPort() + "/", "school", "app", "secret");
+
+		for (int i = 0; i < 5; i++) {
+			keycloak.createUserAndAssignDefaultRole(
+					new RegisterRequest("First", "Last", "user" + i + "@school.test", "STUDENT", "pw"));
+		}
+
+		assertEquals(1, count("token"));
+		assertEquals(1, count("role"));
+		assertEquals(5, count("user"));
+		assertEquals(5, count("role-mapping"));
+
+		// A rejected admin token is replaced and the call retried once
+		rejectNextAdminCall = true;
+		keycloak.createUserAndAssignDefaultRole(
+				new RegisterRequest("First", "Last", "retry@school.test", "STUDENT", "pw"));
+		assertEquals(2, count("token"));
+		assertEquals(6, count("user"));
+	}
+
+	@Test
+	void adminTokenRefreshesAheadOfExpiryWithOneFetchInFlight() throws Exception {
+		MutableClock clock = new MutableClock();
+		AtomicInteger fetches = new AtomicInteger();
+		CountDownLatch fetching = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AdminTokenHolder holder = new AdminTokenHolder(() -> {
+			int n = fetches.incrementAndGet();
+			if (n == 2) {
+				fetching.countDown();
+				await(release);
+			}
+			return Map.of("access_token", "t" + n, "expires_in", 300);
+		}, clock);
+
+		assertEquals("t1", holder.get());
+		clock.advance(Duration.ofSeconds(200));
+		assertEquals("t1", holder.get()); // still well before expiry
+
+		// Inside the refresh window: one caller refreshes, the rest keep the old token
+		clock.advance(Duration.ofSeconds(80));
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		Future<String> refresher = callers.submit(holder::get);
+		fetching.await();
+		List<Future<String>> others = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			others.add(callers.submit(holder::get));
+		}
+		for (Future<String> other : others) {
+			assertEquals("t1", other.get());
+		}
+		release.countDown();
+		assertEquals("t2", refresher.get());
+		assertEquals("t2", holder.get());
+		assertEquals(2, fetches.get());
+
+		// After expiry every caller waits for the single refresh
+		clock.advance(Duration.ofSeconds(400));
+		List<Future<String>> waiting = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			waiting.add(callers.submit(holder::get));
+		}
+		for (Future<String> caller : waiting) {
+			assertEquals("t3", caller.get());
+		}
+		assertEquals(3, fetches.get());
+		callers.shutdown();
+	}
+
+	private int count(String call) {
+		return calls.computeIfAbsent(call, key -> new AtomicInteger()).get();
+	}
+
+	private void respond(HttpExchange exchange, String call, int status, String json) throws IOException {
+		exchange.getRequestBody().readAllBytes();
+		calls.computeIfAbsent(call, key -> new AtomicInteger()).incrementAndGet();
+		if (json == null) {
+			exchange.sendResponseHeaders(status, -1);
+			exchange.close();
+			return;
+		}
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class MutableClock extends Clock {
+		private volatile Instant now = Instant.parse("2025-01-01T08:00:00Z");
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(java.time.ZoneId zone) {
+			return this;
+		}
+	}
+}
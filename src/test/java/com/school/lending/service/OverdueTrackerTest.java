@@ -0,0 +1,122 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.school.lending.dto.ActiveLoan;
+import com.school.lending.event.BorrowRequestStatusChangedEvent;
+import com.school.lending.event.LoanDueEvent;
+import com.school.lending.model.RequestStatus;
+
+/**
+ * Reminders and overdue notices fire on the right day as the date moves,
+ * returned loans drop out, and loans due further ahead than the wheel spans
+ * wait for their lap.
+ */
+class OverdueTrackerTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+	private final MutableClock clock = new MutableClock();
+	private final List<LoanDueEvent> events = new ArrayList<>();
+	private final OverdueTracker tracker = new OverdueTracker(null, event -> events.add((LoanDueEvent) event), 1,
+			clock);
+
+	@Test
+	void firesRemindersAndOverdueNoticesAsDaysPass() {
+		approve(1L, TODAY.plusDays(2));
+		approve(2L, TODAY.plusDays(1)); // its reminder day is today, already past
+		approve(3L, TODAY.plusDays(2));
+
+		nextDay(); // the 11th: loans 1 and 3 are due back tomorrow
+		assertEquals(List.of("REMINDER 1", "REMINDER 3"), fired());
+		nextDay(); // the 12th: loan 2 wasn't back on the 11th
+		assertEquals(List.of("OVERDUE 2"), fired());
+
+		change(3L, RequestStatus.APPROVED, RequestStatus.RETURNED, TODAY.plusDays(2));
+		nextDay();
+		assertEquals(List.of("OVERDUE 1"), fired());
+		assertEquals(List.of(2L, 1L), overdueIds());
+
+		change(2L, RequestStatus.APPROVED, RequestStatus.RETURNED, TODAY.plusDays(1));
+		assertEquals(List.of(1L), overdueIds());
+		tracker.tick();
+		assertTrue(events.isEmpty(), "nothing fires twice within a day");
+	}
+
+	@Test
+	void handlesLateApprovalsAndLongLoans() {
+		approve(1L, TODAY.minusDays(3));
+		assertEquals(List.of(1L), overdueIds());
+
+		// Due a lap of the wheel later than loan 3: their deadlines share a slot
+		approve(2L, TODAY.plusDays(400));
+		approve(3L, TODAY.plusDays(400 - 256));
+		clock.advance(Duration.ofDays(400 - 256 + 1));
+		tracker.tick();
+		assertEquals(List.of("REMINDER 3", "OVERDUE 3"), fired());
+
+		clock.advance(Duration.ofDays(256));
+		tracker.tick();
+		assertEquals(List.of("REMINDER 2", "OVERDUE 2"), fired());
+		assertEquals(List.of(1L, 3L, 2L), overdueIds());
+	}
+
+	private void approve(Long requestId, LocalDate endDate) {
+		change(requestId, RequestStatus.PENDING, RequestStatus.APPROVED, endDate);
+	}
+
+	private void change(Long requestId, RequestStatus from, RequestStatus to, LocalDate endDate) {
+		tracker.onStatusChanged(new BorrowRequestStatusChangedEvent(requestId, 7L, 9L, from, to, 1, TODAY,
+				endDate.minusDays(3), endDate));
+	}
+
+	private void nextDay() {
+		clock.advance(Duration.ofDays(1));
+		tracker.tick();
+	}
+
+	private List<String> fired() {
+		List<String> fired = events.stream().map(event -> event.type() + " " + event.requestId()).toList();
+		events.clear();
+		return fired;
+	}
+
+	private List<Long> overdueIds() {
+		return tracker.overdueLoans().stream().map(ActiveLoan::requestId).toList();
+	}
+
+	private static final class MutableClock extends Clock {
+		private volatile Instant now = TODAY.atTime(9, 0).toInstant(ZoneOffset.UTC);
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+}
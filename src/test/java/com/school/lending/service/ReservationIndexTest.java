@@ -0,0 +1,77 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bookings are refused past capacity, undone when their transaction rolls
+ * back, and released only once a releasing transaction commits.
+ */
+class ReservationIndexTest {
+
+	private static final Long ITEM = 7L;
+	private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+	private final ReservationIndex index = new ReservationIndex(null);
+
+	@Test
+	void refusesBookingsOverCapacity() {
+		assertTrue(index.reserve(ITEM, DAY, DAY.plusDays(3), 2, 3));
+		assertFalse(index.reserve(ITEM, DAY.plusDays(2), DAY.plusDays(4), 2, 3), "day 2 would hold 4");
+		assertTrue(index.reserve(ITEM, DAY.plusDays(3), DAY.plusDays(4), 3, 3), "starts on the end date");
+		assertTrue(index.reserve(ITEM, DAY.plusDays(2), DAY.plusDays(3), 1, 3));
+		assertEquals(3, index.peakBooked(ITEM, DAY, DAY.plusDays(4)));
+		assertEquals(0, index.peakBooked(8L, DAY, DAY.plusDays(4)), "other items are free");
+	}
+
+	@Test
+	void undoesBookingOnRollback() {
+		inTransaction(false, () -> assertTrue(index.reserve(ITEM, DAY, DAY.plusDays(2), 2, 2)));
+		assertEquals(0, index.peakBooked(ITEM, DAY, DAY.plusDays(2)));
+
+		inTransaction(true, () -> assertTrue(index.reserve(ITEM, DAY, DAY.plusDays(2), 2, 2)));
+		assertEquals(2, index.peakBooked(ITEM, DAY, DAY.plusDays(2)));
+	}
+
+	@Test
+	void releasesOnlyAfterCommit() {
+		assertTrue(index.reserve(ITEM, DAY, DAY.plusDays(2), 2, 2));
+
+		inTransaction(false, () -> {
+			index.releaseAfterCommit(ITEM, DAY, DAY.plusDays(2), 2);
+			assertEquals(2, index.peakBooked(ITEM, DAY, DAY.plusDays(2)), "still held until commit");
+		});
+		assertEquals(2, index.peakBooked(ITEM, DAY, DAY.plusDays(2)), "rolled back: booking kept");
+
+		inTransaction(true, () -> index.releaseAfterCommit(ITEM, DAY, DAY.plusDays(2), 2));
+		assertEquals(0, index.peakBooked(ITEM, DAY, DAY.plusDays(2)));
+
+		index.releaseAfterCommit(ITEM, DAY, DAY.plusDays(2), -1); // no transaction: applied at once
+		assertEquals(1, index.peakBooked(ITEM, DAY, DAY.plusDays(2)));
+	}
+
+	// Runs the work with transaction synchronization active, then completes it as a transaction manager would
+	private static void inTransaction(boolean commit, Runnable work) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			work.run();
+			List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+			if (commit) {
+				synchronizations.forEach(TransactionSynchronization::afterCommit);
+			}
+			int status = commit ? TransactionSynchronization.STATUS_COMMITTED
+					: TransactionSynchronization.STATUS_ROLLED_BACK;
+			synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+}
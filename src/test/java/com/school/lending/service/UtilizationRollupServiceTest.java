@@ -0,0 +1,146 @@
+package com.school.lending.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.school.lending.controller.AnalyticsController;
+import com.school.lending.dto.RequestTransitionDto;
+import com.school.lending.dto.RequestTransitionResultDto;
+import com.school.lending.dto.UtilizationPointDto;
+import com.school.lending.model.BorrowRequest;
+import com.school.lending.model.Equipment;
+import com.school.lending.model.EquipmentCondition;
+import com.school.lending.model.RequestStatus;
+import com.school.lending.model.Role;
+import com.school.lending.model.User;
+
+/**
+ * The rollup is built from the requests on the first refresh and follows
+ * status changes made by a batch transition on the next one, both in
+ * daily_utilization and in the time series served by the analytics endpoints.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ UtilizationRollupService.class, AnalyticsController.class, AnalyticsService.class,
+		BorrowRequestService.class, UserService.class, EquipmentService.class, ReservationIndex.class,
+		JpaInventoryLedger.class, CatalogCache.class, CatalogSearchIndex.class, CatalogFacets.class })
+class UtilizationRollupServiceTest {
+
+	// Far from the dates other tests use, so the series only holds these requests
+	private static final LocalDate DAY = LocalDate.of(2031, 3, 3);
+
+	@Autowired
+	private UtilizationRollupService utilizationRollupService;
+
+	@Autowired
+	private AnalyticsController analyticsController;
+
+	@Autowired
+	private BorrowRequestService borrowRequestService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void followsBatchStatusChanges() {
+		User user = new User();
+		user.setEmail("rollup@lending.test");
+		user.setRole(Role.STUDENT);
+		entityManager.persist(user);
+		Equipment camera = equipment("Rollup Camera", 5, 2);
+		Equipment tripod = equipment("Rollup Tripod", 2, 0);
+		// Out on days 1 and 2
+		BorrowRequest lent = request(user, camera, 2, 0, 1, 3, RequestStatus.APPROVED);
+		BorrowRequest queued = request(user, camera, 1, 0, 2, 4, RequestStatus.PENDING);
+		BorrowRequest refused = request(user, tripod, 1, 1, 2, 3, RequestStatus.PENDING);
+		entityManager.flush();
+
+		utilizationRollupService.refresh();
+		assertEquals(List.of(
+				row(0, 0, 2, 1, 0),
+				row(1, 2, 0, 0, 0),
+				row(2, 2, 0, 0, 0)), rows(camera));
+		assertEquals(List.of(row(1, 0, 1, 0, 0)), rows(tripod));
+		assertEquals(List.of(
+				point(0, 0, 2, 1, 0, 1.0),
+				point(1, 2, 1, 0, 0, null),
+				point(2, 2, 0, 0, 0, null)), series());
+
+		List<RequestTransitionResultDto> results = borrowRequestService.transitionRequests(List.of(
+				new RequestTransitionDto(lent.getRequestId(), RequestStatus.RETURNED),
+				new RequestTransitionDto(queued.getRequestId(), RequestStatus.APPROVED),
+				new RequestTransitionDto(refused.getRequestId(), RequestStatus.REJECTED)));
+		assertTrue(results.stream().allMatch(RequestTransitionResultDto::applied), results.toString());
+
+		utilizationRollupService.refresh();
+		// A returned loan still counts as approved, and its days stay out
+		assertEquals(List.of(
+				row(0, 0, 2, 2, 0),
+				row(1, 2, 0, 0, 0),
+				row(2, 3, 0, 0, 0),
+				row(3, 1, 0, 0, 0)), rows(camera));
+		assertEquals(List.of(row(1, 0, 1, 0, 1)), rows(tripod));
+		List<UtilizationPointDto> expected = List.of(
+				point(0, 0, 2, 2, 0, 1.0),
+				point(1, 2, 1, 0, 1, 0.0),
+				point(2, 3, 0, 0, 0, null),
+				point(3, 1, 0, 0, 0, null));
+		assertEquals(expected, series());
+		assertEquals(expected, analyticsController
+				.getCategoryTimeSeries("Rollup", DAY, DAY.plusDays(6)).getBody());
+		assertEquals(List.of(point(1, 0, 1, 0, 1, 0.0)), analyticsController
+				.getEquipmentTimeSeries(tripod.getEquipmentId(), DAY, DAY.plusDays(6)).getBody());
+	}
+
+	private List<UtilizationPointDto> series() {
+		return analyticsController.getTimeSeries(DAY, DAY.plusDays(6)).getBody();
+	}
+
+	// day offset, units out, created, approved, rejected
+	private List<List<Long>> rows(Equipment equipment) {
+		return jdbcTemplate.query("SELECT usage_date, units_out, requests_created, requests_approved, "
+				+ "requests_rejected FROM daily_utilization WHERE equipment_id = ? ORDER BY usage_date",
+				(rs, i) -> List.of(rs.getDate(1).toLocalDate().toEpochDay() - DAY.toEpochDay(), rs.getLong(2),
+						rs.getLong(3), rs.getLong(4), rs.getLong(5)),
+				equipment.getEquipmentId());
+	}
+
+	private static List<Long> row(long day, long unitsOut, long created, long approved, long rejected) {
+		return List.of(day, unitsOut, created, approved, rejected);
+	}
+
+	private static UtilizationPointDto point(int day, long unitsOut, long created, long approved, long rejected,
+			Double approvalRate) {
+		return new UtilizationPointDto(DAY.plusDays(day), unitsOut, created, approved, rejected, approvalRate);
+	}
+
+	private Equipment equipment(String name, int total, int borrowed) {
+		return entityManager.persist(Equipment.builder().name(name).category("Rollup")
+				.condition(EquipmentCondition.GOOD).totalQuantity(total).borrowedCount(borrowed)
+				.availableQuantity(total - borrowed).build());
+	}
+
+	private BorrowRequest request(User user, Equipment equipment, int quantity, int requestDay, int startDay,
+			int endDay, RequestStatus status) {
+		return entityManager.persist(BorrowRequest.builder().user(user).equipment(equipment)
+				.requestedQuantity(quantity).requestDate(DAY.plusDays(requestDay)).startDate(DAY.plusDays(startDay))
+				.endDate(DAY.plusDays(endDay)).status(status).build());
+	}
+}